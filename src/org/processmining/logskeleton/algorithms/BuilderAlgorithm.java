@@ -1,46 +1,224 @@
 package org.processmining.logskeleton.algorithms;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
-import org.deckfour.xes.factory.XFactoryRegistry;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.processmining.framework.plugin.PluginContext;
-import org.processmining.log.models.EventLogArray;
-import org.processmining.log.models.impl.EventLogArrayFactory;
 import org.processmining.logskeleton.classifiers.PrefixClassifier;
 import org.processmining.logskeleton.configurations.BuilderConfiguration;
 import org.processmining.logskeleton.inputs.BuilderInput;
+import org.processmining.logskeleton.models.ActivityDictionary;
 import org.processmining.logskeleton.models.LogSkeleton;
 import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.PrePostCount;
+import org.processmining.logskeleton.models.TraceCounts;
+import org.processmining.logskeleton.models.TraceVariants;
 import org.processmining.logskeleton.outputs.BuilderOutput;
 
 public class BuilderAlgorithm {
 
+	/*
+	 * Ranges of at most this number of traces (or variants) are handled
+	 * sequentially. Larger ranges are split, and the halves are handled in
+	 * parallel.
+	 */
+	private final static int CHUNKSIZE = 256;
+
 	public BuilderOutput apply(PluginContext context, BuilderInput input, BuilderConfiguration configuration) {
-		XLog log = input.getLog();
+		LogSkeleton logSkeleton = apply(new LogView(input.getLog()), configuration);
+
+		/*
+		 * Return the output.
+		 */
+		System.out.println("[BuilderAlgorithm] Done.");
+		return new BuilderOutput(logSkeleton);
+	}
+
+	/**
+	 * Returns the log skeleton for the traces in the provided view using the
+	 * provided configuration. The log skeleton is labeled with the name of the
+	 * log the view is on.
+	 * 
+	 * @param view
+	 *            The provided view.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return The log skeleton.
+	 */
+	public LogSkeleton apply(LogView view, BuilderConfiguration configuration) {
+		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
+
+		/*
+		 * Encode all traces as activity ids, in parallel.
+		 */
+		System.out.println("[BuilderAlgorithm] Encoding traces.");
+		ActivityDictionary dictionary = new ActivityDictionary();
+		int[][] traces = new int[view.size()][];
+		ForkJoinPool.commonPool().invoke(new EncodeTask(view, classifier, dictionary, traces, 0, traces.length));
 
 		/*
-		 * Create count for entire log.
+		 * The ids depend on the order in which the tasks happened to add the
+		 * activities. Renumber them in order of first occurrence in the log,
+		 * so that the same log always results in the same ids.
 		 */
-		System.out.println("[BuilderAlgorithm] Creating log count.");
-		LogSkeletonCount logCount = count(log, configuration);
+		dictionary = renumber(dictionary, traces);
 
 		/*
-		 * Create a count for every trace.
+		 * Build the log skeleton from the encoded traces.
 		 */
-		System.out.println("[BuilderAlgorithm] Creating trace counts.");
-		EventLogArray traceLogs = split(log);
-		Collection<LogSkeletonCount> traceCounts = createCounts(traceLogs, configuration);
+		LogSkeleton logSkeleton = apply(dictionary, traces, configuration);
+
+		/*
+		 * Set the label of the log skeleton.
+		 */
+		String label = XConceptExtension.instance().extractName(view.getLog());
+		logSkeleton.setLabel(label == null ? "<not specified>" : label);
+		return logSkeleton;
+	}
+
+	/**
+	 * Returns the log skeleton for the provided traces using the provided
+	 * configuration. The traces are provided as sequences of activity ids (see
+	 * ActivityDictionary.add(XTrace, XEventClassifier)), and the provided
+	 * dictionary should contain only the activities that occur in these
+	 * traces. The log skeleton has no label.
+	 * 
+	 * @param dictionary
+	 *            The provided dictionary.
+	 * @param traces
+	 *            The provided traces.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return The log skeleton.
+	 */
+	public LogSkeleton apply(ActivityDictionary dictionary, int[][] traces, BuilderConfiguration configuration) {
+		int nofTraces = traces.length;
+
+		/*
+		 * Group the traces into variants. Every variant is counted only once,
+		 * weighted by the number of traces it covers.
+		 */
+		TraceVariants variants = new TraceVariants();
+		for (int[] trace : traces) {
+			variants.add(trace);
+		}
+		traces = new int[variants.size()][];
+		int[] weights = new int[variants.size()];
+		for (int variant = 0; variant < variants.size(); variant++) {
+			traces[variant] = variants.get(variant);
+			weights[variant] = variants.getWeight(variant);
+		}
+
+		/*
+		 * Create the count for the entire log, the count for every variant,
+		 * and the counts of all presets and postsets, in parallel. Every task
+		 * creates partial counts for a range of variants, which are merged
+		 * afterwards.
+		 */
+		System.out.println("[BuilderAlgorithm] Creating counts.");
+		BitSet boundaryActivities = getBoundaryActivities(dictionary, configuration);
+		Counts counts = ForkJoinPool.commonPool().invoke(new CountTask(dictionary, traces, weights,
+				configuration.getHorizon(), boundaryActivities, 0, traces.length));
+		return build(dictionary, counts, weights, nofTraces, configuration);
+	}
+
+	/**
+	 * Returns the log skeleton for the provided variants using the provided
+	 * configuration, where the presets and postsets of all activities have
+	 * been counted already. The variants are provided as sequences of activity
+	 * ids (see ActivityDictionary.add(XTrace, XEventClassifier)), together with
+	 * the number of traces for every variant, and the provided dictionary
+	 * should contain only the activities that occur in these variants. The log
+	 * skeleton has no label.
+	 * 
+	 * The presets and postsets can be counted once per variant (see
+	 * countPrePost), and merged for any selection of variants. This avoids
+	 * sweeping over the same variants for every selection.
+	 * 
+	 * @param dictionary
+	 *            The provided dictionary.
+	 * @param variants
+	 *            The provided variants.
+	 * @param weights
+	 *            The number of traces for every provided variant.
+	 * @param prePostCount
+	 *            The counts of the presets and postsets of all activities in
+	 *            the provided variants, each variant counted as often as its
+	 *            number of traces.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return The log skeleton.
+	 */
+	public LogSkeleton apply(ActivityDictionary dictionary, int[][] variants, int[] weights,
+			PrePostCount prePostCount, BuilderConfiguration configuration) {
+		/*
+		 * Create the count for the entire log and the count for every
+		 * variant, and take the provided counts of all presets and postsets.
+		 */
+		System.out.println("[BuilderAlgorithm] Creating counts.");
+		Counts counts = new Counts(dictionary);
+		int nofTraces = 0;
+		for (int variant = 0; variant < variants.length; variant++) {
+			int[] ids = variants[variant];
+			counts.logCount.inc(ids, weights[variant]);
+			for (int id : ids) {
+				counts.traceCounts.inc(id, variant);
+			}
+			nofTraces += weights[variant];
+		}
+		counts.prePostCount = prePostCount;
+		return build(dictionary, counts, weights, nofTraces, configuration);
+	}
+
+	/**
+	 * Returns the presets and postsets of all activities in every provided
+	 * trace, using the provided configuration. Every trace is counted once,
+	 * and gets counts of its own. See apply(ActivityDictionary, int[][], int[],
+	 * PrePostCount, BuilderConfiguration).
+	 * 
+	 * @param dictionary
+	 *            The dictionary used to encode the provided traces.
+	 * @param traces
+	 *            The provided traces.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return The counts for every provided trace.
+	 */
+	public PrePostCount[] countPrePost(ActivityDictionary dictionary, int[][] traces,
+			BuilderConfiguration configuration) {
+		BitSet boundaryActivities = getBoundaryActivities(dictionary, configuration);
+		PrePostCount[] prePostCounts = new PrePostCount[traces.length];
+		for (int i = 0; i < traces.length; i++) {
+			prePostCounts[i] = new PrePostCount();
+			addPrePost(traces[i], 1, configuration.getHorizon(), boundaryActivities, prePostCounts[i]);
+		}
+		return prePostCounts;
+	}
+
+	/*
+	 * Builds the log skeleton from the provided counts. The trace counts are
+	 * kept per variant, the provided weights contain the number of traces for
+	 * every variant.
+	 */
+	private LogSkeleton build(ActivityDictionary dictionary, Counts counts, int[] weights, int nofTraces,
+			BuilderConfiguration configuration) {
+		LogSkeletonCount logCount = counts.logCount;
+		PrePostCount prePostCount = counts.prePostCount;
 
 		/*
 		 * Create an initial log skeleton from the log count.
@@ -53,25 +231,15 @@ public class BuilderAlgorithm {
 		 * counts.
 		 */
 		System.out.println("[BuilderAlgorithm] Creating equivalence classes.");
-		addEquivalenceClasses(traceCounts, logSkeleton);
+		addEquivalenceClasses(dictionary, counts.traceCounts, weights, nofTraces, logSkeleton);
 
 		/*
 		 * Add other relations to the log skeleton.
 		 */
 		System.out.println("[BuilderAlgorithm] Creating relations.");
-		createCausalDependencies(log, configuration, logCount, logSkeleton);
-
-		/*
-		 * Set the label of the log skeleton.
-		 */
-		String label = XConceptExtension.instance().extractName(log);
-		logSkeleton.setLabel(label == null ? "<not specified>" : label);
-
-		/*
-		 * Return the output.
-		 */
-		System.out.println("[BuilderAlgorithm] Done.");
-		return new BuilderOutput(logSkeleton);
+		logSkeleton.addPrePost(prePostCount);
+		logSkeleton.cleanPrePost();
+		return logSkeleton;
 	}
 
 	/**
@@ -95,35 +263,7 @@ public class BuilderAlgorithm {
 		 * Count how often activities and transitions occur in the log.
 		 */
 		for (XTrace trace : log) {
-			String activity;
-
-			/*
-			 * Initialize the previous activity.
-			 */
-			String prevActivity = LogSkeletonCount.STARTEVENT;
-			logCount.inc(prevActivity);
-
-			for (XEvent event : trace) {
-				activity = classifier.getClassIdentity(event);
-
-				/*
-				 * Activity has occurred.
-				 */
-				logCount.inc(activity);
-
-				/*
-				 * transition from previous activity to activity has occurred.
-				 */
-				logCount.inc(prevActivity, activity);
-
-				prevActivity = activity;
-			}
-			/*
-			 * Finalize the count.
-			 */
-			activity = LogSkeletonCount.ENDEVENT;
-			logCount.inc(activity);
-			logCount.inc(prevActivity, activity);
+			logCount.inc(logCount.getDictionary().add(trace, classifier));
 		}
 		/*
 		 * Return the count.
@@ -132,242 +272,361 @@ public class BuilderAlgorithm {
 	}
 
 	/*
-	 * Splits the log into trace logs (a sublog for every trace).
+	 * The trace counts are kept per variant. The provided weights contain the
+	 * number of traces for every variant.
 	 */
-	private EventLogArray split(XLog log) {
-		EventLogArray traceLogs = EventLogArrayFactory.createEventLogArray();
-		for (XTrace trace : log) {
-			XLog traceLog = XFactoryRegistry.instance().currentDefault().createLog();
-			traceLog.add(trace);
-			traceLogs.addLog(traceLogs.getSize(), traceLog);
-		}
-		return traceLogs;
-	}
+	private void addEquivalenceClasses(ActivityDictionary dictionary, TraceCounts traceCounts, int[] weights,
+			int nofTraces, LogSkeleton logSkeleton) {
+		int nofActivities = dictionary.size();
 
-	/*
-	 * Returns the trace counts for the trace logs.
-	 */
-	private Collection<LogSkeletonCount> createCounts(EventLogArray traceLogs, BuilderConfiguration configuration) {
-		Collection<LogSkeletonCount> traceCounts = new ArrayList<LogSkeletonCount>();
-		for (int i = 0; i < traceLogs.getSize(); i++) {
-			XLog log = traceLogs.getLog(i);
-			traceCounts.add(count(log, configuration));
+		/*
+		 * Two activities are joined at noise level L if the distance D between
+		 * their trace counts satisfies 100 * D < L * nofTraces. As a result,
+		 * activities joined at level L are also joined at level L+1. For every
+		 * pair of activities, determine the lowest noise level (0% - 20%) at
+		 * which they are joined, if any. Activities with identical trace counts
+		 * are joined at level 0.
+		 * 
+		 * If joins.get(L) contains {a, b}, then activities a and b are joined
+		 * from noise level L onwards.
+		 */
+		List<List<int[]>> joins = new ArrayList<List<int[]>>();
+		for (int noiseLevel = 0; noiseLevel < 21; noiseLevel++) {
+			joins.add(new ArrayList<int[]>());
 		}
-		return traceCounts;
-	}
-
-	private void addEquivalenceClasses(Collection<LogSkeletonCount> traceCounts, LogSkeleton logSkeleton) {
 
 		/*
-		 * Maps a list of counts (for every trace a count) to the set of
-		 * activities that have this list of counts.
+		 * Sort the activities on their total counts. The distance between two
+		 * activities is at least the difference between their total counts.
 		 */
-		Map<List<Integer>, Set<String>> traceCountList2Activities = new HashMap<List<Integer>, Set<String>>();
+		final long[] sums = new long[nofActivities];
+		Integer[] sortedActivities = new Integer[nofActivities];
+		for (int activity = 0; activity < nofActivities; activity++) {
+			sums[activity] = traceCounts.getTotal(activity, weights);
+			sortedActivities[activity] = activity;
+		}
+		Arrays.sort(sortedActivities, new Comparator<Integer>() {
+
+			public int compare(Integer activity1, Integer activity2) {
+				return Long.compare(sums[activity1], sums[activity2]);
+			}
+		});
 
 		/*
-		 * Get all activities over all trace counts.
+		 * Beyond this distance, activities are not joined at any noise level.
 		 */
-		Set<String> allActivities = new HashSet<String>();
-		for (LogSkeletonCount traceCount : traceCounts) {
-			allActivities.addAll(traceCount.getActivities());
+		long maxDistance = (20L * nofTraces + 99) / 100;
+		for (int i = 0; i < nofActivities; i++) {
+			int activity1 = sortedActivities[i];
+			for (int j = i + 1; j < nofActivities; j++) {
+				int activity2 = sortedActivities[j];
+				if (sums[activity2] - sums[activity1] >= maxDistance && nofTraces > 0) {
+					/*
+					 * All remaining activities have an even larger total count.
+					 */
+					break;
+				}
+				long distance = traceCounts.distance(activity1, activity2, weights, maxDistance);
+				if (distance == 0) {
+					joins.get(0).add(new int[] { activity1, activity2 });
+				} else if (distance < maxDistance) {
+					int noiseLevel = (int) (100 * distance / nofTraces) + 1;
+					if (noiseLevel < 21) {
+						joins.get(noiseLevel).add(new int[] { activity1, activity2 });
+					}
+				}
+			}
 		}
 
 		/*
-		 * For every activity, count how often it occurs in every trace.
+		 * For every noise level, starting at noise level 0, join the activities
+		 * that are joined at that level. Joins from lower levels carry over.
 		 */
-		for (String activity : allActivities) {
+		int[] parents = new int[nofActivities];
+		for (int activity = 0; activity < nofActivities; activity++) {
+			parents[activity] = activity;
+		}
+		for (int noiseLevel = 0; noiseLevel < 21; noiseLevel++) {
+			System.out.println("[BuilderAlgorithm] Creating Equivalence class for noiselevel " + noiseLevel + ".");
+			for (int[] join : joins.get(noiseLevel)) {
+				int root1 = find(parents, join[0]);
+				int root2 = find(parents, join[1]);
+				if (root1 != root2) {
+					parents[Math.max(root1, root2)] = Math.min(root1, root2);
+				}
+			}
+
 			/*
-			 * Determine the trace count for this activity.
+			 * Copy the equivalence classes for this noise level to the log
+			 * skeleton.
 			 */
-			List<Integer> traceCountList = new ArrayList<Integer>();
-			for (LogSkeletonCount traceCount : traceCounts) {
-				traceCountList.add(traceCount.get(activity));
+			Map<Integer, Set<String>> equivalenceClasses = new HashMap<Integer, Set<String>>();
+			for (int activity = 0; activity < nofActivities; activity++) {
+				int root = find(parents, activity);
+				if (!equivalenceClasses.containsKey(root)) {
+					equivalenceClasses.put(root, new HashSet<String>());
+				}
+				equivalenceClasses.get(root).add(dictionary.getActivity(activity));
+			}
+			for (Set<String> equivalenceClass : equivalenceClasses.values()) {
+				logSkeleton.addEquivalenceClass(noiseLevel, equivalenceClass);
 			}
+		}
+	}
 
+	/*
+	 * Returns the representative of the equivalence class of the provided
+	 * activity.
+	 */
+	private int find(int[] parents, int activity) {
+		while (parents[activity] != activity) {
 			/*
-			 * Add the trace count to the map.
+			 * Path halving.
 			 */
-			if (traceCountList2Activities.containsKey(traceCountList)) {
-				/*
-				 * Add activity to existing trace count.
-				 */
-				traceCountList2Activities.get(traceCountList).add(activity);
-			} else {
-				/*
-				 * Create new trace count for this activity.
-				 */
-				Set<String> activities = new HashSet<String>();
-				activities.add(activity);
-				traceCountList2Activities.put(traceCountList, activities);
+			parents[activity] = parents[parents[activity]];
+			activity = parents[activity];
+		}
+		return activity;
+	}
+
+	/*
+	 * Returns the ids of the boundary activities of the provided configuration.
+	 */
+	private BitSet getBoundaryActivities(ActivityDictionary dictionary, BuilderConfiguration configuration) {
+		BitSet boundaryActivities = new BitSet();
+		for (String activity : configuration.getBoundaryActivities()) {
+			int id = dictionary.getId(activity);
+			if (id >= 0) {
+				boundaryActivities.set(id);
 			}
 		}
+		return boundaryActivities;
+	}
 
+	/*
+	 * Registers the presets and postsets of all activities in the provided
+	 * trace, which occurs the provided number of times.
+	 */
+	private static void addPrePost(int[] ids, int weight, int horizon, BitSet boundaryActivities,
+			PrePostCount prePostCount) {
 		/*
-		 * We now have the base equivalence classes (the values in the map).
-		 * From this, create the equivalence classes for every noise level (0% -
-		 * 20%).
+		 * The preset of an activity contains the activities before it, the
+		 * postset the activities after it. Both contain at most horizon
+		 * activities (if positive), and both stop after the first boundary
+		 * activity. Both are kept as sliding windows over the trace, which are
+		 * updated incrementally while sweeping over the trace: the preset
+		 * window runs from preStart up to the current activity, the postset
+		 * window from the next activity up to postEnd.
 		 */
-		boolean changed = true;
-		int nofTraces = traceCountList2Activities.keySet().isEmpty() ? 0
-				: traceCountList2Activities.keySet().iterator().next().size();
+		int limit = horizon > 0 ? horizon : Integer.MAX_VALUE;
+		int maxId = 0;
+		for (int id : ids) {
+			maxId = Math.max(maxId, id);
+		}
 		/*
-		 * For every noise level, starting at noise level 0.
+		 * preCounts[a] and postCounts[a] count the occurrences of activity a in
+		 * the preset window and the postset window. The preset and postset
+		 * contain the activities with positive counts.
 		 */
-		for (int noiseLevel = 0; noiseLevel < 21; noiseLevel++) {
+		int[] preCounts = new int[maxId + 1];
+		int[] postCounts = new int[maxId + 1];
+		BitSet preset = new BitSet();
+		BitSet postset = new BitSet();
+		int preStart = 0;
+		int postEnd = 0;
+		for (int i = 0; i < ids.length; i++) {
+			if (i < postEnd) {
+				/*
+				 * The current activity leaves the postset window.
+				 */
+				leave(ids[i], postCounts, postset);
+			} else {
+				postEnd = i + 1;
+			}
 			/*
-			 * Create a copy from the map.
+			 * Extend the postset window up to the horizon, or up to and
+			 * including the next boundary activity.
 			 */
-			System.out.println("[BuilderAlgorithm] Creating Equivalence class for noiselevel " + noiseLevel + ".");
-			Map<List<Integer>, Set<String>> newTraceCountList2Activities = new HashMap<List<Integer>, Set<String>>();
-			for (List<Integer> c : traceCountList2Activities.keySet()) {
-				newTraceCountList2Activities.put(c, new HashSet<String>(traceCountList2Activities.get(c)));
+			while (postEnd < ids.length && postEnd - i - 1 < limit
+					&& (postEnd == i + 1 || !boundaryActivities.get(ids[postEnd - 1]))) {
+				enter(ids[postEnd++], postCounts, postset);
 			}
-
+			prePostCount.add(ids[i], preset, postset, weight);
 			/*
-			 * Update the copy: If the increased noise level causes two
-			 * equivalence classes to be joined, join them.
-			 * 
-			 * Keep on going as long as there were changes.
+			 * The current activity enters the preset window. A boundary
+			 * activity closes the window behind it.
 			 */
-			while (changed) {
-				changed = false;
+			if (boundaryActivities.get(ids[i])) {
+				while (preStart < i) {
+					leave(ids[preStart++], preCounts, preset);
+				}
+			}
+			enter(ids[i], preCounts, preset);
+			if (i + 1 - preStart > limit) {
 				/*
-				 * No join yet.
+				 * The oldest activity falls beyond the horizon.
 				 */
-				for (List<Integer> traceCountList1 : newTraceCountList2Activities.keySet()) {
-					for (List<Integer> traceCountList2 : newTraceCountList2Activities.keySet()) {
-						if (!newTraceCountList2Activities.get(traceCountList1)
-								.equals(newTraceCountList2Activities.get(traceCountList2))
-								&& 100 * distance(traceCountList1, traceCountList2) < noiseLevel * nofTraces) {
-							/*
-							 * Distance is too small for noise level. Join both
-							 * equivalence classes.
-							 */
-							newTraceCountList2Activities.get(traceCountList1)
-									.addAll(newTraceCountList2Activities.get(traceCountList2));
-							newTraceCountList2Activities.get(traceCountList2)
-									.addAll(newTraceCountList2Activities.get(traceCountList1));
-							changed = true;
-						}
-					}
-				}
+				leave(ids[preStart++], preCounts, preset);
 			}
+		}
+	}
 
-			/*
-			 * Copy the equivalence classes for this noise level to the log
-			 * skeleton.
-			 */
-			for (Set<String> equivalenceClass : newTraceCountList2Activities.values()) {
-				logSkeleton.addEquivalenceClass(noiseLevel, equivalenceClass);
+	/*
+	 * Adds an occurrence of the provided activity to a window.
+	 */
+	private static void enter(int activity, int[] counts, BitSet activities) {
+		if (counts[activity]++ == 0) {
+			activities.set(activity);
+		}
+	}
+
+	/*
+	 * Removes an occurrence of the provided activity from a window.
+	 */
+	private static void leave(int activity, int[] counts, BitSet activities) {
+		if (--counts[activity] == 0) {
+			activities.clear(activity);
+		}
+	}
+
+	/*
+	 * Returns a dictionary with the activities of the provided dictionary
+	 * numbered in order of first occurrence in the provided traces, and
+	 * rewrites the traces to use these ids.
+	 */
+	private static ActivityDictionary renumber(ActivityDictionary dictionary, int[][] traces) {
+		ActivityDictionary orderedDictionary = new ActivityDictionary();
+		int[] orderedIds = new int[dictionary.size()];
+		Arrays.fill(orderedIds, -1);
+		for (int[] trace : traces) {
+			for (int i = 0; i < trace.length; i++) {
+				int id = trace[i];
+				if (orderedIds[id] == -1) {
+					orderedIds[id] = orderedDictionary.add(dictionary.getActivity(id));
+				}
+				trace[i] = orderedIds[id];
 			}
+		}
+		return orderedDictionary;
+	}
 
-			/*
-			 * Replace the original map by the copy.
-			 */
-			traceCountList2Activities = newTraceCountList2Activities;
+	/*
+	 * Encodes the traces in a range of the log as activity ids.
+	 */
+	private static class EncodeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private LogView view;
+		private XEventClassifier classifier;
+		private ActivityDictionary dictionary;
+		private int[][] traces;
+		private int from;
+		private int to;
+
+		public EncodeTask(LogView view, XEventClassifier classifier, ActivityDictionary dictionary, int[][] traces,
+				int from, int to) {
+			this.view = view;
+			this.classifier = classifier;
+			this.dictionary = dictionary;
+			this.traces = traces;
+			this.from = from;
+			this.to = to;
+		}
 
-			/*
-			 * Set to false for next noise level.
-			 */
-			changed = true;
+		protected void compute() {
+			if (to - from <= CHUNKSIZE) {
+				for (int traceIndex = from; traceIndex < to; traceIndex++) {
+					String[] activities = view.getActivities(traceIndex, classifier);
+					traces[traceIndex] = new int[activities.length];
+					for (int i = 0; i < activities.length; i++) {
+						traces[traceIndex][i] = dictionary.add(activities[i]);
+					}
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new EncodeTask(view, classifier, dictionary, traces, from, middle),
+						new EncodeTask(view, classifier, dictionary, traces, middle, to));
+			}
 		}
 	}
 
 	/*
-	 * Returns the distance between two trace counts.
+	 * Partial counts for a range of variants.
 	 */
-	private int distance(List<Integer> traceCountList1, List<Integer> traceCountList2) {
-		int distance = 0;
-		int size = Math.min(traceCountList1.size(), traceCountList2.size());
+	private static class Counts {
+
+		private LogSkeletonCount logCount;
+		private PrePostCount prePostCount;
+		private TraceCounts traceCounts;
+
+		public Counts(ActivityDictionary dictionary) {
+			logCount = new LogSkeletonCount(dictionary);
+			prePostCount = new PrePostCount();
+			traceCounts = new TraceCounts();
+		}
+
 		/*
-		 * The distance is the accumulation of the activity-wise differences.
+		 * Merges the provided partial counts into these partial counts.
 		 */
-		for (int i = 0; i < size; i++) {
-			distance += Math.abs(traceCountList1.get(i) - traceCountList2.get(i));
+		public void add(Counts counts) {
+			logCount.add(counts.logCount);
+			prePostCount.add(counts.prePostCount);
+			traceCounts.add(counts.traceCounts);
 		}
-		return distance;
 	}
 
 	/*
-	 * Registers the (Not) Response/Precedence and Not Co-Existence in the log
-	 * skeleton.
+	 * Counts the variants in a range of the log.
 	 */
-	private void createCausalDependencies(XLog log, BuilderConfiguration configuration, LogSkeletonCount count,
-			LogSkeleton logSkeleton) {
-		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
-		for (XTrace trace : log) {
-			/*
-			 * Add the entire trace (including artificial start and end) to the
-			 * postset.
-			 */
-			List<String> postset = new ArrayList<String>();
-			postset.add(LogSkeletonCount.STARTEVENT);
-			for (XEvent event : trace) {
-				postset.add(classifier.getClassIdentity(event));
-			}
-			postset.add(LogSkeletonCount.ENDEVENT);
-			/*
-			 * Preset is initially empty.
-			 */
-			List<String> preset = new ArrayList<String>();
-			String prevActivity = null;
-			/*
-			 * For every activity: register the preset and the postset.
-			 */
-			while (!postset.isEmpty()) {
-				if (prevActivity != null) {
-					preset.add(0, prevActivity);
-				}
-				String activity = postset.remove(0);
-				Set<String> filteredPreset = new HashSet<String>();
-				for (int i = 0; i < preset.size(); i++) {
-					if (i > 0 && i == configuration.getHorizon()) {
-						break;
-					} else if (configuration.getBoundaryActivities().contains(preset.get(i))) {
-						filteredPreset.add(preset.get(i));
-						break;
-					} else {
-						filteredPreset.add(preset.get(i));
-					}
-				}
-				Set<String> filteredPostset = new HashSet<String>();
-				for (int i = 0; i < postset.size(); i++) {
-					if (i > 0 && i == configuration.getHorizon()) {
-						break;
-					} else if (configuration.getBoundaryActivities().contains(postset.get(i))) {
-						filteredPostset.add(postset.get(i));
-						break;
-					} else {
-						filteredPostset.add(postset.get(i));
+	private static class CountTask extends RecursiveTask<Counts> {
+
+		private static final long serialVersionUID = 1L;
+
+		private ActivityDictionary dictionary;
+		private int[][] traces;
+		private int[] weights;
+		private int horizon;
+		private BitSet boundaryActivities;
+		private int from;
+		private int to;
+
+		public CountTask(ActivityDictionary dictionary, int[][] traces, int[] weights, int horizon,
+				BitSet boundaryActivities, int from, int to) {
+			this.dictionary = dictionary;
+			this.traces = traces;
+			this.weights = weights;
+			this.horizon = horizon;
+			this.boundaryActivities = boundaryActivities;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Counts compute() {
+			if (to - from <= CHUNKSIZE) {
+				Counts counts = new Counts(dictionary);
+				for (int variant = from; variant < to; variant++) {
+					int[] ids = traces[variant];
+					counts.logCount.inc(ids, weights[variant]);
+					for (int id : ids) {
+						counts.traceCounts.inc(id, variant);
 					}
+					addPrePost(ids, weights[variant], horizon, boundaryActivities, counts.prePostCount);
 				}
-				logSkeleton.addPrePost(activity,  filteredPreset, filteredPostset);
-//				if (configuration.getHorizon() > 0) {
-//					/*
-//					 * Use horizon: Use only the first X activities in the
-//					 * preset and the postset, where X is the current horizon.
-//					 */
-//					Set<String> horizonPreset = new HashSet<String>();
-//					Set<String> horizonPostset = new HashSet<String>();
-//					for (int i = 0; i < configuration.getHorizon(); i++) {
-//						if (i < preset.size()) {
-//							horizonPreset.add(preset.get(i));
-//						}
-//						if (i < postset.size()) {
-//							horizonPostset.add(postset.get(i));
-//						}
-//					}
-//					System.out.println("[BuilderAlgorithm] " + activity + ", " + horizonPreset + ", " + horizonPostset);
-//					logSkeleton.addPrePost(activity, horizonPreset, horizonPostset);
-//				} else {
-//					logSkeleton.addPrePost(activity, preset, postset);
-//				}
-				prevActivity = activity;
+				return counts;
 			}
+			int middle = (from + to) >>> 1;
+			CountTask left = new CountTask(dictionary, traces, weights, horizon, boundaryActivities, from, middle);
+			CountTask right = new CountTask(dictionary, traces, weights, horizon, boundaryActivities, middle, to);
+			left.fork();
+			Counts counts = right.compute();
+			/*
+			 * Merge the partial counts for both halves. The variants of the
+			 * left half precede the variants of the right half.
+			 */
+			Counts leftCounts = left.join();
+			leftCounts.add(counts);
+			return leftCounts;
 		}
-		/*
-		 * Clean up.
-		 */
-		logSkeleton.cleanPrePost();
 	}
 }
@@ -1,39 +1,189 @@
 package org.processmining.logskeleton.algorithms;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.factory.XFactoryRegistry;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.processmining.framework.plugin.PluginContext;
-import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
 import org.processmining.logskeleton.configurations.CheckerConfiguration;
 import org.processmining.logskeleton.inputs.CheckerInput;
+import org.processmining.logskeleton.models.CompiledLogSkeleton;
 import org.processmining.logskeleton.models.LogSkeleton;
-import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.TraceVariant;
+import org.processmining.logskeleton.models.Violation;
 import org.processmining.logskeleton.outputs.CheckerOutput;
 
 public class CheckerAlgorithm {
 
+	/*
+	 * Every task checks at most this number of traces.
+	 */
+	private final static int CHUNKSIZE = 256;
+
+	/*
+	 * At most this number of fitting variants is remembered.
+	 */
+	private final static int MAXVARIANTS = 100000;
+
 	public CheckerOutput apply(PluginContext context, CheckerInput input, CheckerConfiguration configuration) {
-		XLog classifiedLog = XFactoryRegistry.instance().currentDefault().createLog();
-		XLog traceLog = XFactoryRegistry.instance().currentDefault().createLog();
-		BuilderAlgorithm algorithm = new BuilderAlgorithm();
-		BuilderConfiguration builderConfiguration = new BuilderConfiguration(configuration);
-		
-		XLog log = input.getLog();
-		LogSkeleton logSkeleton = input.getLogSkeleton();
-		
-		System.out.println("[CheckerAlgorithm] log " + XConceptExtension.instance().extractName(log));
-		for (XTrace trace : log) {
-			System.out.println("[CheckerAlgorithm] trace " + XConceptExtension.instance().extractName(trace));
-			traceLog.clear();
-			traceLog.add(trace);
-			LogSkeletonCount traceCount = algorithm.count(traceLog, builderConfiguration);
-			traceCount.print("Trace " + XConceptExtension.instance().extractName(trace));
-			if (logSkeleton.check(trace, traceCount, configuration).isEmpty()) {
-				classifiedLog.add(trace);
+		final XLog classifiedLog = XFactoryRegistry.instance().currentDefault().createLog();
+		final ViolationCounts violationCounts = new ViolationCounts();
+
+		System.out.println("[CheckerAlgorithm] log " + XConceptExtension.instance().extractName(input.getLog()));
+		apply(input, configuration, new CheckerSink() {
+
+			public void accept(XTrace trace, Collection<Violation> violations) {
+				if (violations.isEmpty()) {
+					classifiedLog.add(trace);
+				}
+				violationCounts.accept(trace, violations);
+			}
+		});
+		return new CheckerOutput(classifiedLog, violationCounts);
+	}
+
+	/**
+	 * Checks all traces of the provided input using the provided configuration,
+	 * and streams the results to the provided sink. To aggregate the violations
+	 * without keeping them, use a ViolationCounts as sink.
+	 *
+	 * The traces are checked in parallel against a compiled log skeleton (see
+	 * LogSkeleton.compile()), which is taken before the first trace is checked.
+	 * At most a fixed number of traces is pending at any time, so memory use
+	 * does not depend on the size of the log. The sink receives the results in
+	 * the order of the log, and from the calling thread only.
+	 *
+	 * @param input
+	 *            The provided input.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @param sink
+	 *            The provided sink.
+	 */
+	public void apply(CheckerInput input, CheckerConfiguration configuration, CheckerSink sink) {
+		apply(input.getLogSkeleton(), new LogView(input.getLog()), configuration, sink);
+	}
+
+	/**
+	 * Checks all traces in the provided view against the provided log skeleton
+	 * using the provided configuration, and streams the results to the
+	 * provided sink. See apply(CheckerInput, CheckerConfiguration,
+	 * CheckerSink). The sink receives the traces of the log the view is on,
+	 * while the traces are checked using the activities in the view.
+	 *
+	 * @param logSkeleton
+	 *            The provided log skeleton.
+	 * @param view
+	 *            The provided view.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @param sink
+	 *            The provided sink.
+	 */
+	public void apply(LogSkeleton logSkeleton, LogView view, CheckerConfiguration configuration,
+			CheckerSink sink) {
+		CompiledLogSkeleton compiledLogSkeleton = logSkeleton.compile();
+		/*
+		 * Traces of the same variant have the same result. Remember the
+		 * variants that fit, and do not check them again. Variants that do not
+		 * fit are checked again for every trace, as every trace needs its own
+		 * violations.
+		 */
+		Set<TraceVariant> fittingVariants = Collections
+				.newSetFromMap(new ConcurrentHashMap<TraceVariant, Boolean>());
+		int maxPendingTasks = 2 * ForkJoinPool.commonPool().getParallelism();
+		Deque<CheckTask> pendingTasks = new ArrayDeque<CheckTask>();
+
+		for (int from = 0; from < view.size(); from += CHUNKSIZE) {
+			if (pendingTasks.size() == maxPendingTasks) {
+				/*
+				 * Wait for the oldest task before starting a new one.
+				 */
+				deliver(pendingTasks.poll(), sink);
+			}
+			pendingTasks.add(start(compiledLogSkeleton, configuration, fittingVariants, view, from,
+					Math.min(from + CHUNKSIZE, view.size())));
+		}
+		while (!pendingTasks.isEmpty()) {
+			deliver(pendingTasks.poll(), sink);
+		}
+	}
+
+	private CheckTask start(CompiledLogSkeleton compiledLogSkeleton, CheckerConfiguration configuration,
+			Set<TraceVariant> fittingVariants, LogView view, int from, int to) {
+		CheckTask task = new CheckTask(compiledLogSkeleton, configuration, fittingVariants, view, from, to);
+		ForkJoinPool.commonPool().execute(task);
+		return task;
+	}
+
+	/*
+	 * Waits for the provided task, and passes its results to the provided sink.
+	 */
+	private void deliver(CheckTask task, CheckerSink sink) {
+		List<Collection<Violation>> results = task.join();
+		for (int i = 0; i < results.size(); i++) {
+			sink.accept(task.view.getTrace(task.from + i), results.get(i));
+		}
+	}
+
+	/*
+	 * Checks a chunk of traces: the traces in the view from index from up to
+	 * index to.
+	 */
+	private static class CheckTask extends RecursiveTask<List<Collection<Violation>>> {
+
+		private static final long serialVersionUID = 1L;
+
+		private CompiledLogSkeleton compiledLogSkeleton;
+		private CheckerConfiguration configuration;
+		private Set<TraceVariant> fittingVariants;
+		private LogView view;
+		private int from;
+		private int to;
+
+		public CheckTask(CompiledLogSkeleton compiledLogSkeleton, CheckerConfiguration configuration,
+				Set<TraceVariant> fittingVariants, LogView view, int from, int to) {
+			this.compiledLogSkeleton = compiledLogSkeleton;
+			this.configuration = configuration;
+			this.fittingVariants = fittingVariants;
+			this.view = view;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected List<Collection<Violation>> compute() {
+			XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
+			List<Collection<Violation>> results = new ArrayList<Collection<Violation>>(to - from);
+			for (int traceIndex = from; traceIndex < to; traceIndex++) {
+				String[] activities = view.getActivities(traceIndex, classifier);
+				int[] ids = compiledLogSkeleton.getIds(activities);
+				TraceVariant variant = new TraceVariant(ids);
+				if (fittingVariants.contains(variant)) {
+					results.add(Collections.<Violation>emptySet());
+					continue;
+				}
+				Collection<Violation> violations = compiledLogSkeleton.check(view.getTrace(traceIndex), activities,
+						ids, configuration);
+				if (violations.isEmpty() && fittingVariants.size() < MAXVARIANTS) {
+					fittingVariants.add(variant);
+				}
+				results.add(violations);
 			}
+			return results;
 		}
-		return new CheckerOutput(classifiedLog);
 	}
 }
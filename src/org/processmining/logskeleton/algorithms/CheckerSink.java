@@ -0,0 +1,24 @@
+package org.processmining.logskeleton.algorithms;
+
+import java.util.Collection;
+
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.models.Violation;
+
+/**
+ * Receives the results of the checker, one trace at a time. The traces are
+ * provided in the order of the log, and all from the same thread.
+ */
+public interface CheckerSink {
+
+	/**
+	 * Accepts the provided violations for the provided trace.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param violations
+	 *            The provided violations. Empty if the trace fits the log
+	 *            skeleton. Should not be modified.
+	 */
+	public void accept(XTrace trace, Collection<Violation> violations);
+}
@@ -1,13 +1,20 @@
 package org.processmining.logskeleton.algorithms;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.factory.XFactoryRegistry;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.processmining.framework.plugin.PluginContext;
@@ -20,6 +27,7 @@ import org.processmining.logskeleton.inputs.CheckerInput;
 import org.processmining.logskeleton.inputs.ClassifierInput;
 import org.processmining.logskeleton.models.LogSkeleton;
 import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
 import org.processmining.logskeleton.models.Violation;
 import org.processmining.logskeleton.outputs.CheckerOutput;
 import org.processmining.logskeleton.outputs.ClassifierOutput;
@@ -56,7 +64,8 @@ public class ClassifierAlgorithm {
 		 */
 		System.out.println("[ClassifierAlgorithm] Classify " + name + " ======");
 		XLog classifiedLog = classify(context, logSkeleton, preprocessedReferenceLog, preprocessedLog,
-				new PrefixClassifier(configuration.getClassifier()), name, configuration.getMaxFilterDepth());
+				new PrefixClassifier(configuration.getClassifier()), name, configuration.getMaxFilterDepth(),
+				configuration.getMinFilterSupport());
 		if (configuration.isCreateProvidedObjects()) {
 			context.getProvidedObjectManager().createProvidedObject("Classified Log " + name, classifiedLog, XLog.class,
 					context);
@@ -69,8 +78,7 @@ public class ClassifierAlgorithm {
 	}
 
 	private static XLog classify(PluginContext context, LogSkeleton logSkeleton, XLog referenceLog, XLog log,
-			XEventClassifier classifier, String name, int maxFilterDepth) {
-		BuilderAlgorithm builderAlgorithm = new BuilderAlgorithm();
+			XEventClassifier classifier, String name, int maxFilterDepth, int minFilterSupport) {
 		CheckerAlgorithm checkerAlgorithm = new CheckerAlgorithm();
 		CheckerInput checkerInput = new CheckerInput(logSkeleton, log);
 		CheckerConfiguration checkerConfiguration = new CheckerConfiguration(checkerInput);
@@ -80,289 +88,264 @@ public class ClassifierAlgorithm {
 		checkerConfiguration.setCheck(2, false);
 		CheckerOutput checkerOutput = checkerAlgorithm.apply(context, checkerInput, checkerConfiguration);
 		XLog classifiedTestLog = checkerOutput.getLog();
-		Collection<Violation> violations = checkerOutput.getViolations();
 		Set<String> positiveTestTraces = new HashSet<String>();
 		int threshold = 0;
 		for (XTrace trace : classifiedTestLog) {
 			positiveTestTraces.add(XConceptExtension.instance().extractName(trace));
 		}
-		for (Violation violation : violations) {
-			System.out.println(violation);
+		System.out.println("[ClassifierAlgorithm] " + checkerOutput.getViolationCounts());
+		positiveTestTraces.removeAll(getExcludedTestTraces(logSkeleton, referenceLog, log, classifier,
+				positiveTestTraces, threshold, maxFilterDepth, minFilterSupport));
+		XLog classifiedLog = XFactoryRegistry.instance().currentDefault().createLog();
+		XConceptExtension.instance().assignName(classifiedLog, name + " (classified)");
+		for (XTrace trace : classifiedTestLog) {
+			if (positiveTestTraces.contains(XConceptExtension.instance().extractName(trace))) {
+				classifiedLog.add(trace);
+			}
 		}
-		for (int i = 0; i < 3; i++) {
-			checkerConfiguration.setCheck(0, i == 0);
-			checkerConfiguration.setCheck(1, i == 1);
-			checkerConfiguration.setCheck(2, i == 2);
-			if (maxFilterDepth < 1) {
+		return classifiedLog;
+	}
+
+	/**
+	 * Searches filters on the activities of the provided log skeleton, and
+	 * returns the positive test traces that violate the log skeleton for the
+	 * reference traces selected by some filter. A filter selects the traces
+	 * that contain all its positive activities and none of its negative
+	 * activities. The filters are searched in parallel, and the search stops
+	 * as soon as at most the provided threshold of positive test traces is
+	 * left.
+	 * 
+	 * @param logSkeleton
+	 *            The log skeleton for the provided reference log.
+	 * @param referenceLog
+	 *            The provided reference log.
+	 * @param log
+	 *            The provided test log.
+	 * @param classifier
+	 *            The provided classifier.
+	 * @param positiveTestTraces
+	 *            The case ids of the positive test traces. These are not
+	 *            changed.
+	 * @param threshold
+	 *            The number of positive test traces at which to stop.
+	 * @param maxFilterDepth
+	 *            The maximal number of activities in a filter.
+	 * @param minFilterSupport
+	 *            The minimal number of reference traces a filter should
+	 *            select.
+	 * @return The case ids of the excluded test traces.
+	 */
+	public static Set<String> getExcludedTestTraces(LogSkeleton logSkeleton, XLog referenceLog, XLog log,
+			XEventClassifier classifier, Set<String> positiveTestTraces, int threshold, int maxFilterDepth,
+			int minFilterSupport) {
+		CheckerInput checkerInput = new CheckerInput(logSkeleton, log);
+		FilterSearch search = new FilterSearch(referenceLog, log, classifier);
+		/*
+		 * Only the first activity of every equivalence class is used in a
+		 * filter. As a result, two of these activities are equivalent only if
+		 * they are equal.
+		 */
+		List<String> activities = new ArrayList<String>();
+		for (String activity : logSkeleton.getActivities()) {
+			if (activity == LogSkeletonCount.STARTEVENT || activity == LogSkeletonCount.ENDEVENT) {
 				continue;
 			}
-			for (String activity : logSkeleton.getActivities()) {
-				if (positiveTestTraces.size() <= threshold) {
-					continue;
-				}
-				if (activity == LogSkeletonCount.STARTEVENT || activity == LogSkeletonCount.ENDEVENT) {
-					continue;
-				}
-				if (!logSkeleton.getEquivalenceClass(activity).iterator().next().equals(activity)) {
-					continue;
-				}
-				
+			if (!logSkeleton.getEquivalenceClass(activity).iterator().next().equals(activity)) {
+				continue;
+			}
+			activities.add(activity);
+		}
+		/*
+		 * Search the filters in parallel, starting with one task for every
+		 * first activity. The tasks only share the test traces excluded so
+		 * far, and stop as soon as at most threshold positive test traces are
+		 * left.
+		 */
+		CheckerConfiguration[] filterCheckerConfigurations = new CheckerConfiguration[3];
+		for (int i = 0; i < 3; i++) {
+			filterCheckerConfigurations[i] = new CheckerConfiguration(checkerInput);
+			filterCheckerConfigurations[i].setClassifier(classifier);
+			filterCheckerConfigurations[i].setCheck(0, i == 0);
+			filterCheckerConfigurations[i].setCheck(1, i == 1);
+			filterCheckerConfigurations[i].setCheck(2, i == 2);
+		}
+		TestTraces testTraces = new TestTraces(positiveTestTraces, threshold);
+		List<FilterTask> tasks = new ArrayList<FilterTask>();
+		if (maxFilterDepth > 0) {
+			for (int i = 0; i < activities.size(); i++) {
 				for (int f = 0; f < 2; f++) {
-					if (positiveTestTraces.size() <= threshold) {
-						continue;
-					}
 					Set<String> positiveFilters = new HashSet<String>();
 					Set<String> negativeFilters = new HashSet<String>();
 					if (f == 0) {
-						positiveFilters.add(activity);
+						positiveFilters.add(activities.get(i));
 					} else {
-						negativeFilters.add(activity);
-					}
-//					System.out.println(
-//							"[ClassifierAlgorithm] Positive = " + positiveFilters + ", Negative = " + negativeFilters);
-					XLog filteredReferenceLog = filter(referenceLog, classifier, positiveFilters, negativeFilters);
-					XLog filteredLog = filter(log, classifier, positiveFilters, negativeFilters);
-					if (filteredLog.isEmpty() || filteredReferenceLog.isEmpty() || filteredReferenceLog.size() < 16) {
-						continue;
-					}
-					//					System.out.println("[PDC2017TestPlugin] Remaining traces 1: " + filteredTrainingLog.size());
-					BuilderInput builderInput = new BuilderInput(filteredReferenceLog);
-					BuilderConfiguration builderConfiguration = new BuilderConfiguration(builderInput);
-					builderConfiguration.setClassifier(classifier);
-					LogSkeleton filteredLogSkeleton = builderAlgorithm
-							.apply(context, builderInput, builderConfiguration).getLogSkeleton();
-
-					checkerOutput = checkerAlgorithm.apply(context, new CheckerInput(filteredLogSkeleton, filteredLog), checkerConfiguration);
-					XLog classifiedLog = checkerOutput.getLog();
-					Collection<Violation> classifiedViolations = checkerOutput.getViolations();
-					for (XTrace subTrace : filteredLog) {
-						//						if (positiveTestTraces.size() <= threshold) {
-						//							continue;
-						//						}
-						if (!classifiedLog.contains(subTrace)) {
-							String caseId = XConceptExtension.instance().extractName(subTrace);
-							if (positiveTestTraces.remove(caseId)) {
-								System.out.println("[ClassifierAlgoritmm] Case "
-										+ XConceptExtension.instance().extractName(subTrace)
-										+ " excluded by positive filter " + positiveFilters + " and negative filter "
-										+ negativeFilters + ", support = " + filteredReferenceLog.size());
-								for (Violation violation : classifiedViolations) {
-									System.out.println(violation);
-								}
-							}
-						}
+						negativeFilters.add(activities.get(i));
 					}
+					tasks.add(new FilterTask(search, filterCheckerConfigurations, testTraces, activities,
+							maxFilterDepth, minFilterSupport, positiveFilters, negativeFilters, i));
 				}
 			}
-			if (maxFilterDepth < 2) {
-				continue;
-			}
-			for (String activity : logSkeleton.getActivities()) {
-				if (positiveTestTraces.size() <= threshold) {
-					continue;
-				}
-				if (activity == LogSkeletonCount.STARTEVENT || activity == LogSkeletonCount.ENDEVENT) {
-					continue;
-				}
-				if (!logSkeleton.getEquivalenceClass(activity).iterator().next().equals(activity)) {
-					continue;
-				}
-				for (String activity2 : logSkeleton.getActivities()) {
-					if (positiveTestTraces.size() <= threshold) {
-						continue;
-					}
-					if (activity2 == LogSkeletonCount.STARTEVENT || activity2 == LogSkeletonCount.ENDEVENT) {
-						continue;
-					}
-					if (!logSkeleton.getEquivalenceClass(activity2).iterator().next().equals(activity2)) {
-						continue;
-					}
-					if (logSkeleton.getEquivalenceClass(activity).contains(activity2)) {
-						continue;
-					}
-					for (int f = 0; f < 4; f++) {
-						if (positiveTestTraces.size() <= threshold) {
-							continue;
-						}
-						Set<String> positiveFilters = new HashSet<String>();
-						Set<String> negativeFilters = new HashSet<String>();
-						if (f == 0 || f == 1) {
-							positiveFilters.add(activity);
-						} else {
-							negativeFilters.add(activity);
-						}
-						if (f == 0 || f == 2) {
-							positiveFilters.add(activity2);
-						} else {
-							negativeFilters.add(activity2);
-						}
-//						System.out.println("[ClassifierAlgorithm] Positive = " + positiveFilters + ", Negative = "
-//								+ negativeFilters);
-						XLog filteredReferenceLog = filter(referenceLog, classifier, positiveFilters, negativeFilters);
-						XLog filteredLog = filter(log, classifier, positiveFilters, negativeFilters);
-						if (filteredLog.isEmpty() || filteredReferenceLog.isEmpty()
-								|| filteredReferenceLog.size() < 16) {
-							continue;
-						}
-						BuilderInput builderInput = new BuilderInput(filteredReferenceLog);
-						BuilderConfiguration builderConfiguration = new BuilderConfiguration(builderInput);
-						builderConfiguration.setClassifier(classifier);
-						LogSkeleton filteredLogSkeleton = builderAlgorithm
-								.apply(context, builderInput, builderConfiguration).getLogSkeleton();
+		}
+		ForkJoinTask.invokeAll(tasks);
+		return new HashSet<String>(testTraces.excludedTestTraces);
+	}
 
-						checkerOutput = checkerAlgorithm.apply(context, new CheckerInput(filteredLogSkeleton, filteredLog), checkerConfiguration);
-						XLog classifiedLog = checkerOutput.getLog();
-						Collection<Violation> classifiedViolations = checkerOutput.getViolations();
-						for (XTrace subTrace : filteredLog) {
-							if (!classifiedLog.contains(subTrace)) {
-								String caseId = XConceptExtension.instance().extractName(subTrace);
-								if (positiveTestTraces.remove(caseId)) {
-									System.out.println("[ClassifierAlgoritmm] Case "
-											+ XConceptExtension.instance().extractName(subTrace)
-											+ " excluded by positive filter " + positiveFilters
-											+ " and negative filter " + negativeFilters + ", support = "
-											+ filteredReferenceLog.size());
-									for (Violation violation : classifiedViolations) {
-										System.out.println(violation);
-									}
-								}
-							}
-						}
-					}
-				}
-			}
-			if (maxFilterDepth < 3) {
-				continue;
+	/*
+	 * The positive test traces shared by all filter tasks. The positive test
+	 * traces are not changed while the tasks run. Instead, the excluded test
+	 * traces are collected, and removed afterwards.
+	 */
+	private static class TestTraces {
+
+		private final Set<String> positiveTestTraces;
+		private final Set<String> excludedTestTraces;
+		private final AtomicInteger nofPositiveTestTraces;
+		private final int threshold;
+
+		public TestTraces(Set<String> positiveTestTraces, int threshold) {
+			this.positiveTestTraces = positiveTestTraces;
+			excludedTestTraces = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+			nofPositiveTestTraces = new AtomicInteger(positiveTestTraces.size());
+			this.threshold = threshold;
+		}
+
+		/*
+		 * Returns whether at most threshold positive test traces are left.
+		 */
+		public boolean isDone() {
+			return nofPositiveTestTraces.get() <= threshold;
+		}
+
+		/*
+		 * Excludes the test trace with the provided case id. Returns whether it
+		 * was a positive test trace that was not excluded before.
+		 */
+		public boolean exclude(String caseId) {
+			if (positiveTestTraces.contains(caseId) && excludedTestTraces.add(caseId)) {
+				nofPositiveTestTraces.decrementAndGet();
+				return true;
 			}
-			for (String activity : logSkeleton.getActivities()) {
-				if (positiveTestTraces.size() <= threshold) {
-					continue;
-				}
-				if (activity == LogSkeletonCount.STARTEVENT || activity == LogSkeletonCount.ENDEVENT) {
-					continue;
-				}
-				if (!logSkeleton.getEquivalenceClass(activity).iterator().next().equals(activity)) {
-					continue;
-				}
-				for (String activity2 : logSkeleton.getActivities()) {
-					if (positiveTestTraces.size() <= threshold) {
-						continue;
-					}
-					if (activity2 == LogSkeletonCount.STARTEVENT || activity2 == LogSkeletonCount.ENDEVENT) {
-						continue;
-					}
-					if (!logSkeleton.getEquivalenceClass(activity2).iterator().next().equals(activity2)) {
-						continue;
-					}
-					if (logSkeleton.getEquivalenceClass(activity).contains(activity2)) {
-						continue;
-					}
-					for (String activity3 : logSkeleton.getActivities()) {
-						if (positiveTestTraces.size() <= threshold) {
-							continue;
-						}
-						if (activity3 == LogSkeletonCount.STARTEVENT || activity3 == LogSkeletonCount.ENDEVENT) {
-							continue;
-						}
-						if (!logSkeleton.getEquivalenceClass(activity3).iterator().next().equals(activity3)) {
-							continue;
-						}
-						if (logSkeleton.getEquivalenceClass(activity).contains(activity3)) {
-							continue;
-						}
-						if (logSkeleton.getEquivalenceClass(activity2).contains(activity3)) {
-							continue;
-						}
-						for (int f = 0; f < 8; f++) {
-							if (positiveTestTraces.size() <= threshold) {
-								continue;
-							}
-							Set<String> positiveFilters = new HashSet<String>();
-							Set<String> negativeFilters = new HashSet<String>();
-							if (f == 0 || f == 1 || f == 2 || f == 3) {
-								positiveFilters.add(activity);
-							} else {
-								negativeFilters.add(activity);
-							}
-							if (f == 0 || f == 1 || f == 4 || f == 5) {
-								positiveFilters.add(activity2);
-							} else {
-								negativeFilters.add(activity2);
-							}
-							if (f == 0 || f == 2 || f == 4 || f == 6) {
-								positiveFilters.add(activity3);
-							} else {
-								negativeFilters.add(activity3);
-							}
-//							System.out.println("[ClassifierAlgorithm] Positive = " + positiveFilters
-//									+ ", Negative = " + negativeFilters);
-							XLog filteredReferenceLog = filter(referenceLog, classifier, positiveFilters,
-									negativeFilters);
-							XLog filteredLog = filter(log, classifier, positiveFilters, negativeFilters);
-							if (filteredLog.isEmpty() || filteredReferenceLog.isEmpty()
-									|| filteredReferenceLog.size() < 16) {
-								continue;
-							}
-							BuilderInput builderInput = new BuilderInput(filteredReferenceLog);
-							BuilderConfiguration builderConfiguration = new BuilderConfiguration(builderInput);
-							builderConfiguration.setClassifier(classifier);
-							LogSkeleton filteredLogSkeleton = builderAlgorithm
-									.apply(context, builderInput, builderConfiguration).getLogSkeleton();
+			return false;
+		}
+	}
 
-							checkerOutput = checkerAlgorithm.apply(context, new CheckerInput(filteredLogSkeleton, filteredLog), checkerConfiguration);
-							XLog classifiedLog = checkerOutput.getLog();
-							Collection<Violation> classifiedViolations = checkerOutput.getViolations();
-							for (XTrace subTrace : filteredLog) {
-								//							if (positiveTestTraces.size() <= threshold) {
-								//								continue;
-								//							}
-								if (!classifiedLog.contains(subTrace)) {
-									String caseId = XConceptExtension.instance().extractName(subTrace);
-									if (positiveTestTraces.remove(caseId)) {
-										System.out.println("[ClassifierAlgoritmm] Case "
-												+ XConceptExtension.instance().extractName(subTrace)
-												+ " excluded by positive filter " + positiveFilters
-												+ " and negative filter " + negativeFilters + ", support = "
-												+ filteredReferenceLog.size());
-										for (Violation violation : classifiedViolations) {
-											System.out.println(violation);
-										}
-									}
-								}
-							}
-						}
+	/*
+	 * Evaluates a filter, and searches its extensions. A filter is extended by
+	 * adding an activity, positively or negatively, that comes after all
+	 * activities of the filter. As a result, every filter is evaluated only
+	 * once.
+	 *
+	 * An extended filter selects a subset of the traces selected by the filter
+	 * itself. Therefore, if a filter selects too few reference traces or no
+	 * test traces, so do all its extensions, and they are not searched. The
+	 * number of selected traces follows from the trace indices of the search,
+	 * so no log skeleton is built for such a filter.
+	 */
+	private static class FilterTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
 
+		private FilterSearch search;
+		private CheckerConfiguration[] checkerConfigurations;
+		private TestTraces testTraces;
+		private List<String> activities;
+		private int maxFilterDepth;
+		private int minFilterSupport;
+		private Set<String> positiveFilters;
+		private Set<String> negativeFilters;
+		/*
+		 * The index of the last activity of the filter.
+		 */
+		private int lastIndex;
+
+		public FilterTask(FilterSearch search, CheckerConfiguration[] checkerConfigurations,
+				TestTraces testTraces, List<String> activities, int maxFilterDepth, int minFilterSupport,
+				Set<String> positiveFilters, Set<String> negativeFilters, int lastIndex) {
+			this.search = search;
+			this.checkerConfigurations = checkerConfigurations;
+			this.testTraces = testTraces;
+			this.activities = activities;
+			this.maxFilterDepth = maxFilterDepth;
+			this.minFilterSupport = minFilterSupport;
+			this.positiveFilters = positiveFilters;
+			this.negativeFilters = negativeFilters;
+			this.lastIndex = lastIndex;
+		}
+
+		protected void compute() {
+			if (testTraces.isDone()) {
+				return;
+			}
+			BitSet referenceTraces = search.getReferenceTraces(positiveFilters, negativeFilters);
+			BitSet traces = search.getTraces(positiveFilters, negativeFilters);
+			int support = referenceTraces.cardinality();
+			if (traces.isEmpty() || support == 0 || support < minFilterSupport) {
+				/*
+				 * Prune this filter and all its extensions.
+				 */
+				return;
+			}
+//			System.out.println(
+//					"[ClassifierAlgorithm] Positive = " + positiveFilters + ", Negative = " + negativeFilters);
+			for (CheckerConfiguration checkerConfiguration : checkerConfigurations) {
+				exclude(search, positiveFilters, negativeFilters, referenceTraces, traces, checkerConfiguration,
+						testTraces);
+			}
+			if (positiveFilters.size() + negativeFilters.size() >= maxFilterDepth) {
+				return;
+			}
+			List<FilterTask> tasks = new ArrayList<FilterTask>();
+			for (int i = lastIndex + 1; i < activities.size(); i++) {
+				for (int f = 0; f < 2; f++) {
+					Set<String> extendedPositiveFilters = new HashSet<String>(positiveFilters);
+					Set<String> extendedNegativeFilters = new HashSet<String>(negativeFilters);
+					if (f == 0) {
+						extendedPositiveFilters.add(activities.get(i));
+					} else {
+						extendedNegativeFilters.add(activities.get(i));
 					}
+					tasks.add(new FilterTask(search, checkerConfigurations, testTraces, activities, maxFilterDepth,
+							minFilterSupport, extendedPositiveFilters, extendedNegativeFilters, i));
 				}
 			}
+			invokeAll(tasks);
 		}
-		XLog classifiedLog = XFactoryRegistry.instance().currentDefault().createLog();
-		XConceptExtension.instance().assignName(classifiedLog, name + " (classified)");
-		for (XTrace trace : classifiedTestLog) {
-			if (positiveTestTraces.contains(XConceptExtension.instance().extractName(trace))) {
-				classifiedLog.add(trace);
-			}
-		}
-		return classifiedLog;
 	}
 
-	private static XLog filter(XLog log, XEventClassifier classifier, Set<String> positiveFilters,
-			Set<String> negativeFilters) {
-		XLog filteredLog = XFactoryRegistry.instance().currentDefault().createLog();
-		for (XTrace trace : log) {
-			boolean ok = true;
-			Set<String> toMatch = new HashSet<String>(positiveFilters);
-			for (XEvent event : trace) {
-				String activity = classifier.getClassIdentity(event);
-				if (negativeFilters.contains(activity)) {
-					ok = false;
+	/*
+	 * Checks the provided test traces, which satisfy the provided filters,
+	 * against the log skeleton for the provided reference traces, which
+	 * satisfy these filters as well. Excludes every test trace that violates
+	 * this log skeleton from the provided test traces.
+	 */
+	private static void exclude(FilterSearch search, final Set<String> positiveFilters,
+			final Set<String> negativeFilters, BitSet referenceTraces, BitSet traces,
+			CheckerConfiguration checkerConfiguration, final TestTraces testTraces) {
+		final int support = referenceTraces.cardinality();
+		LogSkeleton filteredLogSkeleton = search.getLogSkeleton(referenceTraces);
+		LogView filteredLog = search.getLog(traces);
+		new CheckerAlgorithm().apply(filteredLogSkeleton, filteredLog, checkerConfiguration, new CheckerSink() {
+
+			public void accept(XTrace subTrace, Collection<Violation> classifiedViolations) {
+				if (!classifiedViolations.isEmpty()) {
+					String caseId = XConceptExtension.instance().extractName(subTrace);
+					if (testTraces.exclude(caseId)) {
+						/*
+						 * Print the message as a whole, as other tasks may
+						 * print at the same time.
+						 */
+						StringBuilder message = new StringBuilder();
+						message.append("[ClassifierAlgoritmm] Case " + caseId + " excluded by positive filter "
+								+ positiveFilters + " and negative filter " + negativeFilters
+								+ ", support = " + support);
+						for (Violation violation : classifiedViolations) {
+							message.append(System.lineSeparator());
+							message.append(violation);
+						}
+						System.out.println(message);
+					}
 				}
-				toMatch.remove(activity);
-			}
-			if (ok && toMatch.isEmpty()) {
-				filteredLog.add(trace);
 			}
-		}
-		return filteredLog;
+		});
 	}
 }
@@ -4,6 +4,7 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,6 +39,8 @@ import org.processmining.logskeleton.inputs.BrowserInput;
 import org.processmining.logskeleton.inputs.BuilderInput;
 import org.processmining.logskeleton.inputs.FilterBrowserInput;
 import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.TraceIndex;
 import org.processmining.logskeleton.outputs.FilterBrowserOutput;
 import org.processmining.logskeleton.parameters.SplitterParameters;
 import org.processmining.logskeleton.plugins.BrowserPlugin;
@@ -55,6 +58,9 @@ public class FilterBrowserAlgorithm {
 
 	private PluginContext context;
 	private XLog log;
+	private TraceIndex index = null;
+	private XLog indexLog = null;
+	private XEventClassifier indexClassifier = null;
 	private JComponent rightPanel = null;
 	private JPanel mainPanel = null;
 //	private RoundedPanel splitterPanel = null;
@@ -130,7 +136,7 @@ public class FilterBrowserAlgorithm {
 	private void update(PluginContext context, FilterBrowserConfiguration configuration) {
 		SplitterAlgorithm splitterAlgorithm = new SplitterAlgorithm();
 		SplitterParameters splitterParameters = new SplitterParameters();
-		XLog filteredLog = log;
+		LogView filteredLog = new LogView(log);
 		int horizon = configuration.getHorizon();
 		XEventClassifier classifier = configuration.getClassifier();
 		Set<String> positiveFilters = configuration.getPositiveFilters();
@@ -139,7 +145,7 @@ public class FilterBrowserAlgorithm {
 		List<List<String>> splitters = configuration.getSplitters();
 
 		if (!positiveFilters.isEmpty() || !negativeFilters.isEmpty()) {
-			filteredLog = filter(filteredLog, configuration);
+			filteredLog = filter(log, configuration);
 		}
 		for (List<String> splitter : splitters) {
 			splitterParameters.setDuplicateActivity(splitter.get(0));
@@ -150,13 +156,20 @@ public class FilterBrowserAlgorithm {
 			filteredLog = splitterAlgorithm.apply(filteredLog, classifier, splitterParameters);
 		}
 		BuilderAlgorithm builderAlgorithm = new BuilderAlgorithm();
-		context.getProvidedObjectManager().createProvidedObject(XConceptExtension.instance().extractName(filteredLog) + " Split", filteredLog, XLog.class, context);
-		BuilderInput builderInput = new BuilderInput(filteredLog);
+		/*
+		 * The log skeleton is built from the view. The log provided to the
+		 * user is still created on every update, unless nothing was filtered
+		 * or split, in which case the log itself is provided.
+		 */
+		XLog splitLog = positiveFilters.isEmpty() && negativeFilters.isEmpty() && splitters.isEmpty() ? log
+				: filteredLog.createLog();
+		context.getProvidedObjectManager().createProvidedObject(XConceptExtension.instance().extractName(splitLog) + " Split", splitLog, XLog.class, context);
+		BuilderInput builderInput = new BuilderInput(splitLog);
 		BuilderConfiguration builderConfiguration = new BuilderConfiguration(builderInput);
 		builderConfiguration.setClassifier(classifier);
 		builderConfiguration.setHorizon(horizon);
 		builderConfiguration.setBoundaryActivities(boundaryActivities);
-		LogSkeleton logSkeleton = builderAlgorithm.apply(context, builderInput, builderConfiguration).getLogSkeleton();
+		LogSkeleton logSkeleton = builderAlgorithm.apply(filteredLog, builderConfiguration);
 		logSkeleton.setRequired(positiveFilters);
 		logSkeleton.setForbidden(negativeFilters);
 		logSkeleton.setBoundary(boundaryActivities);
@@ -175,32 +188,30 @@ public class FilterBrowserAlgorithm {
 		mainPanel.repaint();
 	}
 
-	private XLog filter(XLog log, FilterBrowserConfiguration configuration) {
+	private LogView filter(XLog log, FilterBrowserConfiguration configuration) {
 		XLog filteredLog = createLog(log);
 		XLog discardedLog = createLog(log);
-		XEventClassifier classifier = configuration.getClassifier();
-		Set<String> positiveFilters = configuration.getPositiveFilters();
-		Set<String> negativeFilters = configuration.getNegativeFilters();
-		for (XTrace trace : log) {
-			boolean ok = true;
-			Set<String> toMatch = new HashSet<String>(positiveFilters);
-			for (XEvent event : trace) {
-				String activity = classifier.getClassIdentity(event);
-				if (negativeFilters.contains(activity)) {
-					ok = false;
-					;
-				}
-				toMatch.remove(activity);
-			}
-			if (ok && toMatch.isEmpty()) {
-				filteredLog.add(trace);
+		if (index == null || log != indexLog || !configuration.getClassifier().equals(indexClassifier)) {
+			/*
+			 * Index the log only once, and reuse the index for every filter
+			 * until the log or the classifier changes.
+			 */
+			index = new TraceIndex(log, configuration.getClassifier());
+			indexLog = log;
+			indexClassifier = configuration.getClassifier();
+		}
+		BitSet filteredTraces = index.select(configuration.getPositiveFilters(),
+				configuration.getNegativeFilters());
+		for (int i = 0; i < log.size(); i++) {
+			if (filteredTraces.get(i)) {
+				filteredLog.add(log.get(i));
 			} else {
-				discardedLog.add(trace);
+				discardedLog.add(log.get(i));
 			}
 		}
 		context.getProvidedObjectManager().createProvidedObject(XConceptExtension.instance().extractName(filteredLog) + " In", filteredLog, XLog.class, context);
 		context.getProvidedObjectManager().createProvidedObject(XConceptExtension.instance().extractName(discardedLog) + " Out", discardedLog, XLog.class, context);
-		return filteredLog;
+		return new LogView(log).select(filteredTraces);
 	}
 
 	private XLog createLog(XLog log) {
@@ -0,0 +1,232 @@
+package org.processmining.logskeleton.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XLog;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.inputs.BuilderInput;
+import org.processmining.logskeleton.models.ActivityDictionary;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.PrePostCount;
+import org.processmining.logskeleton.models.TraceIndex;
+import org.processmining.logskeleton.models.TraceVariants;
+
+/**
+ * Finds the traces of a reference log and a test log that satisfy a positive
+ * and a negative filter on activities, and the log skeletons for the filtered
+ * reference logs.
+ *
+ * The traces of both logs are indexed only once (see TraceIndex), so
+ * filtering does not need to visit any event. The presets and postsets of the
+ * reference variants are counted only once as well. A log skeleton for a
+ * filtered reference log is built by merging these counts for the selected
+ * variants, and is kept for other filters that select the same reference
+ * traces.
+ *
+ * A search can be used by different threads.
+ */
+public class FilterSearch {
+
+	/*
+	 * At most this number of log skeletons is kept. The least recently used log
+	 * skeleton is dropped first.
+	 */
+	private final static int MAXLOGSKELETONS = 64;
+
+	private final LogView view;
+	private final BuilderConfiguration configuration;
+
+	/*
+	 * The dictionary used to encode the traces of the reference log.
+	 */
+	private final ActivityDictionary dictionary;
+
+	/*
+	 * The variants of the reference log, encoded as ids including the
+	 * artificial start and end activities. referenceVariantIndices[i] is the
+	 * index of the variant of the i-th trace in the reference log, and
+	 * referencePrePostCounts[v] holds the counts of the presets and postsets
+	 * of variant v, counted once.
+	 */
+	private final TraceVariants referenceVariants;
+	private final int[] referenceVariantIndices;
+	private final PrePostCount[] referencePrePostCounts;
+
+	/*
+	 * The indices for the reference log and the test log.
+	 */
+	private final TraceIndex referenceIndex;
+	private final TraceIndex index;
+
+	/*
+	 * The log skeletons built so far, keyed by the indices of their reference
+	 * traces.
+	 */
+	private final Map<BitSet, LogSkeleton> logSkeletons;
+
+	/**
+	 * Creates a search for the provided logs.
+	 *
+	 * @param referenceLog
+	 *            The provided reference log.
+	 * @param log
+	 *            The provided test log.
+	 * @param classifier
+	 *            The classifier to use for the events of both logs.
+	 */
+	public FilterSearch(XLog referenceLog, XLog log, XEventClassifier classifier) {
+		view = new LogView(log);
+		configuration = new BuilderConfiguration(new BuilderInput(referenceLog));
+		configuration.setClassifier(classifier);
+		dictionary = new ActivityDictionary();
+		int[][] referenceTraces = new int[referenceLog.size()][];
+		referenceVariants = new TraceVariants();
+		referenceVariantIndices = new int[referenceLog.size()];
+		for (int i = 0; i < referenceLog.size(); i++) {
+			referenceTraces[i] = dictionary.add(referenceLog.get(i), classifier);
+			referenceVariantIndices[i] = referenceVariants.add(referenceTraces[i]);
+		}
+		int[][] variants = new int[referenceVariants.size()][];
+		for (int variant = 0; variant < variants.length; variant++) {
+			variants[variant] = referenceVariants.get(variant);
+		}
+		referencePrePostCounts = new BuilderAlgorithm().countPrePost(dictionary, variants, configuration);
+		referenceIndex = new TraceIndex(dictionary, referenceTraces);
+		index = new TraceIndex(log, classifier);
+		logSkeletons = new LinkedHashMap<BitSet, LogSkeleton>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<BitSet, LogSkeleton> eldest) {
+				return size() > MAXLOGSKELETONS;
+			}
+		};
+	}
+
+	/**
+	 * Returns the indices of the reference traces that contain all activities
+	 * of the provided positive filter and no activity of the provided negative
+	 * filter.
+	 *
+	 * @param positiveFilters
+	 *            The provided positive filter.
+	 * @param negativeFilters
+	 *            The provided negative filter.
+	 * @return The indices of the reference traces.
+	 */
+	public BitSet getReferenceTraces(Set<String> positiveFilters, Set<String> negativeFilters) {
+		return referenceIndex.select(positiveFilters, negativeFilters);
+	}
+
+	/**
+	 * Returns the indices of the test traces that contain all activities of the
+	 * provided positive filter and no activity of the provided negative filter.
+	 *
+	 * @param positiveFilters
+	 *            The provided positive filter.
+	 * @param negativeFilters
+	 *            The provided negative filter.
+	 * @return The indices of the test traces.
+	 */
+	public BitSet getTraces(Set<String> positiveFilters, Set<String> negativeFilters) {
+		return index.select(positiveFilters, negativeFilters);
+	}
+
+	/**
+	 * Returns the log skeleton for the reference traces with the provided
+	 * indices. Builds the log skeleton only if not built before. The log
+	 * skeleton is compiled (see LogSkeleton.compile()), so it can be checked
+	 * by different threads.
+	 *
+	 * @param referenceTraceIndices
+	 *            The provided indices.
+	 * @return The log skeleton.
+	 */
+	public LogSkeleton getLogSkeleton(BitSet referenceTraceIndices) {
+		LogSkeleton logSkeleton;
+		synchronized (logSkeletons) {
+			logSkeleton = logSkeletons.get(referenceTraceIndices);
+		}
+		if (logSkeleton != null) {
+			return logSkeleton;
+		}
+		/*
+		 * Build the log skeleton without holding the lock, so other threads can
+		 * build other log skeletons meanwhile. If another thread built the
+		 * same log skeleton meanwhile, use that one.
+		 */
+		logSkeleton = build(referenceTraceIndices);
+		logSkeleton.compile();
+		synchronized (logSkeletons) {
+			LogSkeleton otherLogSkeleton = logSkeletons.get(referenceTraceIndices);
+			if (otherLogSkeleton != null) {
+				return otherLogSkeleton;
+			}
+			logSkeletons.put((BitSet) referenceTraceIndices.clone(), logSkeleton);
+		}
+		return logSkeleton;
+	}
+
+	/*
+	 * Builds the log skeleton for the reference traces with the provided
+	 * indices, from their variants. The dictionary of the log skeleton
+	 * contains only the activities of these traces, so the variants are
+	 * encoded again using a dictionary of their own. The counts of the
+	 * presets and postsets of the variants are merged into counts for this
+	 * dictionary.
+	 */
+	private LogSkeleton build(BitSet referenceTraceIndices) {
+		/*
+		 * Count the selected traces per variant, and collect the variants in
+		 * order of first occurrence.
+		 */
+		int[] variantWeights = new int[referenceVariants.size()];
+		List<Integer> selectedVariants = new ArrayList<Integer>();
+		for (int traceIndex = referenceTraceIndices.nextSetBit(0); traceIndex >= 0; traceIndex = referenceTraceIndices
+				.nextSetBit(traceIndex + 1)) {
+			int variant = referenceVariantIndices[traceIndex];
+			if (variantWeights[variant]++ == 0) {
+				selectedVariants.add(variant);
+			}
+		}
+		ActivityDictionary filteredDictionary = new ActivityDictionary();
+		int[] filteredIds = new int[dictionary.size()];
+		Arrays.fill(filteredIds, -1);
+		int[][] variants = new int[selectedVariants.size()][];
+		int[] weights = new int[selectedVariants.size()];
+		PrePostCount prePostCount = new PrePostCount();
+		for (int i = 0; i < variants.length; i++) {
+			int variant = selectedVariants.get(i);
+			int[] trace = referenceVariants.get(variant);
+			variants[i] = new int[trace.length];
+			for (int j = 0; j < trace.length; j++) {
+				if (filteredIds[trace[j]] < 0) {
+					filteredIds[trace[j]] = filteredDictionary.add(dictionary.getActivity(trace[j]));
+				}
+				variants[i][j] = filteredIds[trace[j]];
+			}
+			weights[i] = variantWeights[variant];
+			prePostCount.add(referencePrePostCounts[variant], filteredIds, weights[i]);
+		}
+		return new BuilderAlgorithm().apply(filteredDictionary, variants, weights, prePostCount, configuration);
+	}
+
+	/**
+	 * Returns a view on the test traces with the provided indices.
+	 *
+	 * @param traceIndices
+	 *            The provided indices.
+	 * @return The view.
+	 */
+	public LogView getLog(BitSet traceIndices) {
+		return view.select(traceIndices);
+	}
+}
@@ -1,6 +1,7 @@
 package org.processmining.logskeleton.algorithms;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -24,6 +25,12 @@ public class GraphBuilderAlgorithm {
 	 */
 	private Set<String> activities;
 
+	/*
+	 * Ids of the activities in the graph (see LogSkeleton.getIds), which are
+	 * looked up once the activities in the graph are known.
+	 */
+	private BitSet selectedIds;
+
 	/*
 	 * The graph.
 	 */
@@ -55,6 +62,7 @@ public class GraphBuilderAlgorithm {
 		 * Add related but unselected activities, if needed.
 		 */
 		addNeighbors(logSkeleton, configuration);
+		selectedIds = logSkeleton.getIds(activities);
 
 		/*
 		 * Add a node for every activity.
@@ -81,13 +89,14 @@ public class GraphBuilderAlgorithm {
 			 * Extend the selected activities with activities that are related (through some
 			 * selected non-redundant relation) to a selected activity.
 			 */
+			BitSet allIds = logSkeleton.getIds(logSkeleton.getActivities());
 			for (String tailActivity : logSkeleton.getActivities()) {
 				for (String headActivity : logSkeleton.getActivities()) {
 					if ((configuration.getActivities().contains(tailActivity)
 							|| configuration.getActivities().contains(headActivity))
 							&& (!activities.contains(tailActivity) || !activities.contains(headActivity))) {
 						if (configuration.getRelations().contains(LogSkeletonRelation.RESPONSE)) {
-							if (logSkeleton.hasNonRedundantResponse(tailActivity, headActivity, logSkeleton.getActivities())) {
+							if (logSkeleton.hasNonRedundantResponse(tailActivity, headActivity, allIds)) {
 								/*
 								 * fromActivity and toActivity are related through the selected non-redundant
 								 * Response relation, and one of them is selected. Include the other as well.
@@ -98,7 +107,7 @@ public class GraphBuilderAlgorithm {
 							}
 						}
 						if (configuration.getRelations().contains(LogSkeletonRelation.PRECEDENCE)) {
-							if (logSkeleton.hasNonRedundantPrecedence(tailActivity, headActivity, logSkeleton.getActivities())) {
+							if (logSkeleton.hasNonRedundantPrecedence(tailActivity, headActivity, allIds)) {
 								/*
 								 * fromActivity and toActivity are related through the selected non-redundant
 								 * Precedence relation, and one of them is selected. Include the other as well.
@@ -109,7 +118,7 @@ public class GraphBuilderAlgorithm {
 							}
 						}
 						if (configuration.getRelations().contains(LogSkeletonRelation.NOTRESPONSE)) {
-							if (logSkeleton.hasNonRedundantNotResponse(tailActivity, headActivity, logSkeleton.getActivities())) {
+							if (logSkeleton.hasNonRedundantNotResponse(tailActivity, headActivity, allIds)) {
 								/*
 								 * fromActivity and toActivity are related through the selected non-redundant
 								 * Not Response relation, and one of them is selected. Include the other as
@@ -121,7 +130,7 @@ public class GraphBuilderAlgorithm {
 							}
 						}
 						if (configuration.getRelations().contains(LogSkeletonRelation.NOTPRECEDENCE)) {
-							if (logSkeleton.hasNonRedundantNotPrecedence(tailActivity, headActivity, logSkeleton.getActivities())) {
+							if (logSkeleton.hasNonRedundantNotPrecedence(tailActivity, headActivity, allIds)) {
 								/*
 								 * fromActivity and toActivity are related through the selected non-redundant
 								 * Not Precedence relation, and one of them is selected. Include the other as
@@ -133,7 +142,7 @@ public class GraphBuilderAlgorithm {
 							}
 						}
 						if (configuration.getRelations().contains(LogSkeletonRelation.NOTCOEXISTENCE)) {
-							if (logSkeleton.hasNonRedundantNotCoExistence(tailActivity, headActivity, logSkeleton.getActivities(), configuration)) {
+							if (logSkeleton.hasNonRedundantNotCoExistence(tailActivity, headActivity, allIds, configuration)) {
 								/*
 								 * fromActivity and toActivity are related through the selected non-redundant
 								 * Not Co-Existence relation, and one of them is selected. Include the other as
@@ -164,7 +173,7 @@ public class GraphBuilderAlgorithm {
 			 * Get the representative for this activity: The first activity in the
 			 * equivalence class (which is sorted using the lexicographical order)
 			 */
-			String representative = logSkeleton.getEquivalenceClass(activity, activities).iterator().next();
+			String representative = logSkeleton.getEquivalenceClass(activity, selectedIds).iterator().next();
 			node.setLabelRepresentative(representative);
 
 			/*
@@ -204,7 +213,7 @@ public class GraphBuilderAlgorithm {
 					edge.setHeadNode(headNode);
 					if (configuration.getRelations().contains(LogSkeletonRelation.RESPONSE)) {
 						if (edge.getTailType() == null
-								&& logSkeleton.hasNonRedundantResponse(tailActivity, headActivity, activities)) {
+								&& logSkeleton.hasNonRedundantResponse(tailActivity, headActivity, selectedIds)) {
 							/*
 							 * Add Response on tail.
 							 */
@@ -218,7 +227,7 @@ public class GraphBuilderAlgorithm {
 					}
 					if (configuration.getRelations().contains(LogSkeletonRelation.PRECEDENCE)) {
 						if (edge.getHeadType() == null
-								&& logSkeleton.hasNonRedundantPrecedence(tailActivity, headActivity, activities)) {
+								&& logSkeleton.hasNonRedundantPrecedence(tailActivity, headActivity, selectedIds)) {
 							/*
 							 * Add Precedence on head.
 							 */
@@ -233,7 +242,7 @@ public class GraphBuilderAlgorithm {
 					if (configuration.getRelations().contains(LogSkeletonRelation.NOTCOEXISTENCE)) {
 						if (!tailActivity.equals(headActivity)) {
 							if (edge.getHeadType() == null && tailActivity.compareTo(headActivity) >= 0 && logSkeleton
-									.hasNonRedundantNotCoExistence(headActivity, tailActivity, activities, configuration)) {
+									.hasNonRedundantNotCoExistence(headActivity, tailActivity, selectedIds, configuration)) {
 								/*
 								 * Add Not Co-Existence on head.
 								 */
@@ -245,7 +254,7 @@ public class GraphBuilderAlgorithm {
 								}
 							}
 							if (edge.getTailType() == null && tailActivity.compareTo(headActivity) >= 0 && logSkeleton
-									.hasNonRedundantNotCoExistence(tailActivity, headActivity, activities, configuration)) {
+									.hasNonRedundantNotCoExistence(tailActivity, headActivity, selectedIds, configuration)) {
 								/*
 								 * Add Not Co-Existence on tail.
 								 */
@@ -260,7 +269,7 @@ public class GraphBuilderAlgorithm {
 					}
 					if (configuration.getRelations().contains(LogSkeletonRelation.NOTRESPONSE)) {
 						if (!tailActivity.equals(headActivity) && edge.getHeadType() == null
-								&& (logSkeleton.hasNonRedundantNotResponse(tailActivity, headActivity, activities)
+								&& (logSkeleton.hasNonRedundantNotResponse(tailActivity, headActivity, selectedIds)
 										|| (edge.getTailType() == LogSkeletonEdgeType.ALWAYS
 												&& logSkeleton.hasNotResponse(tailActivity, headActivity)))) {
 							/*
@@ -276,7 +285,7 @@ public class GraphBuilderAlgorithm {
 					}
 					if (configuration.getRelations().contains(LogSkeletonRelation.NOTPRECEDENCE)) {
 						if (!tailActivity.equals(headActivity) && edge.getTailType() == null
-								&& (logSkeleton.hasNonRedundantNotPrecedence(tailActivity, headActivity, activities)
+								&& (logSkeleton.hasNonRedundantNotPrecedence(tailActivity, headActivity, selectedIds)
 										|| (edge.getHeadType() == LogSkeletonEdgeType.ALWAYS
 												&& logSkeleton.hasNotPrecedence(tailActivity, headActivity)))) {
 							/*
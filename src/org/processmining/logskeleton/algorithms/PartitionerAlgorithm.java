@@ -1,6 +1,7 @@
 package org.processmining.logskeleton.algorithms;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -22,6 +23,7 @@ import org.processmining.log.models.impl.EventLogArrayFactory;
 import org.processmining.logskeleton.classifiers.PrefixClassifier;
 import org.processmining.logskeleton.configurations.PartitionerConfiguration;
 import org.processmining.logskeleton.inputs.PartitionerInput;
+import org.processmining.logskeleton.models.TraceIndex;
 import org.processmining.logskeleton.outputs.PartitionerOutput;
 
 public class PartitionerAlgorithm {
@@ -46,6 +48,13 @@ public class PartitionerAlgorithm {
 		System.out.println(line);
 		EventLogArray logs = EventLogArrayFactory.createEventLogArray();
 		logs.addLog(log);
+		/*
+		 * Every partition is selected from the index of the entire log. The
+		 * remaining traces are the traces of the last log.
+		 */
+		TraceIndex index = new TraceIndex(log, classifier);
+		BitSet remainingTraces = new BitSet(log.size());
+		remainingTraces.set(0, log.size());
 		Set<String> positiveFilters = new HashSet<String>();
 		while (!log.isEmpty()) {
 			Map<Set<String>, Double> scores = new HashMap<Set<String>, Double>();
@@ -79,7 +88,8 @@ public class PartitionerAlgorithm {
 					}
 				}
 			}
-			partition(logs, positiveFilters, negativeFilters, classifier);
+			remainingTraces = partition(logs, input.getLog(), index, remainingTraces, positiveFilters,
+					negativeFilters);
 			log = logs.getLog(logs.getSize() - 2);
 			XConceptExtension.instance().assignName(log,
 					name + " @" + (logs.getSize() - 1) + " |" + log.size() + "| " + bestScore);
@@ -105,32 +115,33 @@ public class PartitionerAlgorithm {
 		return new PartitionerOutput(logs);
 	}
 
-	private void partition(EventLogArray logs, Set<String> positiveFilters, Set<String> negativeFilters,
-			XEventClassifier classifier) {
+	/*
+	 * Splits the last log into the traces that satisfy the provided filters
+	 * and the traces that do not. The last log contains the remaining traces
+	 * of the provided entire log. Returns the traces that do not satisfy the
+	 * provided filters.
+	 */
+	private BitSet partition(EventLogArray logs, XLog entireLog, TraceIndex index, BitSet remainingTraces,
+			Set<String> positiveFilters, Set<String> negativeFilters) {
 		XLog log = logs.getLog(logs.getSize() - 1);
 		XLog filteredLog = XFactoryRegistry.instance().currentDefault()
 				.createLog((XAttributeMap) log.getAttributes().clone());
 		XLog discardedLog = XFactoryRegistry.instance().currentDefault().createLog(log.getAttributes());
-		for (XTrace trace : log) {
-			boolean ok = true;
-			Set<String> toMatch = new HashSet<String>(positiveFilters);
-			for (XEvent event : trace) {
-				String activity = classifier.getClassIdentity(event);
-				if (negativeFilters.contains(activity)) {
-					ok = false;
-					;
-				}
-				toMatch.remove(activity);
-			}
-			if (ok && toMatch.isEmpty()) {
-				filteredLog.add(trace);
+		BitSet filteredTraces = index.select(positiveFilters, negativeFilters);
+		filteredTraces.and(remainingTraces);
+		BitSet discardedTraces = (BitSet) remainingTraces.clone();
+		discardedTraces.andNot(filteredTraces);
+		for (int i = remainingTraces.nextSetBit(0); i >= 0; i = remainingTraces.nextSetBit(i + 1)) {
+			if (filteredTraces.get(i)) {
+				filteredLog.add(entireLog.get(i));
 			} else {
-				discardedLog.add(trace);
+				discardedLog.add(entireLog.get(i));
 			}
 		}
 		logs.removeLog(logs.getSize() - 1);
 
 		logs.addLog(filteredLog);
 		logs.addLog(discardedLog);
+		return discardedTraces;
 	}
 }
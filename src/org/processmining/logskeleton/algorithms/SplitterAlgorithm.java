@@ -3,46 +3,37 @@ package org.processmining.logskeleton.algorithms;
 import org.deckfour.xes.classification.XEventClassifier;
 import org.deckfour.xes.extension.std.XConceptExtension;
 import org.deckfour.xes.factory.XFactoryRegistry;
-import org.deckfour.xes.model.XAttributeLiteral;
 import org.deckfour.xes.model.XAttributeMap;
 import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XLog;
 import org.deckfour.xes.model.XTrace;
 import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
 import org.processmining.logskeleton.classifiers.PrefixClassifier;
+import org.processmining.logskeleton.models.LogView;
 import org.processmining.logskeleton.parameters.SplitterParameters;
 
 public class SplitterAlgorithm {
 
 	public XLog apply(XLog log, XEventClassifier classifier, SplitterParameters parameters) {
-		XLog filteredLog = XFactoryRegistry.instance().currentDefault()
-				.createLog((XAttributeMap) log.getAttributes().clone());
-		for (XTrace trace : log) {
-			XTrace filteredTrace = XFactoryRegistry.instance().currentDefault().createTrace(trace.getAttributes());
-			int milestone = 0;
-			for (XEvent event : trace) {
-				String activity = classifier.getClassIdentity(event);
-				if (activity.equals(parameters.getDuplicateActivity())) {
-					XEvent filteredEvent = (XEvent) event.clone(); //XFactoryRegistry.instance().currentDefault().createEvent();
-					if (event.getAttributes().containsKey(PrefixClassifier.SUFFIX)) {
-						((XAttributeLiteral) filteredEvent.getAttributes().get(PrefixClassifier.SUFFIX)).setValue(event.getAttributes().get(PrefixClassifier.SUFFIX)+ "." + milestone);
-					} else {
-						filteredEvent.getAttributes().put(PrefixClassifier.SUFFIX, new XAttributeLiteralImpl(PrefixClassifier.SUFFIX, "." + milestone));
-					}
-					filteredTrace.add(filteredEvent);
-				} else {
-					filteredTrace.add(event);
-				}
-				if (parameters.getMilestoneActivities().contains(activity)) {
-					if (milestone == 0) {
-						milestone++;
-					}
-				}
-			}
-			filteredLog.add(filteredTrace);
-		}
-		//		System.out.println("[SplitterAlgorithm] Split log contains " + filteredLog.size() + " traces");
-		return filteredLog;
+		return apply(new LogView(log), classifier, parameters).createLog();
+	}
+
+	/**
+	 * Splits the duplicate activity of the provided parameters in the provided
+	 * view. No event is copied, the split activities are only relabelled in
+	 * the returned view (see LogView.split).
+	 * 
+	 * @param view
+	 *            The provided view.
+	 * @param classifier
+	 *            The classifier to use for the events.
+	 * @param parameters
+	 *            The provided parameters.
+	 * @return The view with the duplicate activity split.
+	 */
+	public LogView apply(LogView view, XEventClassifier classifier, SplitterParameters parameters) {
+		//		System.out.println("[SplitterAlgorithm] Split log contains " + view.size() + " traces");
+		return view.split(classifier, parameters.getDuplicateActivity(), parameters.getMilestoneActivities());
 	}
 
 	public XLog apply7B(XLog log, XEventClassifier classifier) {
@@ -0,0 +1,185 @@
+package org.processmining.logskeleton.algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.models.Violation;
+import org.processmining.logskeleton.models.violations.ViolationNotCoExistence;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+/**
+ * A checker sink that aggregates the violations per relation, without keeping
+ * the traces or the violations.
+ *
+ * For the (not) precedence, (not) response, and not co-existence relations,
+ * violations are counted per activity pair: the activity that is checked, and
+ * the activity that is missing or present. For the other relations, violations
+ * are counted per set of violating activities, in alphabetical order.
+ */
+public class ViolationCounts implements CheckerSink {
+
+	/*
+	 * If counts.get(ViolationPrecedence.class).get([a, b]) == 3, then b was
+	 * missing 3 times before a.
+	 */
+	private Map<Class<? extends Violation>, Map<List<String>, Integer>> counts;
+
+	/*
+	 * If totals.get(ViolationPrecedence.class) == 5, then 5 precedence
+	 * violations were found.
+	 */
+	private Map<Class<? extends Violation>, Integer> totals;
+
+	private int nofTraces;
+	private int nofViolatingTraces;
+
+	public ViolationCounts() {
+		counts = new HashMap<Class<? extends Violation>, Map<List<String>, Integer>>();
+		totals = new HashMap<Class<? extends Violation>, Integer>();
+		nofTraces = 0;
+		nofViolatingTraces = 0;
+	}
+
+	public void accept(XTrace trace, Collection<Violation> violations) {
+		nofTraces++;
+		if (!violations.isEmpty()) {
+			nofViolatingTraces++;
+		}
+		for (Violation violation : violations) {
+			add(violation);
+		}
+	}
+
+	/**
+	 * Adds the provided violation to the counts.
+	 *
+	 * @param violation
+	 *            The provided violation.
+	 */
+	public void add(Violation violation) {
+		Class<? extends Violation> type = violation.getClass();
+		Integer total = totals.get(type);
+		totals.put(type, total == null ? 1 : total + 1);
+		if (!counts.containsKey(type)) {
+			counts.put(type, new HashMap<List<String>, Integer>());
+		}
+		Map<List<String>, Integer> typeCounts = counts.get(type);
+		String activity = getActivity(violation);
+		if (activity != null) {
+			for (String violatingActivity : violation.getViolatingActivities()) {
+				inc(typeCounts, Arrays.asList(activity, violatingActivity));
+			}
+		} else {
+			List<String> violatingActivities = new ArrayList<String>(violation.getViolatingActivities());
+			Collections.sort(violatingActivities);
+			inc(typeCounts, violatingActivities);
+		}
+	}
+
+	private void inc(Map<List<String>, Integer> typeCounts, List<String> key) {
+		Integer count = typeCounts.get(key);
+		typeCounts.put(key, count == null ? 1 : count + 1);
+	}
+
+	/*
+	 * Returns the activity that was checked by the provided violation, or null
+	 * if none.
+	 */
+	private String getActivity(Violation violation) {
+		if (violation instanceof ViolationPrecedence) {
+			return ((ViolationPrecedence) violation).getActivity();
+		}
+		if (violation instanceof ViolationResponse) {
+			return ((ViolationResponse) violation).getActivity();
+		}
+		if (violation instanceof ViolationNotPrecedence) {
+			return ((ViolationNotPrecedence) violation).getActivity();
+		}
+		if (violation instanceof ViolationNotResponse) {
+			return ((ViolationNotResponse) violation).getActivity();
+		}
+		if (violation instanceof ViolationNotCoExistence) {
+			return ((ViolationNotCoExistence) violation).getActivity();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the kinds of violations that were found.
+	 *
+	 * @return The kinds of violations that were found.
+	 */
+	public Set<Class<? extends Violation>> getTypes() {
+		return Collections.unmodifiableSet(totals.keySet());
+	}
+
+	/**
+	 * Returns the number of violations of the provided kind.
+	 *
+	 * @param type
+	 *            The provided kind of violations, like ViolationPrecedence.class.
+	 * @return The number of violations of the provided kind.
+	 */
+	public int getCount(Class<? extends Violation> type) {
+		Integer total = totals.get(type);
+		return total == null ? 0 : total;
+	}
+
+	/**
+	 * Returns the counts for the violations of the provided kind, per activity
+	 * pair or per set of violating activities.
+	 *
+	 * @param type
+	 *            The provided kind of violations, like ViolationPrecedence.class.
+	 * @return The counts for the violations of the provided kind.
+	 */
+	public Map<List<String>, Integer> getCounts(Class<? extends Violation> type) {
+		Map<List<String>, Integer> typeCounts = counts.get(type);
+		return typeCounts == null ? Collections.<List<String>, Integer>emptyMap()
+				: Collections.unmodifiableMap(typeCounts);
+	}
+
+	/**
+	 * Returns the number of times the second activity violated a relation of
+	 * the provided kind for the first activity.
+	 *
+	 * @param type
+	 *            The provided kind of violations, like ViolationPrecedence.class.
+	 * @param activity
+	 *            The first activity, which was checked.
+	 * @param violatingActivity
+	 *            The second activity, which was missing or present.
+	 * @return The number of times.
+	 */
+	public int getCount(Class<? extends Violation> type, String activity, String violatingActivity) {
+		Integer count = getCounts(type).get(Arrays.asList(activity, violatingActivity));
+		return count == null ? 0 : count;
+	}
+
+	public int getNofTraces() {
+		return nofTraces;
+	}
+
+	public int getNofViolatingTraces() {
+		return nofViolatingTraces;
+	}
+
+	public String toString() {
+		StringBuffer buf = new StringBuffer();
+		buf.append(nofViolatingTraces + " of " + nofTraces + " traces violate the log skeleton.");
+		for (Class<? extends Violation> type : totals.keySet()) {
+			buf.append("\n" + type.getSimpleName() + ": " + totals.get(type) + " " + counts.get(type));
+		}
+		return buf.toString();
+	}
+}
@@ -30,10 +30,14 @@ public class BuilderConfiguration implements ClassifierParameter {
 	
 	public BuilderConfiguration(CheckerConfiguration configuration) {
 		setClassifier(configuration.getClassifier());
+		horizon = 0;
+		boundaryActivities = new HashSet<String>();
 	}
 	
 	public BuilderConfiguration(ClassifierConfiguration configuration) {
 		setClassifier(configuration.getClassifier());
+		horizon = 0;
+		boundaryActivities = new HashSet<String>();
 	}
 	
 	public XEventClassifier getClassifier() {
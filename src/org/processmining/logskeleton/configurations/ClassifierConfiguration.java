@@ -15,6 +15,7 @@ public class ClassifierConfiguration implements ClassifierParameter {
 	private PreprocessorAlgorithm preprocessor;
 	private boolean createProvidedObjects;
 	private int maxFilterDepth;
+	private int minFilterSupport;
 
 	public ClassifierConfiguration(ClassifierInput input) {
 		XLog log = input.getReferenceLog();
@@ -26,6 +27,7 @@ public class ClassifierConfiguration implements ClassifierParameter {
 		preprocessor = new PreprocessorAlgorithm();
 		createProvidedObjects = true;
 		maxFilterDepth = 2;
+		minFilterSupport = 16;
 	}
 	
 	public XEventClassifier getClassifier() {
@@ -59,4 +61,12 @@ public class ClassifierConfiguration implements ClassifierParameter {
 	public void setMaxFilterDepth(int maxFilterDepth) {
 		this.maxFilterDepth = maxFilterDepth;
 	}
+
+	public int getMinFilterSupport() {
+		return minFilterSupport;
+	}
+
+	public void setMinFilterSupport(int minFilterSupport) {
+		this.minFilterSupport = minFilterSupport;
+	}
 }
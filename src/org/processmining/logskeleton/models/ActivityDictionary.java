@@ -0,0 +1,157 @@
+package org.processmining.logskeleton.models;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XTrace;
+
+public class ActivityDictionary {
+
+	/*
+	 * Maps every activity to its id. The ids are dense: If there are N
+	 * activities, then they have ids 0 up to N-1.
+	 */
+	private Map<String, Integer> ids;
+
+	/*
+	 * Maps every id back to its activity. If activities[i] == a, then
+	 * ids.get(a) == i. Only the first size elements are used. A new array is
+	 * published after every change, which allows for unsynchronized lookups.
+	 */
+	private volatile String[] activities;
+	private int size;
+
+	public ActivityDictionary() {
+		ids = new ConcurrentHashMap<String, Integer>();
+		activities = new String[16];
+		size = 0;
+	}
+
+	public ActivityDictionary(Collection<String> activities) {
+		this();
+		for (String activity : activities) {
+			add(activity);
+		}
+	}
+
+	/**
+	 * Returns the id for the provided activity. If the activity is not yet
+	 * known, it will be added first. May be called concurrently, which allows
+	 * traces to be encoded in parallel.
+	 *
+	 * @param activity
+	 *            The provided activity.
+	 * @return The id for the provided activity.
+	 */
+	public int add(String activity) {
+		Integer id = ids.get(activity);
+		if (id == null) {
+			synchronized (this) {
+				id = ids.get(activity);
+				if (id == null) {
+					String[] newActivities = size < activities.length ? activities
+							: Arrays.copyOf(activities, 2 * activities.length);
+					id = size++;
+					newActivities[id] = activity;
+					activities = newActivities;
+					ids.put(activity, id);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the ids for the provided trace, using the provided classifier.
+	 * The ids for the artificial start and end activities are included as first
+	 * and last id. Activities that are not yet known will be added first.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param classifier
+	 *            The provided classifier.
+	 * @return The ids for the provided trace.
+	 */
+	public int[] add(XTrace trace, XEventClassifier classifier) {
+		int[] trace2ids = new int[trace.size() + 2];
+		int i = 0;
+		trace2ids[i++] = add(LogSkeletonCount.STARTEVENT);
+		for (int j = 0; j < trace.size(); j++) {
+			trace2ids[i++] = add(classifier.getClassIdentity(trace.get(j)));
+		}
+		trace2ids[i] = add(LogSkeletonCount.ENDEVENT);
+		return trace2ids;
+	}
+
+	/**
+	 * Returns the id for the provided activity.
+	 *
+	 * @param activity
+	 *            The provided activity.
+	 * @return The id for the provided activity, -1 if the activity is not
+	 *         known.
+	 */
+	public int getId(String activity) {
+		Integer id = ids.get(activity);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Returns the ids for the provided trace, using the provided classifier.
+	 * The ids for the artificial start and end activities are included as first
+	 * and last id. Activities that are not known get id -1.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param classifier
+	 *            The provided classifier.
+	 * @return The ids for the provided trace.
+	 */
+	public int[] getIds(XTrace trace, XEventClassifier classifier) {
+		int[] trace2ids = new int[trace.size() + 2];
+		int i = 0;
+		trace2ids[i++] = getId(LogSkeletonCount.STARTEVENT);
+		for (int j = 0; j < trace.size(); j++) {
+			trace2ids[i++] = getId(classifier.getClassIdentity(trace.get(j)));
+		}
+		trace2ids[i] = getId(LogSkeletonCount.ENDEVENT);
+		return trace2ids;
+	}
+
+	/**
+	 * Returns the activity for the provided id.
+	 *
+	 * @param id
+	 *            The provided id.
+	 * @return The activity for the provided id.
+	 */
+	public String getActivity(int id) {
+		return activities[id];
+	}
+
+	/**
+	 * Returns the number of known activities. All ids are smaller than this
+	 * number.
+	 *
+	 * @return The number of known activities.
+	 */
+	public int size() {
+		return ids.size();
+	}
+
+	/**
+	 * Returns all known activities, ordered by id.
+	 *
+	 * @return All known activities.
+	 */
+	public List<String> getActivities() {
+		synchronized (this) {
+			return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(activities, size)));
+		}
+	}
+}
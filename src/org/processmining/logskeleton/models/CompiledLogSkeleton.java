@@ -0,0 +1,823 @@
+package org.processmining.logskeleton.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
+import org.processmining.logskeleton.configurations.CheckerConfiguration;
+import org.processmining.logskeleton.models.violations.ViolationCardinality;
+import org.processmining.logskeleton.models.violations.ViolationEquivalence;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+/**
+ * A log skeleton frozen at its thresholds at the time of compilation, for
+ * checking traces. All relations are kept as bitmasks over the activity ids.
+ * Instances do not change, apart from the statistics used to order the checks,
+ * and can be used by multiple threads at the same time. See
+ * LogSkeleton.compile().
+ */
+public class CompiledLogSkeleton {
+
+	/*
+	 * Maps the activities onto ids and back. Only the first nofActivities ids
+	 * are known to this compiled log skeleton. The package-private fields are
+	 * shared with LogSkeletonMonitor.
+	 */
+	final ActivityDictionary dictionary;
+	final int nofActivities;
+
+	/*
+	 * The number of longs needed for a bitmask over all known activities.
+	 */
+	final int nofWords;
+
+	/*
+	 * If precedences[a] has bit b set, then b is required before a. If
+	 * responses[a] has bit b set, then b is required after a. If
+	 * notPrecedences[a] has bit b set, then b is forbidden before a. If
+	 * notResponses[a] has bit b set, then b is forbidden after a. If
+	 * notCoExistences[a] has bit b set, then b is forbidden if a occurs. A null
+	 * bitmask requires or forbids nothing.
+	 */
+	final long[][] precedences;
+	final long[][] responses;
+	final long[][] notPrecedences;
+	final long[][] notResponses;
+	final long[][] notCoExistences;
+
+	/*
+	 * The Not Response relation reversed. If notResponders[b] has bit a set,
+	 * then b is forbidden after a.
+	 */
+	final long[][] notResponders;
+
+	/*
+	 * The equivalence classes at the equivalence threshold, as ids and as
+	 * activities. Activities that are not known get id -1.
+	 */
+	final int[][] equivalenceClassIds;
+	final List<Set<String>> equivalenceClasses;
+
+	/*
+	 * The directly follows relation, with the count of every transition.
+	 */
+	final TransitionTable transitionCounts;
+
+	/*
+	 * The checks, and their order when all checks are done.
+	 */
+	private final static int EQUIVALENCE = 0;
+	private final static int CAUSAL = 1;
+	private final static int TRANSITION = 2;
+	private final static int[] DEFAULTORDER = new int[] { EQUIVALENCE, CAUSAL, TRANSITION };
+
+	/*
+	 * The estimated cost of every check per event, relative to the cost of
+	 * the equivalence check. The causal check sweeps the trace twice, the
+	 * transition check looks up every transition in a hash table.
+	 */
+	private final static int[] COSTS = new int[] { 1, 3, 2 };
+
+	/*
+	 * The order of the checks when stopping at the first violation. Checks
+	 * that find violations cheaply come first. The statistics are shared by
+	 * all threads using this compiled log skeleton: checkEvents.get(c) holds
+	 * the number of events checked by check c, checkViolations.get(c) the
+	 * number of times check c found a violation.
+	 */
+	private final static int UPDATEINTERVAL = 1024;
+	private volatile int[] checkOrder;
+	private final AtomicLongArray checkEvents;
+	private final AtomicLongArray checkViolations;
+	private final AtomicLong nofChecks;
+
+	/*
+	 * The kinds of activity pairs that can reject a trace. For the causal
+	 * kinds, the pair is the activity that is checked and the activity that
+	 * is missing or present. For the transition kind, the pair is the
+	 * transition.
+	 */
+	private final static int PRECEDENCE = 0;
+	private final static int RESPONSE = 1;
+	private final static int NOTPRECEDENCE = 2;
+	private final static int NOTRESPONSE = 3;
+	private final static int CARDINALITY = 4;
+
+	/*
+	 * The order of the pairs within a check when stopping at the first
+	 * violation. pairRejections.get(k).get(p) holds the number of traces
+	 * rejected by pair p of kind k, where p is encoded as a transition. The
+	 * pairs that rejected most traces are checked first, before the entire
+	 * check is done.
+	 */
+	private final static int NOFHOTPAIRS = 8;
+	private final List<ConcurrentMap<Long, AtomicLong>> pairRejections;
+	private volatile HotPairs hotCausalPairs;
+	private volatile HotPairs hotTransitions;
+
+	CompiledLogSkeleton(LogSkeletonCount countModel, long[][] precedences, long[][] responses,
+			long[][] notPrecedences, long[][] notResponses, long[][] notCoExistences,
+			Collection<Collection<String>> equivalenceClasses) {
+		dictionary = countModel.getDictionary();
+		nofActivities = precedences.length;
+		nofWords = (nofActivities + 63) / 64;
+		this.precedences = precedences;
+		this.responses = responses;
+		this.notPrecedences = notPrecedences;
+		this.notResponses = notResponses;
+		this.notCoExistences = notCoExistences;
+		notResponders = new long[nofActivities][];
+		for (int activity = 0; activity < nofActivities; activity++) {
+			for (int word = 0; notResponses[activity] != null && word < notResponses[activity].length; word++) {
+				long bits = notResponses[activity][word];
+				while (bits != 0) {
+					int activity2 = 64 * word + Long.numberOfTrailingZeros(bits);
+					if (notResponders[activity2] == null) {
+						notResponders[activity2] = new long[nofWords];
+					}
+					notResponders[activity2][activity >>> 6] |= 1L << activity;
+					bits &= bits - 1;
+				}
+			}
+		}
+		equivalenceClassIds = new int[equivalenceClasses.size()][];
+		this.equivalenceClasses = new ArrayList<Set<String>>(equivalenceClasses.size());
+		int i = 0;
+		for (Collection<String> equivalenceClass : equivalenceClasses) {
+			equivalenceClassIds[i] = new int[equivalenceClass.size()];
+			int j = 0;
+			for (String activity : equivalenceClass) {
+				equivalenceClassIds[i][j++] = getId(activity);
+			}
+			this.equivalenceClasses.add(new HashSet<String>(equivalenceClass));
+			i++;
+		}
+		long[] transitions = countModel.getTransitions();
+		transitionCounts = new TransitionTable(transitions.length);
+		for (long transition : transitions) {
+			transitionCounts.add(transition, countModel.getTransitionCount(transition));
+		}
+		checkOrder = DEFAULTORDER;
+		checkEvents = new AtomicLongArray(DEFAULTORDER.length);
+		checkViolations = new AtomicLongArray(DEFAULTORDER.length);
+		nofChecks = new AtomicLong();
+		pairRejections = new ArrayList<ConcurrentMap<Long, AtomicLong>>();
+		for (int kind = PRECEDENCE; kind <= CARDINALITY; kind++) {
+			pairRejections.add(new ConcurrentHashMap<Long, AtomicLong>());
+		}
+		hotCausalPairs = new HotPairs();
+		hotTransitions = new HotPairs();
+	}
+
+	/*
+	 * The activity pairs that rejected most traces, in order. Instances do not
+	 * change.
+	 */
+	private static class HotPairs {
+
+		final int[] kinds;
+		final long[] pairs;
+
+		HotPairs() {
+			this(new int[0], new long[0]);
+		}
+
+		HotPairs(int[] kinds, long[] pairs) {
+			this.kinds = kinds;
+			this.pairs = pairs;
+		}
+	}
+
+	/*
+	 * Returns the id of the provided activity, or -1 if not known.
+	 */
+	int getId(String activity) {
+		int id = dictionary.getId(activity);
+		return id < nofActivities ? id : -1;
+	}
+
+	/**
+	 * Checks whether the provided trace violates this compiled log skeleton,
+	 * using the provided configuration. Equivalence classes and transition
+	 * counts are checked using the counts of the trace itself.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return A collection of violations. The configuration determines which
+	 *         checks are done. Depending on the configuration, only the first
+	 *         violation is returned, or all violations. When stopping at the
+	 *         first violation, the checks that have found violations cheapest so
+	 *         far are done first, and within a check the activity pairs that
+	 *         have rejected most traces so far.
+	 */
+	public Collection<Violation> check(XTrace trace, CheckerConfiguration configuration) {
+		return check(trace, getIds(trace, new PrefixClassifier(configuration.getClassifier())), configuration);
+	}
+
+	/**
+	 * Checks whether the provided trace violates this compiled log skeleton,
+	 * using the provided configuration. See check(XTrace,
+	 * CheckerConfiguration).
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param ids
+	 *            The activity ids of the provided trace. See getIds.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return A collection of violations.
+	 */
+	public Collection<Violation> check(XTrace trace, int[] ids, CheckerConfiguration configuration) {
+		return check(trace, null, ids, configuration);
+	}
+
+	/**
+	 * Checks whether the provided trace violates this compiled log skeleton,
+	 * using the provided configuration, where the activities of the trace are
+	 * provided as well. See check(XTrace, CheckerConfiguration). Used for
+	 * traces in a LogView, where the activities may differ from the activities
+	 * of the events.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param activities
+	 *            The activities of the provided trace, including artificial
+	 *            start and end. See LogView.getActivities.
+	 * @param ids
+	 *            The activity ids of the provided trace. See getIds.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @return A collection of violations.
+	 */
+	public Collection<Violation> check(XTrace trace, String[] activities, int[] ids,
+			CheckerConfiguration configuration) {
+		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
+		boolean[] checks = configuration.getChecks();
+		boolean stopAtFirstViolation = configuration.isStopAtFirstViolation();
+		Set<Violation> violations = new HashSet<Violation>();
+
+		/*
+		 * If all violations are needed, all checks need to be done, and the
+		 * order does not matter. Otherwise, use the adaptive order, and keep
+		 * the statistics up to date.
+		 */
+		int[] order = stopAtFirstViolation ? checkOrder : DEFAULTORDER;
+		for (int check : order) {
+			if (!checks[check]) {
+				continue;
+			}
+			switch (check) {
+				case EQUIVALENCE :
+					/*
+					 * Check equivalence classes.
+					 */
+					checkEquivalenceClasses(trace, ids, stopAtFirstViolation, violations);
+					break;
+				case CAUSAL :
+					/*
+					 * Check (not) response/precedence relations. When stopping
+					 * at the first violation, check the pairs that rejected
+					 * most traces first.
+					 */
+					if (!stopAtFirstViolation || !checkHotCausalPairs(trace, ids, violations)) {
+						checkCausalDependencies(trace, ids, stopAtFirstViolation, violations);
+					}
+					break;
+				case TRANSITION :
+					/*
+					 * Check transition counts. When stopping at the first
+					 * violation, check the transitions that rejected most
+					 * traces first.
+					 */
+					if (!stopAtFirstViolation || !checkHotTransitions(trace, ids, violations)) {
+						checkTransitionCounts(trace, classifier, activities, ids, stopAtFirstViolation, violations);
+					}
+			}
+			if (stopAtFirstViolation) {
+				updateCheckOrder(check, ids.length, !violations.isEmpty());
+				if (!violations.isEmpty()) {
+					return violations;
+				}
+			}
+		}
+		return violations;
+	}
+
+	/*
+	 * Registers that the provided check was done on the provided number of
+	 * events, and whether it found a violation. Every UPDATEINTERVAL checks,
+	 * the check order is updated: checks that find the most violations per
+	 * unit of estimated cost come first. The hot pairs are updated as well.
+	 */
+	private void updateCheckOrder(int check, int nofEvents, boolean isViolated) {
+		checkEvents.addAndGet(check, nofEvents);
+		if (isViolated) {
+			checkViolations.incrementAndGet(check);
+		}
+		if (nofChecks.incrementAndGet() % UPDATEINTERVAL == 0) {
+			hotCausalPairs = getHotPairs(PRECEDENCE, NOTRESPONSE);
+			hotTransitions = getHotPairs(CARDINALITY, CARDINALITY);
+			final double[] rates = new double[DEFAULTORDER.length];
+			Integer[] sortedChecks = new Integer[DEFAULTORDER.length];
+			for (int i = 0; i < DEFAULTORDER.length; i++) {
+				rates[i] = checkViolations.get(i) / (COSTS[i] * (double) checkEvents.get(i) + 1.0);
+				sortedChecks[i] = i;
+			}
+			Arrays.sort(sortedChecks, new Comparator<Integer>() {
+
+				public int compare(Integer check1, Integer check2) {
+					return Double.compare(rates[check2], rates[check1]);
+				}
+			});
+			int[] newOrder = new int[sortedChecks.length];
+			for (int i = 0; i < sortedChecks.length; i++) {
+				newOrder[i] = sortedChecks[i];
+			}
+			checkOrder = newOrder;
+		}
+	}
+
+	/*
+	 * Registers that the provided pair of the provided kind rejected a trace.
+	 */
+	private void addRejection(int kind, long pair) {
+		ConcurrentMap<Long, AtomicLong> rejections = pairRejections.get(kind);
+		AtomicLong count = rejections.get(pair);
+		if (count == null) {
+			AtomicLong newCount = new AtomicLong();
+			count = rejections.putIfAbsent(pair, newCount);
+			if (count == null) {
+				count = newCount;
+			}
+		}
+		count.incrementAndGet();
+	}
+
+	/*
+	 * Registers that the provided activity rejected a trace of the provided
+	 * kind, for every activity in the provided mask that is (if inSet) or is
+	 * not (if !inSet) in the provided set.
+	 */
+	private void addRejections(int kind, int activity, long[] mask, long[] set, boolean inSet) {
+		for (int word = 0; word < mask.length; word++) {
+			long bits = mask[word] & (inSet ? set[word] : ~set[word]);
+			while (bits != 0) {
+				addRejection(kind, LogSkeletonCount.getTransition(activity,
+						64 * word + Long.numberOfTrailingZeros(bits)));
+				bits &= bits - 1;
+			}
+		}
+	}
+
+	/*
+	 * Returns the NOFHOTPAIRS pairs of the provided kinds that rejected most
+	 * traces so far, most rejections first.
+	 */
+	private HotPairs getHotPairs(int fromKind, int toKind) {
+		final List<long[]> candidates = new ArrayList<long[]>();
+		for (int kind = fromKind; kind <= toKind; kind++) {
+			for (Map.Entry<Long, AtomicLong> entry : pairRejections.get(kind).entrySet()) {
+				candidates.add(new long[] { entry.getValue().get(), kind, entry.getKey() });
+			}
+		}
+		Collections.sort(candidates, new Comparator<long[]>() {
+
+			public int compare(long[] candidate1, long[] candidate2) {
+				return Long.compare(candidate2[0], candidate1[0]);
+			}
+		});
+		int nofPairs = Math.min(NOFHOTPAIRS, candidates.size());
+		int[] kinds = new int[nofPairs];
+		long[] pairs = new long[nofPairs];
+		for (int i = 0; i < nofPairs; i++) {
+			kinds[i] = (int) candidates.get(i)[1];
+			pairs[i] = candidates.get(i)[2];
+		}
+		return new HotPairs(kinds, pairs);
+	}
+
+	/*
+	 * Checks the hot causal pairs on the trace with the provided ids, using
+	 * the first and last position of every activity. Adds the first violation
+	 * found, and returns whether a violation was found. A violation found here
+	 * is also found by checkCausalDependencies.
+	 */
+	private boolean checkHotCausalPairs(XTrace trace, int[] ids, Collection<Violation> violations) {
+		HotPairs hotPairs = hotCausalPairs;
+		if (hotPairs.pairs.length == 0) {
+			return false;
+		}
+		int[] first = new int[nofActivities];
+		int[] last = new int[nofActivities];
+		Arrays.fill(first, -1);
+		Arrays.fill(last, -1);
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] >= 0) {
+				if (first[ids[i]] < 0) {
+					first[ids[i]] = i;
+				}
+				last[ids[i]] = i;
+			}
+		}
+		for (int i = 0; i < hotPairs.pairs.length; i++) {
+			int activity = LogSkeletonCount.getFrom(hotPairs.pairs[i]);
+			int activity2 = LogSkeletonCount.getTo(hotPairs.pairs[i]);
+			if (first[activity] < 0) {
+				continue;
+			}
+			switch (hotPairs.kinds[i]) {
+				case PRECEDENCE :
+					/*
+					 * The second activity should occur before the first
+					 * occurrence of the activity.
+					 */
+					if (first[activity2] < 0 || first[activity2] > first[activity]) {
+						violations.add(new ViolationPrecedence(trace, dictionary.getActivity(activity),
+								getActivities(precedences[activity], getSet(ids, 0, first[activity]), false)));
+					}
+					break;
+				case RESPONSE :
+					/*
+					 * The second activity should occur after the last
+					 * occurrence of the activity.
+					 */
+					if (last[activity2] < last[activity]) {
+						violations.add(new ViolationResponse(trace, dictionary.getActivity(activity), getActivities(
+								responses[activity], getSet(ids, last[activity] + 1, ids.length), false)));
+					}
+					break;
+				case NOTPRECEDENCE :
+					/*
+					 * The second activity should not occur before the last
+					 * occurrence of the activity.
+					 */
+					if (first[activity2] >= 0 && first[activity2] < last[activity]) {
+						violations.add(new ViolationNotPrecedence(trace, dictionary.getActivity(activity),
+								getActivities(notPrecedences[activity], getSet(ids, 0, last[activity]), true)));
+					}
+					break;
+				case NOTRESPONSE :
+					/*
+					 * The second activity should not occur after the first
+					 * occurrence of the activity.
+					 */
+					if (last[activity2] > first[activity]) {
+						violations.add(new ViolationNotResponse(trace, dictionary.getActivity(activity),
+								getActivities(notResponses[activity], getSet(ids, first[activity] + 1, ids.length),
+										true)));
+					}
+			}
+			if (!violations.isEmpty()) {
+				addRejection(hotPairs.kinds[i], hotPairs.pairs[i]);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the set of activities at the provided range of positions in the
+	 * trace with the provided ids.
+	 */
+	private long[] getSet(int[] ids, int from, int to) {
+		long[] set = new long[nofWords];
+		for (int i = from; i < to; i++) {
+			if (ids[i] >= 0) {
+				set[ids[i] >>> 6] |= 1L << ids[i];
+			}
+		}
+		return set;
+	}
+
+	/*
+	 * Checks the hot transitions on the trace with the provided ids. Adds the
+	 * first violation found, and returns whether a violation was found. A
+	 * violation found here is also found by checkTransitionCounts.
+	 */
+	private boolean checkHotTransitions(XTrace trace, int[] ids, Collection<Violation> violations) {
+		HotPairs hotPairs = hotTransitions;
+		if (hotPairs.pairs.length == 0) {
+			return false;
+		}
+		int[] counts = new int[hotPairs.pairs.length];
+		for (int i = 1; i < ids.length; i++) {
+			if (ids[i - 1] < 0 || ids[i] < 0) {
+				continue;
+			}
+			long transition = LogSkeletonCount.getTransition(ids[i - 1], ids[i]);
+			for (int j = 0; j < hotPairs.pairs.length; j++) {
+				if (hotPairs.pairs[j] == transition && ++counts[j] > transitionCounts.get(transition)) {
+					violations.add(new ViolationCardinality(trace, LogSkeletonCount
+							.getTransition(dictionary.getActivity(ids[i - 1]), dictionary.getActivity(ids[i]))));
+					addRejection(CARDINALITY, transition);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the activity ids for the provided trace, including artificial
+	 * start and end. Unknown activities get id -1.
+	 *
+	 * @param trace
+	 *            The provided trace.
+	 * @param classifier
+	 *            The provided classifier, which should be a PrefixClassifier.
+	 * @return The activity ids for the provided trace.
+	 */
+	public int[] getIds(XTrace trace, XEventClassifier classifier) {
+		int[] ids = dictionary.getIds(trace, classifier);
+		for (int i = 0; i < ids.length; i++) {
+			if (ids[i] >= nofActivities) {
+				ids[i] = -1;
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Returns the activity ids for the provided activities. Unknown activities
+	 * get id -1.
+	 *
+	 * @param activities
+	 *            The provided activities.
+	 * @return The activity ids for the provided activities.
+	 */
+	public int[] getIds(String[] activities) {
+		int[] ids = new int[activities.length];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = getId(activities[i]);
+		}
+		return ids;
+	}
+
+	/*
+	 * Checks whether equivalent activities occur equally often in the trace
+	 * with the provided ids.
+	 */
+	private void checkEquivalenceClasses(XTrace trace, int[] ids, boolean stopAtFirstViolation,
+			Collection<Violation> violations) {
+		int[] counts = new int[nofActivities];
+		for (int activity : ids) {
+			if (activity >= 0) {
+				counts[activity]++;
+			}
+		}
+		for (int i = 0; i < equivalenceClassIds.length; i++) {
+			int[] equivalenceClass = equivalenceClassIds[i];
+			boolean isViolated = equivalenceClass.length == 0;
+			for (int j = 1; j < equivalenceClass.length && !isViolated; j++) {
+				isViolated = getCount(counts, equivalenceClass[j]) != getCount(counts, equivalenceClass[0]);
+			}
+			if (isViolated) {
+				/*
+				 * Equivalent activities should have the same count for every
+				 * trace.
+				 */
+				violations.add(new ViolationEquivalence(trace, equivalenceClasses.get(i)));
+				if (stopAtFirstViolation) {
+					return;
+				}
+			}
+		}
+	}
+
+	private int getCount(int[] counts, int activity) {
+		return activity >= 0 ? counts[activity] : 0;
+	}
+
+	/**
+	 * Checks whether the trace with the provided ids violates the (not)
+	 * response/precedence relations. Violations are reported per activity in
+	 * the order of the trace, and per activity in the order precedence,
+	 * response, not precedence, not response.
+	 *
+	 * A backward sweep determines which activities violate their (not)
+	 * response relations, as the postset of an activity is known only
+	 * afterwards. A forward sweep then checks the (not) precedence relations,
+	 * and reports all violations in order.
+	 *
+	 * @param trace
+	 *            The trace to report if violations are detected.
+	 * @param ids
+	 *            The activity ids of the trace.
+	 * @param stopAtFirstViolation
+	 *            Whether to stop at the first violation.
+	 * @param violations
+	 *            The collection to add the violations to.
+	 */
+	void checkCausalDependencies(XTrace trace, int[] ids, boolean stopAtFirstViolation,
+			Collection<Violation> violations) {
+		/*
+		 * missingResponses.get(i) contains the responses missing for the
+		 * activity at position i, if any. presentNotResponses.get(i) contains
+		 * the not responses present for the activity at position i, if any.
+		 */
+		Map<Integer, Set<String>> missingResponses = null;
+		Map<Integer, Set<String>> presentNotResponses = null;
+		long[] postset = new long[nofWords];
+		for (int i = ids.length - 1; i >= 0; i--) {
+			int activity = ids[i];
+			if (activity < 0) {
+				continue;
+			}
+			if (responses[activity] != null && !containsAll(postset, responses[activity])) {
+				if (missingResponses == null) {
+					missingResponses = new HashMap<Integer, Set<String>>();
+				}
+				missingResponses.put(i, getActivities(responses[activity], postset, false));
+			}
+			if (notResponses[activity] != null && intersects(postset, notResponses[activity])) {
+				if (presentNotResponses == null) {
+					presentNotResponses = new HashMap<Integer, Set<String>>();
+				}
+				presentNotResponses.put(i, getActivities(notResponses[activity], postset, true));
+			}
+			postset[activity >>> 6] |= 1L << activity;
+		}
+
+		long[] preset = new long[nofWords];
+		for (int i = 0; i < ids.length; i++) {
+			int activity = ids[i];
+			if (activity < 0) {
+				continue;
+			}
+			/*
+			 * Check whether all precedences are in the preset.
+			 */
+			if (precedences[activity] != null && !containsAll(preset, precedences[activity])) {
+				violations.add(new ViolationPrecedence(trace, dictionary.getActivity(activity),
+						getActivities(precedences[activity], preset, false)));
+				if (stopAtFirstViolation) {
+					addRejections(PRECEDENCE, activity, precedences[activity], preset, false);
+					return;
+				}
+			}
+			/*
+			 * Check whether all responses are in the postset.
+			 */
+			if (missingResponses != null && missingResponses.containsKey(i)) {
+				violations.add(new ViolationResponse(trace, dictionary.getActivity(activity), missingResponses.get(i)));
+				if (stopAtFirstViolation) {
+					addRejections(RESPONSE, activity, responses[activity], getSet(ids, i + 1, ids.length), false);
+					return;
+				}
+			}
+			/*
+			 * Check whether no not-precedences are in the preset.
+			 */
+			if (notPrecedences[activity] != null && intersects(preset, notPrecedences[activity])) {
+				violations.add(new ViolationNotPrecedence(trace, dictionary.getActivity(activity),
+						getActivities(notPrecedences[activity], preset, true)));
+				if (stopAtFirstViolation) {
+					addRejections(NOTPRECEDENCE, activity, notPrecedences[activity], preset, true);
+					return;
+				}
+			}
+			/*
+			 * Check whether no not-responses are in the postset.
+			 */
+			if (presentNotResponses != null && presentNotResponses.containsKey(i)) {
+				violations.add(new ViolationNotResponse(trace, dictionary.getActivity(activity),
+						presentNotResponses.get(i)));
+				if (stopAtFirstViolation) {
+					addRejections(NOTRESPONSE, activity, notResponses[activity], getSet(ids, i + 1, ids.length), true);
+					return;
+				}
+			}
+			preset[activity >>> 6] |= 1L << activity;
+		}
+	}
+
+	/*
+	 * Returns whether the provided set contains all bits of the provided
+	 * mask.
+	 */
+	static boolean containsAll(long[] set, long[] mask) {
+		for (int word = 0; word < mask.length; word++) {
+			if ((mask[word] & ~set[word]) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Returns whether the provided set contains some bit of the provided mask.
+	 */
+	static boolean intersects(long[] set, long[] mask) {
+		for (int word = 0; word < mask.length; word++) {
+			if ((mask[word] & set[word]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Returns the activities in the provided mask that are (if inSet) or are
+	 * not (if !inSet) in the provided set.
+	 */
+	Set<String> getActivities(long[] mask, long[] set, boolean inSet) {
+		Set<String> activities = new HashSet<String>();
+		for (int word = 0; word < mask.length; word++) {
+			long bits = mask[word] & (inSet ? set[word] : ~set[word]);
+			while (bits != 0) {
+				activities.add(dictionary.getActivity(64 * word + Long.numberOfTrailingZeros(bits)));
+				bits &= bits - 1;
+			}
+		}
+		return activities;
+	}
+
+	/*
+	 * Checks whether every transition in the trace with the provided ids
+	 * occurs in the directly follows relation, at least as often as in the
+	 * trace. The provided activities are used to report unknown activities,
+	 * if not null.
+	 */
+	private void checkTransitionCounts(XTrace trace, XEventClassifier classifier, String[] activities, int[] ids,
+			boolean stopAtFirstViolation, Collection<Violation> violations) {
+		/*
+		 * Transitions from or to unknown activities never occur in the directly
+		 * follows relation. Report every such transition once.
+		 */
+		Set<Set<String>> unknownTransitions = new HashSet<Set<String>>();
+		/*
+		 * Count the transitions while streaming over the trace. A transition
+		 * is violated as soon as its count exceeds its count in the directly
+		 * follows relation, which happens only once.
+		 */
+		TransitionTable traceTransitionCounts = new TransitionTable(ids.length);
+		for (int i = 1; i < ids.length; i++) {
+			if (ids[i - 1] < 0 || ids[i] < 0) {
+				Set<String> transition = LogSkeletonCount.getTransition(
+						getActivity(trace, classifier, activities, i - 1),
+						getActivity(trace, classifier, activities, i));
+				if (unknownTransitions.add(transition)) {
+					violations.add(new ViolationCardinality(trace, transition));
+					if (stopAtFirstViolation) {
+						return;
+					}
+				}
+			} else {
+				long transition = LogSkeletonCount.getTransition(ids[i - 1], ids[i]);
+				if (traceTransitionCounts.add(transition, 1) == transitionCounts.get(transition) + 1) {
+					violations.add(new ViolationCardinality(trace, LogSkeletonCount
+							.getTransition(dictionary.getActivity(ids[i - 1]), dictionary.getActivity(ids[i]))));
+					if (stopAtFirstViolation) {
+						addRejection(CARDINALITY, transition);
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/*
+	 * Returns the count of the provided transition in the directly follows
+	 * relation, 0 if not present.
+	 */
+	int getTransitionCount(long transition) {
+		return transitionCounts.get(transition);
+	}
+
+	/*
+	 * Returns the activity at the provided position in the provided trace,
+	 * including artificial start and end.
+	 */
+	private static String getActivity(XTrace trace, XEventClassifier classifier, String[] activities,
+			int position) {
+		if (activities != null) {
+			return activities[position];
+		}
+		if (position == 0) {
+			return LogSkeletonCount.STARTEVENT;
+		}
+		if (position == trace.size() + 1) {
+			return LogSkeletonCount.ENDEVENT;
+		}
+		return classifier.getClassIdentity(trace.get(position - 1));
+	}
+}
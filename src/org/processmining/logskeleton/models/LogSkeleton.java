@@ -2,16 +2,17 @@ package org.processmining.logskeleton.models;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
-import org.deckfour.xes.classification.XEventClassifier;
-import org.deckfour.xes.model.XEvent;
 import org.deckfour.xes.model.XTrace;
 import org.processmining.framework.annotations.AuthoredType;
 import org.processmining.framework.annotations.Icon;
@@ -22,10 +23,6 @@ import org.processmining.logskeleton.classifiers.PrefixClassifier;
 import org.processmining.logskeleton.configurations.BrowserConfiguration;
 import org.processmining.logskeleton.configurations.CheckerConfiguration;
 import org.processmining.logskeleton.models.violations.ViolationEquivalence;
-import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
-import org.processmining.logskeleton.models.violations.ViolationNotResponse;
-import org.processmining.logskeleton.models.violations.ViolationPrecedence;
-import org.processmining.logskeleton.models.violations.ViolationResponse;
 import org.processmining.plugins.graphviz.dot.Dot;
 
 import com.csvreader.CsvReader;
@@ -51,33 +48,33 @@ public class LogSkeleton implements HTMLToString {
 	 * The Precedence relation. If precedence.get(a).contains(b), then if a occurs,
 	 * some b must occur before.
 	 */
-	private Map<String, ThresholdSet> precedences;
+	private List<ThresholdSet> precedences;
 
 	/*
 	 * The Response relation. If response.get(a).contains(b), then if a occurs, some
 	 * b must occur after.
 	 */
-	private Map<String, ThresholdSet> responses;
+	private List<ThresholdSet> responses;
 
 	/*
 	 * The Not Precedence relation. If notPrecedence.get(a).contains(b), then if a
 	 * occurs, no b may occur before. As a result, if both a and b occur, then b
 	 * occurs after a.
 	 */
-	private Map<String, ThresholdSet> notPrecedences;
+	private List<ThresholdSet> notPrecedences;
 
 	/*
 	 * The Not Response relation. If notResponse.get(a).contains(b), then if a
 	 * occurs, no b may occur after. As a result, if both a and b occur, then b
 	 * occurs before a.
 	 */
-	private Map<String, ThresholdSet> notResponses;
+	private List<ThresholdSet> notResponses;
 
 	/*
 	 * The Not Co-Existence relation. If notCoExistence.get(a).contains(b), then if
 	 * a occurs, b may not occur (before or after).
 	 */
-	private Map<String, ThresholdSet> notCoExistences;
+	private List<ThresholdSet> notCoExistences;
 
 	/*
 	 * Filters and splitters. Used for the legend below the log skeleton.
@@ -107,6 +104,37 @@ public class LogSkeleton implements HTMLToString {
 	private int responseThreshold;
 	private int notCoExistenceThreshold;
 
+	/*
+	 * This log skeleton compiled at the current thresholds, if compiled
+	 * already. Reset to null on any change.
+	 */
+	private CompiledLogSkeleton compiled;
+
+	/*
+	 * Views derived from the relations, which are asked for very often when
+	 * building a graph. Every view is kept for the thresholds and selected
+	 * activity ids it was derived for, so changing a threshold only recomputes
+	 * the views that depend on it. All views are dropped when the relations
+	 * change (see invalidate).
+	 * 
+	 * equivalenceView maps every activity onto its equivalence class, and
+	 * selectedEquivalenceViews onto its sorted equivalence class restricted to
+	 * the selected activities. reductionViews maps every relation onto its
+	 * transitive reduction (see getRedundant).
+	 * notCoExistenceViews hold, per activity id, the selected precedences and
+	 * the activities that are not-co-existent with it in either direction.
+	 * Views that depend on the selected activities are kept for the
+	 * MAXVIEWS most recent selections, as a graph is built using both all
+	 * activities and the shown activities (see GraphBuilderAlgorithm).
+	 */
+	private View<Map<String, Collection<String>>> equivalenceView;
+	private List<View<Map<String, Collection<String>>>> selectedEquivalenceViews;
+	private Map<List<ThresholdSet>, List<View<long[][]>>> reductionViews;
+	private List<View<BitSet[][]>> notCoExistenceViews;
+	private View<Boolean> manyNotCoExistenceArcsView;
+
+	private final static int MAXVIEWS = 2;
+
 	public LogSkeleton() {
 		this(new LogSkeletonCount());
 	}
@@ -117,16 +145,19 @@ public class LogSkeleton implements HTMLToString {
 		for (int noiseLevel = 0; noiseLevel < 21; noiseLevel++) {
 			equivalenceClasses.put(noiseLevel, new HashSet<Collection<String>>());
 		}
-		precedences = new HashMap<String, ThresholdSet>();
-		responses = new HashMap<String, ThresholdSet>();
-		notPrecedences = new HashMap<String, ThresholdSet>();
-		notResponses = new HashMap<String, ThresholdSet>();
-		notCoExistences = new HashMap<String, ThresholdSet>();
+		precedences = new ArrayList<ThresholdSet>();
+		responses = new ArrayList<ThresholdSet>();
+		notPrecedences = new ArrayList<ThresholdSet>();
+		notResponses = new ArrayList<ThresholdSet>();
+		notCoExistences = new ArrayList<ThresholdSet>();
 		required = new HashSet<String>();
 		forbidden = new HashSet<String>();
 		boundary = new HashSet<String>();
 		splitters = new ArrayList<List<String>>();
 		label = null;
+		selectedEquivalenceViews = new ArrayList<View<Map<String, Collection<String>>>>();
+		reductionViews = new IdentityHashMap<List<ThresholdSet>, List<View<long[][]>>>();
+		notCoExistenceViews = new ArrayList<View<BitSet[][]>>();
 		setEquivalenceThreshold(100);
 		setPrecedenceThreshold(100);
 		setResponseThreshold(100);
@@ -152,6 +183,7 @@ public class LogSkeleton implements HTMLToString {
 		List<String> equivalenceClass = new ArrayList<String>(activities);
 		Collections.sort(equivalenceClass);
 		equivalenceClasses.get(100 - equivalenceThreshold).add(equivalenceClass);
+		invalidate();
 	}
 
 	/*
@@ -174,6 +206,7 @@ public class LogSkeleton implements HTMLToString {
 		List<String> equivalenceClass = new ArrayList<String>(activities);
 		Collections.sort(equivalenceClass);
 		equivalenceClasses.get(noiseLevel).add(equivalenceClass);
+		invalidate();
 	}
 
 	/*
@@ -193,12 +226,18 @@ public class LogSkeleton implements HTMLToString {
 	 * @return The equivalence class.
 	 */
 	public Collection<String> getEquivalenceClass(String activity) {
-		for (Collection<String> equivalenceClass : equivalenceClasses.get(100 - equivalenceThreshold)) {
-			if (equivalenceClass.contains(activity)) {
-				return equivalenceClass;
+		if (!isValid(equivalenceView, null, equivalenceThreshold)) {
+			Map<String, Collection<String>> classes = new HashMap<String, Collection<String>>();
+			for (Collection<String> equivalenceClass : equivalenceClasses.get(100 - equivalenceThreshold)) {
+				for (String activity2 : equivalenceClass) {
+					if (!classes.containsKey(activity2)) {
+						classes.put(activity2, equivalenceClass);
+					}
+				}
 			}
+			equivalenceView = new View<Map<String, Collection<String>>>(classes, null, equivalenceThreshold);
 		}
-		return null;
+		return equivalenceView.value.get(activity);
 	}
 
 	/*
@@ -223,20 +262,49 @@ public class LogSkeleton implements HTMLToString {
 	 * @return The intersected equivalence class.
 	 */
 	public Collection<String> getEquivalenceClass(String activity, Collection<String> activities) {
-		for (Collection<String> equivalenceClass : equivalenceClasses.get(100 - equivalenceThreshold)) {
-			if (equivalenceClass.contains(activity)) {
-				Collection<String> filteredEquivalenceClass = new HashSet<String>(equivalenceClass);
-				filteredEquivalenceClass.retainAll(activities);
+		return getEquivalenceClass(activity, getIds(activities));
+	}
+
+	/**
+	 * Returns the sorted intersection of the activities with the provided ids
+	 * and the equivalence class for the provided activity for the current
+	 * threshold. See getEquivalenceClass(String, Collection).
+	 * 
+	 * @param activity
+	 *            The provided activity.
+	 * @param selectedIds
+	 *            The ids of the provided activities (see getIds).
+	 * @return The intersected equivalence class.
+	 */
+	public Collection<String> getEquivalenceClass(String activity, BitSet selectedIds) {
+		View<Map<String, Collection<String>>> view = getView(selectedEquivalenceViews, selectedIds,
+				equivalenceThreshold);
+		if (view == null) {
+			view = putView(selectedEquivalenceViews, new View<Map<String, Collection<String>>>(
+					new HashMap<String, Collection<String>>(), (BitSet) selectedIds.clone(), equivalenceThreshold));
+		}
+		Map<String, Collection<String>> classes = view.value;
+		if (!classes.containsKey(activity)) {
+			Collection<String> equivalenceClass = getEquivalenceClass(activity);
+			List<String> sorted = null;
+			if (equivalenceClass != null) {
+				Collection<String> filteredEquivalenceClass = new HashSet<String>();
+				for (String activity2 : equivalenceClass) {
+					int id = countModel.getDictionary().getId(activity2);
+					if (id >= 0 && selectedIds.get(id)) {
+						filteredEquivalenceClass.add(activity2);
+					}
+				}
 				/*
 				 * Sort the resulting collection. The first element in the collection should be
 				 * the representative.
 				 */
-				List<String> sorted = new ArrayList<String>(filteredEquivalenceClass);
+				sorted = new ArrayList<String>(filteredEquivalenceClass);
 				Collections.sort(sorted);
-				return sorted;
 			}
+			classes.put(activity, sorted == null ? null : Collections.unmodifiableList(sorted));
 		}
-		return null;
+		return classes.get(activity);
 	}
 
 	/**
@@ -253,54 +321,203 @@ public class LogSkeleton implements HTMLToString {
 	 *            the provided activity in the trace.
 	 */
 	public void addPrePost(String activity, Collection<String> pre, Collection<String> post) {
-		Set<String> preset = new HashSet<String>(pre);
-		Set<String> postset = new HashSet<String>(post);
+		addPrePost(activity, pre, post, 1);
+	}
+
+	/**
+	 * Registers that the provided activity has the provided preset of activities
+	 * and the provided postset of activities the provided number of times.
+	 * 
+	 * @param activity
+	 *            The provided activity.
+	 * @param pre
+	 *            The provided preset of activities.
+	 * @param post
+	 *            The provided postset of activities.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void addPrePost(String activity, Collection<String> pre, Collection<String> post, int weight) {
+		addPrePost(countModel.getDictionary().add(activity), getIds(pre), getIds(post), weight);
+	}
+
+	/**
+	 * Registers that the activity with the provided id has the provided preset of
+	 * activity ids and the provided postset of activity ids.
+	 * 
+	 * @param activity
+	 *            The provided activity id.
+	 * @param preset
+	 *            The provided preset of activity ids. These activities occur
+	 *            before the provided activity in the trace.
+	 * @param postset
+	 *            The provided postset of activity ids. These activities occur
+	 *            after the provided activity in the trace.
+	 */
+	public void addPrePost(int activity, BitSet preset, BitSet postset) {
+		addPrePost(activity, preset, postset, 1);
+	}
+
+	/**
+	 * Registers that the activity with the provided id has the provided preset of
+	 * activity ids and the provided postset of activity ids the provided number
+	 * of times.
+	 * 
+	 * @param activity
+	 *            The provided activity id.
+	 * @param preset
+	 *            The provided preset of activity ids.
+	 * @param postset
+	 *            The provided postset of activity ids.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void addPrePost(int activity, BitSet preset, BitSet postset, int weight) {
 		/*
 		 * Initialization if a new activity.
 		 */
-		if (!precedences.containsKey(activity)) {
-			precedences.put(activity, new ThresholdSet(countModel.getActivities(), precedenceThreshold));
-		}
-		if (!responses.containsKey(activity)) {
-			responses.put(activity, new ThresholdSet(countModel.getActivities(), responseThreshold));
-		}
-		if (!notPrecedences.containsKey(activity)) {
-			notPrecedences.put(activity, new ThresholdSet(countModel.getActivities(), precedenceThreshold));
-		}
-		if (!notResponses.containsKey(activity)) {
-			notResponses.put(activity, new ThresholdSet(countModel.getActivities(), responseThreshold));
-		}
-		if (!notCoExistences.containsKey(activity)) {
-			notCoExistences.put(activity, new ThresholdSet(countModel.getActivities(), notCoExistenceThreshold));
-		}
+		initPrePost(activity);
+		invalidate();
 		/*
 		 * Add all activities from the preset to the precedences.
 		 */
-		precedences.get(activity).addAll(preset);
+		get(precedences, activity).addAll(preset, weight);
 		/*
 		 * Add all activities from the postset to the responses.
 		 */
-		responses.get(activity).addAll(postset);
+		get(responses, activity).addAll(postset, weight);
 		/*
 		 * Add all activities not in the preset to the notPrecedences.
 		 */
-		Set<String> negPreset = new HashSet<String>(countModel.getActivities());
-		negPreset.removeAll(preset);
-		notPrecedences.get(activity).addAll(negPreset);
+		get(notPrecedences, activity).addAllExcept(preset, weight);
 		/*
 		 * Add all activities not in the postset to the notResponses.
 		 */
-		Set<String> negPostset = new HashSet<String>(countModel.getActivities());
-		negPostset.removeAll(postset);
-		notResponses.get(activity).addAll(negPostset);
+		get(notResponses, activity).addAllExcept(postset, weight);
 		/*
 		 * Add all activities not in the preset and not in the postset to the
 		 * notCoExistences.
 		 */
-		Set<String> prepostset = new HashSet<String>(countModel.getActivities());
-		prepostset.removeAll(preset);
-		prepostset.removeAll(postset);
-		notCoExistences.get(activity).addAll(prepostset);
+		get(notCoExistences, activity).addAllExcept(preset, postset, weight);
+	}
+
+	/**
+	 * Registers the provided counts of presets and postsets. This has the same
+	 * effect as registering every counted preset and postset separately.
+	 * 
+	 * @param prePostCount
+	 *            The provided counts of presets and postsets.
+	 */
+	public void addPrePost(PrePostCount prePostCount) {
+		invalidate();
+		BitSet activities = countModel.getActivityIds();
+		for (int activity = activities.nextSetBit(0); activity >= 0; activity = activities
+				.nextSetBit(activity + 1)) {
+			int total = prePostCount.getTotal(activity);
+			if (total == 0) {
+				/*
+				 * No presets and postsets registered for this activity.
+				 */
+				continue;
+			}
+			initPrePost(activity);
+			for (int activity2 = activities.nextSetBit(0); activity2 >= 0; activity2 = activities
+					.nextSetBit(activity2 + 1)) {
+				int preCount = prePostCount.getPreCount(activity, activity2);
+				int postCount = prePostCount.getPostCount(activity, activity2);
+				int coExistenceCount = prePostCount.getPrePostCount(activity, activity2);
+				/*
+				 * The not-relations are the complements of the relations.
+				 */
+				get(precedences, activity).add(activity2, preCount, total);
+				get(responses, activity).add(activity2, postCount, total);
+				get(notPrecedences, activity).add(activity2, total - preCount, total);
+				get(notResponses, activity).add(activity2, total - postCount, total);
+				get(notCoExistences, activity).add(activity2, total - coExistenceCount, total);
+			}
+		}
+	}
+
+	/*
+	 * Creates the threshold sets for the activity with the provided id, if not
+	 * created already.
+	 */
+	private void initPrePost(int activity) {
+		if (get(precedences, activity) == null) {
+			put(precedences, activity, createThresholdSet(precedenceThreshold));
+		}
+		if (get(responses, activity) == null) {
+			put(responses, activity, createThresholdSet(responseThreshold));
+		}
+		if (get(notPrecedences, activity) == null) {
+			put(notPrecedences, activity, createThresholdSet(precedenceThreshold));
+		}
+		if (get(notResponses, activity) == null) {
+			put(notResponses, activity, createThresholdSet(responseThreshold));
+		}
+		if (get(notCoExistences, activity) == null) {
+			put(notCoExistences, activity, createThresholdSet(notCoExistenceThreshold));
+		}
+	}
+
+	/*
+	 * Returns a new threshold set for all activities, using the provided
+	 * threshold.
+	 */
+	private ThresholdSet createThresholdSet(int threshold) {
+		return new ThresholdSet(countModel.getDictionary(), countModel.getActivityIds(), threshold);
+	}
+
+	/*
+	 * Returns the threshold set for the activity with the provided id in the
+	 * provided relation, or null if not present.
+	 */
+	private ThresholdSet get(List<ThresholdSet> relation, int activity) {
+		return activity >= 0 && activity < relation.size() ? relation.get(activity) : null;
+	}
+
+	/*
+	 * Returns the threshold set for the provided activity in the provided
+	 * relation, or null if not present.
+	 */
+	private ThresholdSet get(List<ThresholdSet> relation, String activity) {
+		return get(relation, countModel.getDictionary().getId(activity));
+	}
+
+	/*
+	 * Sets the threshold set for the activity with the provided id in the
+	 * provided relation.
+	 */
+	private void put(List<ThresholdSet> relation, int activity, ThresholdSet set) {
+		while (relation.size() <= activity) {
+			relation.add(null);
+		}
+		relation.set(activity, set);
+	}
+
+	private void put(List<ThresholdSet> relation, String activity, ThresholdSet set) {
+		put(relation, countModel.getDictionary().add(activity), set);
+	}
+
+	/**
+	 * Returns the ids of the provided activities. Unknown activities are
+	 * ignored. Callers that ask for many relations between the same selected
+	 * activities (like GraphBuilderAlgorithm) can get these ids once, and use
+	 * them instead of the activities.
+	 * 
+	 * @param activities
+	 *            The provided activities.
+	 * @return The ids of the provided activities.
+	 */
+	public BitSet getIds(Collection<String> activities) {
+		BitSet ids = new BitSet();
+		for (String activity : activities) {
+			int id = countModel.getDictionary().getId(activity);
+			if (id >= 0) {
+				ids.set(id);
+			}
+		}
+		return ids;
 	}
 
 	/**
@@ -311,82 +528,123 @@ public class LogSkeleton implements HTMLToString {
 	 * another way, which allows us to restore the removal.
 	 */
 	public void cleanPrePost() {
-		for (String activity : precedences.keySet()) {
-			precedences.get(activity).reset();
+		invalidate();
+		for (int activity = 0; activity < precedences.size(); activity++) {
+			if (get(precedences, activity) != null) {
+				get(precedences, activity).reset();
+			}
 		}
-		for (String activity : responses.keySet()) {
-			responses.get(activity).reset();
+		for (int activity = 0; activity < responses.size(); activity++) {
+			if (get(responses, activity) != null) {
+				get(responses, activity).reset();
+			}
 		}
-		for (String activity : notPrecedences.keySet()) {
-			notPrecedences.get(activity).reset();
+		for (int activity = 0; activity < notPrecedences.size(); activity++) {
+			if (get(notPrecedences, activity) != null) {
+				get(notPrecedences, activity).reset();
+			}
 		}
-		for (String activity : notResponses.keySet()) {
-			notResponses.get(activity).reset();
+		for (int activity = 0; activity < notResponses.size(); activity++) {
+			if (get(notResponses, activity) != null) {
+				get(notResponses, activity).reset();
+			}
 		}
-		for (String activity : notCoExistences.keySet()) {
-			notPrecedences.get(activity).removeAll(notCoExistences.get(activity));
-			notResponses.get(activity).removeAll(notCoExistences.get(activity));
+		for (int activity = 0; activity < notCoExistences.size(); activity++) {
+			if (get(notCoExistences, activity) != null) {
+				BitSet notCoExistenceIds = get(notCoExistences, activity).getMembers();
+				get(notPrecedences, activity).removeAll(notCoExistenceIds);
+				get(notResponses, activity).removeAll(notCoExistenceIds);
+			}
 		}
 	}
 
 	/**
-	 * Returns a set of activities to which the relation is redundant. The relation
-	 * R is redundant for the provided activity A and a returned activity C if there
-	 * is third activity B such that (A,C) in R, (A,B) in R, and (B,C) in R. The
-	 * activities A, B, and C should all be part of the provided set of activities.
+	 * Returns whether the relation is redundant for the provided activities A
+	 * and C. The relation R is redundant for A and C if there is third activity B
+	 * such that (A,C) in R, (A,B) in R, and (B,C) in R. The activities B and C
+	 * should both be part of the provided set of activities.
 	 * 
 	 * @param activity
 	 *            The activity A
+	 * @param activity2
+	 *            The activity C
 	 * @param relation
 	 *            The relation R
-	 * @param activities
-	 *            The provided activities (to take into account).
-	 * @return The set of possible activities C.
+	 * @param selectedIds
+	 *            The ids of the provided activities (to take into account).
+	 * @return Whether the relation is redundant for A and C.
 	 */
-	private Set<String> getRedundant(String activity, Map<String, ThresholdSet> relation,
-			Collection<String> activities) {
-		Set<String> redundantActivities = new HashSet<String>();
-		for (String activity2 : relation.get(activity)) {
-			if (activities.contains(activity2)) {
-				for (String activity3 : relation.get(activity2)) {
-					if (activities.contains(activity3)) {
-						if (relation.get(activity).contains(activity3)
-						/* && !relation.get(activity3).contains(activity2) */) {
-							redundantActivities.add(activity3);
+	private boolean isRedundant(String activity, String activity2, List<ThresholdSet> relation,
+			BitSet selectedIds) {
+		/*
+		 * The (not) precedence relations depend on the precedence threshold, the
+		 * (not) response relations on the response threshold.
+		 */
+		int threshold = relation == precedences || relation == notPrecedences ? precedenceThreshold
+				: responseThreshold;
+		List<View<long[][]>> views = reductionViews.get(relation);
+		if (views == null) {
+			views = new ArrayList<View<long[][]>>();
+			reductionViews.put(relation, views);
+		}
+		View<long[][]> view = getView(views, selectedIds, threshold);
+		if (view == null) {
+			view = putView(views, new View<long[][]>(getRedundant(relation, selectedIds),
+					(BitSet) selectedIds.clone(), threshold));
+		}
+		long[][] redundant = view.value;
+		int id = countModel.getDictionary().getId(activity);
+		int id2 = countModel.getDictionary().getId(activity2);
+		return id >= 0 && id < redundant.length && redundant[id] != null && id2 >= 0
+				&& (id2 >>> 6) < redundant[id].length && (redundant[id][id2 >>> 6] & (1L << id2)) != 0;
+	}
+
+	/*
+	 * Returns the transitive reduction of the provided relation, restricted to
+	 * the provided selected activity ids. If redundant[a] has bit c set, then
+	 * the relation is redundant for a and c (see isRedundant). The reduction
+	 * is computed for all activities at once, on rows of words: the row for a
+	 * is the union of the selected rows of the selected activities related to
+	 * a, restricted to the row of a.
+	 */
+	private long[][] getRedundant(List<ThresholdSet> relation, BitSet selectedActivities) {
+		int nofWords = (countModel.getDictionary().size() + 63) / 64;
+		long[] selectedWords = Arrays.copyOf(selectedActivities.toLongArray(), nofWords);
+		long[][] rows = new long[relation.size()][];
+		long[][] selectedRows = new long[relation.size()][];
+		for (int activity = 0; activity < relation.size(); activity++) {
+			ThresholdSet relatedActivities = get(relation, activity);
+			if (relatedActivities != null) {
+				rows[activity] = Arrays.copyOf(relatedActivities.getMembers().toLongArray(), nofWords);
+				selectedRows[activity] = new long[nofWords];
+				for (int word = 0; word < nofWords; word++) {
+					selectedRows[activity][word] = rows[activity][word] & selectedWords[word];
+				}
+			}
+		}
+		long[][] redundant = new long[relation.size()][];
+		for (int activity = 0; activity < relation.size(); activity++) {
+			if (rows[activity] == null) {
+				continue;
+			}
+			redundant[activity] = new long[nofWords];
+			for (int word = 0; word < nofWords; word++) {
+				long bits = selectedRows[activity][word];
+				while (bits != 0) {
+					int activity2 = 64 * word + Long.numberOfTrailingZeros(bits);
+					if (activity2 < selectedRows.length && selectedRows[activity2] != null) {
+						for (int word2 = 0; word2 < nofWords; word2++) {
+							redundant[activity][word2] |= selectedRows[activity2][word2];
 						}
 					}
+					bits &= bits - 1;
 				}
 			}
+			for (int word = 0; word < nofWords; word++) {
+				redundant[activity][word] &= rows[activity][word];
+			}
 		}
-//		if (relation == notResponses) {
-//			for (String activity2 : precedences.get(activity)) {
-//				if (activities.contains(activity2)) {
-//					for (String activity3 : relation.get(activity2)) {
-//						if (activities.contains(activity3)) {
-//							if (relation.get(activity).contains(activity3)
-//							/* && !relation.get(activity3).contains(activity2) */) {
-//								redundantActivities.add(activity3);
-//							}
-//						}
-//					}
-//				}
-//			}
-//		}
-//		if (relation == notPrecedences) {
-//			for (String activity2 : responses.get(activity)) {
-//				if (activities.contains(activity2)) {
-//					for (String activity3 : relation.get(activity2)) {
-//						if (activities.contains(activity3)) {
-//							if (relation.get(activity).contains(activity3)
-//							/* && !relation.get(activity3).contains(activity2) */) {
-//								redundantActivities.add(activity3);
-//							}
-//						}
-//					}
-//				}
-//			}
-//		}
-		return redundantActivities;
+		return redundant;
 	}
 
 	/**
@@ -456,89 +714,42 @@ public class LogSkeleton implements HTMLToString {
 	 *         first violation is returned, or all violations.
 	 */
 	private Collection<Violation> checkCausalDependencies(XTrace trace, CheckerConfiguration configuration) {
-		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
-		List<String> postset = new ArrayList<String>();
-		postset.add(LogSkeletonCount.STARTEVENT);
+		CompiledLogSkeleton compiledLogSkeleton = compile();
 		Set<Violation> violations = new HashSet<Violation>();
-		for (XEvent event : trace) {
-			postset.add(classifier.getClassIdentity(event));
-		}
-		postset.add(LogSkeletonCount.ENDEVENT);
-		List<String> preset = new ArrayList<String>();
-		String prevActivity = null;
-		while (!postset.isEmpty()) {
-			if (prevActivity != null) {
-				preset.add(prevActivity);
-			}
-			String activity = postset.remove(0);
-			/*
-			 * preset contains all activities that precede activity in the trace. postset
-			 * contains all activities that succeed activity in the trace.
-			 */
+		compiledLogSkeleton.checkCausalDependencies(trace,
+				compiledLogSkeleton.getIds(trace, new PrefixClassifier(configuration.getClassifier())),
+				configuration.isStopAtFirstViolation(), violations);
+		return violations;
+	}
 
-			/*
-			 * Check whether all precedences are in the preset.
-			 */
-			if (precedences.containsKey(activity) && !preset.containsAll(precedences.get(activity))) {
-				/*
-				 * Some precedences are not in the preset. Report them as violations.
-				 */
-				Set<String> missing = new HashSet<String>(precedences.get(activity));
-				missing.removeAll(preset);
-				violations.add(new ViolationPrecedence(trace, activity, missing));
-				if (configuration.isStopAtFirstViolation()) {
-					return violations;
-				}
-			}
-			/*
-			 * Check whether all responses are in the postset.
-			 */
-			if (responses.containsKey(activity) && !postset.containsAll(responses.get(activity))) {
-				/*
-				 * Some responses are not in the postset. Report them as violations.
-				 */
-				Set<String> missing = new HashSet<String>(responses.get(activity));
-				missing.removeAll(postset);
-				violations.add(new ViolationResponse(trace, activity, missing));
-				if (configuration.isStopAtFirstViolation()) {
-					return violations;
-				}
-			}
-			/*
-			 * Check whether no not-precedences are in the preset.
-			 */
-			Set<String> notPreset = new HashSet<String>(countModel.getActivities());
-			notPreset.removeAll(preset);
-			if (notPrecedences.containsKey(activity) && !notPreset.containsAll(notPrecedences.get(activity))) {
-				/*
-				 * Some not-precedences are in the preset. Report them as violations.
-				 */
-				Set<String> present = new HashSet<String>(notPrecedences.get(activity));
-				present.removeAll(notPreset);
-				violations.add(new ViolationNotPrecedence(trace, activity, present));
-				if (configuration.isStopAtFirstViolation()) {
-					return violations;
-				}
-			}
-			/*
-			 * Check whether no not-responses are in the postset.
-			 */
-			Set<String> notPostset = new HashSet<String>(countModel.getActivities());
-			notPostset.removeAll(postset);
-			if (notResponses.containsKey(activity) && !notPostset.containsAll(notResponses.get(activity))) {
-				/*
-				 * Some not-responses are in the postset. Report them as violations.
-				 */
-				Set<String> present = new HashSet<String>(notResponses.get(activity));
-				present.removeAll(notPostset);
-				violations.add(new ViolationNotResponse(trace, activity, present));
-				if (configuration.isStopAtFirstViolation()) {
-					return violations;
-				}
+	/**
+	 * Returns this log skeleton compiled at the current thresholds. The
+	 * compiled log skeleton is kept until this log skeleton changes.
+	 * 
+	 * @return The compiled log skeleton.
+	 */
+	public CompiledLogSkeleton compile() {
+		if (compiled == null) {
+			compiled = new CompiledLogSkeleton(countModel, getMasks(precedences), getMasks(responses),
+					getMasks(notPrecedences), getMasks(notResponses), getMasks(notCoExistences),
+					equivalenceClasses.get(100 - equivalenceThreshold));
+		}
+		return compiled;
+	}
+
+	/*
+	 * Returns the members of the provided relation as bitmasks, indexed by
+	 * activity id. Activities without members get null.
+	 */
+	private long[][] getMasks(List<ThresholdSet> relation) {
+		long[][] masks = new long[countModel.getDictionary().size()][];
+		for (int activity = 0; activity < masks.length; activity++) {
+			ThresholdSet set = get(relation, activity);
+			if (set != null && !set.getMembers().isEmpty()) {
+				masks[activity] = set.getMembers().toLongArray();
 			}
-			prevActivity = activity;
 		}
-		return violations;
+		return masks;
 	}
 
 	/**
@@ -618,16 +829,16 @@ public class LogSkeleton implements HTMLToString {
 				}
 			}
 			// Precedence
-			sorted = new ArrayList<String>(precedences.get(activity));
+			sorted = new ArrayList<String>(get(precedences, activity));
 			Collections.sort(sorted);
 			buf.append("<td>" + sorted + "</td>");
 			// Response
-			sorted = new ArrayList<String>(responses.get(activity));
+			sorted = new ArrayList<String>(get(responses, activity));
 			Collections.sort(sorted);
 			buf.append("<td>" + sorted + "</td>");
 			// Not co-occurrence
 			sorted = new ArrayList<String>(countModel.getActivities());
-			sorted.removeAll(notCoExistences.get(activity));
+			sorted.removeAll(get(notCoExistences, activity));
 			Collections.sort(sorted);
 			buf.append("<td>" + sorted + "</td>");
 		}
@@ -658,27 +869,55 @@ public class LogSkeleton implements HTMLToString {
 	 * should be shown.
 	 */
 	public boolean showNotCoExistence(String fromActivity, String toActivity, Collection<String> selectedActivities) {
-		for (String activity : precedences.get(fromActivity)) {
-			if (selectedActivities.contains(activity)) {
-				if (notCoExistences.get(activity).contains(toActivity)) {
-					return false;
-				}
-				if (notCoExistences.get(toActivity).contains(activity)) {
-					return false;
-				}
+		return showNotCoExistence(fromActivity, toActivity, getIds(selectedActivities));
+	}
+
+	/*
+	 * Returns whether the Not Co-Existence relation from fromActivity to toActivity
+	 * should be shown, where the selected activities are provided by their ids.
+	 */
+	public boolean showNotCoExistence(String fromActivity, String toActivity, BitSet selectedIds) {
+		View<BitSet[][]> view = getView(notCoExistenceViews, selectedIds, precedenceThreshold,
+				notCoExistenceThreshold);
+		if (view == null) {
+			int nofActivities = countModel.getDictionary().size();
+			BitSet[] selectedPrecedences = new BitSet[nofActivities];
+			BitSet[] conflicts = new BitSet[nofActivities];
+			for (int activity = 0; activity < nofActivities; activity++) {
+				conflicts[activity] = new BitSet();
 			}
-		}
-		for (String activity : precedences.get(toActivity)) {
-			if (selectedActivities.contains(activity)) {
-				if (notCoExistences.get(activity).contains(fromActivity)) {
-					return false;
+			for (int activity = 0; activity < nofActivities; activity++) {
+				if (get(precedences, activity) != null) {
+					selectedPrecedences[activity] = (BitSet) get(precedences, activity).getMembers().clone();
+					selectedPrecedences[activity].and(selectedIds);
 				}
-				if (notCoExistences.get(fromActivity).contains(activity)) {
-					return false;
+				if (get(notCoExistences, activity) != null) {
+					BitSet notCoExistenceIds = get(notCoExistences, activity).getMembers();
+					conflicts[activity].or(notCoExistenceIds);
+					for (int activity2 = notCoExistenceIds.nextSetBit(0); activity2 >= 0; activity2 = notCoExistenceIds
+							.nextSetBit(activity2 + 1)) {
+						conflicts[activity2].set(activity);
+					}
 				}
 			}
+			view = putView(notCoExistenceViews, new View<BitSet[][]>(
+					new BitSet[][] { selectedPrecedences, conflicts }, (BitSet) selectedIds.clone(),
+					precedenceThreshold, notCoExistenceThreshold));
+		}
+		BitSet[] selectedPrecedences = view.value[0];
+		BitSet[] conflicts = view.value[1];
+		int fromId = countModel.getDictionary().getId(fromActivity);
+		int toId = countModel.getDictionary().getId(toActivity);
+		if (fromId < 0 || toId < 0 || fromId >= selectedPrecedences.length || toId >= selectedPrecedences.length) {
+			return true;
 		}
-		return true;
+		/*
+		 * Do not show the relation if a selected activity that precedes one
+		 * activity is not-co-existent with the other activity, in either
+		 * direction.
+		 */
+		return !(selectedPrecedences[fromId] != null && selectedPrecedences[fromId].intersects(conflicts[toId]))
+				&& !(selectedPrecedences[toId] != null && selectedPrecedences[toId].intersects(conflicts[fromId]));
 	}
 
 	/**
@@ -815,44 +1054,54 @@ public class LogSkeleton implements HTMLToString {
 			}
 		}
 		writer.write("precedence");
-		writer.write("" + precedences.size());
+		writer.write("" + getSize(precedences));
 		writer.endRecord();
-		for (String activity : precedences.keySet()) {
-			writer.write(activity);
-			precedences.get(activity).exportToFile(writer);
-			writer.endRecord();
+		for (int activity = 0; activity < precedences.size(); activity++) {
+			if (get(precedences, activity) != null) {
+				writer.write(countModel.getDictionary().getActivity(activity));
+				get(precedences, activity).exportToFile(writer);
+				writer.endRecord();
+			}
 		}
 		writer.write("response");
-		writer.write("" + responses.size());
+		writer.write("" + getSize(responses));
 		writer.endRecord();
-		for (String activity : responses.keySet()) {
-			writer.write(activity);
-			responses.get(activity).exportToFile(writer);
-			writer.endRecord();
+		for (int activity = 0; activity < responses.size(); activity++) {
+			if (get(responses, activity) != null) {
+				writer.write(countModel.getDictionary().getActivity(activity));
+				get(responses, activity).exportToFile(writer);
+				writer.endRecord();
+			}
 		}
 		writer.write("not precedence");
-		writer.write("" + notPrecedences.size());
+		writer.write("" + getSize(notPrecedences));
 		writer.endRecord();
-		for (String activity : notPrecedences.keySet()) {
-			writer.write(activity);
-			notPrecedences.get(activity).exportToFile(writer);
-			writer.endRecord();
+		for (int activity = 0; activity < notPrecedences.size(); activity++) {
+			if (get(notPrecedences, activity) != null) {
+				writer.write(countModel.getDictionary().getActivity(activity));
+				get(notPrecedences, activity).exportToFile(writer);
+				writer.endRecord();
+			}
 		}
 		writer.write("not response");
-		writer.write("" + notResponses.size());
+		writer.write("" + getSize(notResponses));
 		writer.endRecord();
-		for (String activity : notResponses.keySet()) {
-			writer.write(activity);
-			notResponses.get(activity).exportToFile(writer);
-			writer.endRecord();
+		for (int activity = 0; activity < notResponses.size(); activity++) {
+			if (get(notResponses, activity) != null) {
+				writer.write(countModel.getDictionary().getActivity(activity));
+				get(notResponses, activity).exportToFile(writer);
+				writer.endRecord();
+			}
 		}
 		writer.write("not co-occurrence");
-		writer.write("" + notCoExistences.size());
+		writer.write("" + getSize(notCoExistences));
 		writer.endRecord();
-		for (String activity : notCoExistences.keySet()) {
-			writer.write(activity);
-			notCoExistences.get(activity).exportToFile(writer);
-			writer.endRecord();
+		for (int activity = 0; activity < notCoExistences.size(); activity++) {
+			if (get(notCoExistences, activity) != null) {
+				writer.write(countModel.getDictionary().getActivity(activity));
+				get(notCoExistences, activity).exportToFile(writer);
+				writer.endRecord();
+			}
 		}
 		writer.write("required");
 		writer.write(required.isEmpty() ? "0" : "1");
@@ -892,7 +1141,21 @@ public class LogSkeleton implements HTMLToString {
 		writer.endRecord();
 	}
 
+	/*
+	 * Returns the number of activities in the provided relation.
+	 */
+	private int getSize(List<ThresholdSet> relation) {
+		int size = 0;
+		for (ThresholdSet set : relation) {
+			if (set != null) {
+				size++;
+			}
+		}
+		return size;
+	}
+
 	public void importFromStream(CsvReader reader) throws IOException {
+		invalidate();
 		if (reader.readRecord()) {
 			label = reader.get(0);
 		}
@@ -935,7 +1198,7 @@ public class LogSkeleton implements HTMLToString {
 				}
 			}
 		}
-		precedences = new HashMap<String, ThresholdSet>();
+		precedences = new ArrayList<ThresholdSet>();
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("always before")) {
 				int rows = Integer.valueOf(reader.get(1));
@@ -946,8 +1209,8 @@ public class LogSkeleton implements HTMLToString {
 						for (int column = 1; column < reader.getColumnCount(); column++) {
 							activities.add(reader.get(column));
 						}
-						precedences.put(activity, new ThresholdSet(countModel.getActivities(), precedenceThreshold));
-						precedences.get(activity).addAll(activities);
+						put(precedences, activity, createThresholdSet(precedenceThreshold));
+						get(precedences, activity).addAll(activities);
 					}
 				}
 			} else if (reader.get(0).equals("precedence")) {
@@ -955,13 +1218,13 @@ public class LogSkeleton implements HTMLToString {
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
 						String activity = reader.get(0);
-						precedences.put(activity, new ThresholdSet(countModel.getActivities(), precedenceThreshold));
-						precedences.get(activity).importFromFile(reader);
+						put(precedences, activity, createThresholdSet(precedenceThreshold));
+						get(precedences, activity).importFromFile(reader);
 					}
 				}
 			}
 		}
-		responses = new HashMap<String, ThresholdSet>();
+		responses = new ArrayList<ThresholdSet>();
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("always after")) {
 				int rows = Integer.valueOf(reader.get(1));
@@ -972,8 +1235,8 @@ public class LogSkeleton implements HTMLToString {
 						for (int column = 1; column < reader.getColumnCount(); column++) {
 							activities.add(reader.get(column));
 						}
-						responses.put(activity, new ThresholdSet(countModel.getActivities(), responseThreshold));
-						responses.get(activity).addAll(activities);
+						put(responses, activity, createThresholdSet(responseThreshold));
+						get(responses, activity).addAll(activities);
 					}
 				}
 			} else if (reader.get(0).equals("response")) {
@@ -981,34 +1244,34 @@ public class LogSkeleton implements HTMLToString {
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
 						String activity = reader.get(0);
-						responses.put(activity, new ThresholdSet(countModel.getActivities(), responseThreshold));
-						responses.get(activity).importFromFile(reader);
+						put(responses, activity, createThresholdSet(responseThreshold));
+						get(responses, activity).importFromFile(reader);
 					}
 				}
 			}
 		}
-		notPrecedences = new HashMap<String, ThresholdSet>();
+		notPrecedences = new ArrayList<ThresholdSet>();
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("not precedence")) {
 				int rows = Integer.valueOf(reader.get(1));
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
 						String activity = reader.get(0);
-						notPrecedences.put(activity, new ThresholdSet(countModel.getActivities(), precedenceThreshold));
-						notPrecedences.get(activity).importFromFile(reader);
+						put(notPrecedences, activity, createThresholdSet(precedenceThreshold));
+						get(notPrecedences, activity).importFromFile(reader);
 					}
 				}
 			}
 		}
-		notResponses = new HashMap<String, ThresholdSet>();
+		notResponses = new ArrayList<ThresholdSet>();
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("not response")) {
 				int rows = Integer.valueOf(reader.get(1));
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
 						String activity = reader.get(0);
-						notResponses.put(activity, new ThresholdSet(countModel.getActivities(), responseThreshold));
-						notResponses.get(activity).importFromFile(reader);
+						put(notResponses, activity, createThresholdSet(responseThreshold));
+						get(notResponses, activity).importFromFile(reader);
 					}
 				}
 			}
@@ -1043,7 +1306,7 @@ public class LogSkeleton implements HTMLToString {
 						}
 					}
 				}
-				notCoExistences = new HashMap<String, ThresholdSet>();
+				notCoExistences = new ArrayList<ThresholdSet>();
 				for (String activity : countModel.getActivities()) {
 					Set<String> prepostset = new HashSet<String>();
 					if (anyPresets.containsKey(activity)) {
@@ -1052,19 +1315,17 @@ public class LogSkeleton implements HTMLToString {
 					if (anyPostsets.containsKey(activity)) {
 						prepostset.addAll(anyPostsets.get(activity));
 					}
-					notCoExistences.put(activity,
-							new ThresholdSet(countModel.getActivities(), notCoExistenceThreshold));
-					notCoExistences.get(activity).addAll(countModel.getActivities());
-					notCoExistences.get(activity).removeAll(prepostset);
+					put(notCoExistences, activity, createThresholdSet(notCoExistenceThreshold));
+					get(notCoExistences, activity).addAll(countModel.getActivities());
+					get(notCoExistences, activity).removeAll(prepostset);
 				}
 			} else if (reader.get(0).equals("not co-occurrence")) {
 				int rows = Integer.valueOf(reader.get(1));
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
 						String activity = reader.get(0);
-						notCoExistences.put(activity,
-								new ThresholdSet(countModel.getActivities(), notCoExistenceThreshold));
-						notCoExistences.get(activity).importFromFile(reader);
+						put(notCoExistences, activity, createThresholdSet(notCoExistenceThreshold));
+						get(notCoExistences, activity).importFromFile(reader);
 					}
 				}
 			}
@@ -1135,15 +1396,20 @@ public class LogSkeleton implements HTMLToString {
 	 */
 	public void setPrecedenceThreshold(int precedenceThreshold) {
 		this.precedenceThreshold = precedenceThreshold;
+		compiled = null;
 		/*
 		 * Copy the threshold into all (not) precedence relations. This threshold may
 		 * affect whether contains returns true or false.
 		 */
-		for (String activity : precedences.keySet()) {
-			precedences.get(activity).setThreshold(precedenceThreshold);
+		for (ThresholdSet set : precedences) {
+			if (set != null) {
+				set.setThreshold(precedenceThreshold);
+			}
 		}
-		for (String activity : notPrecedences.keySet()) {
-			notPrecedences.get(activity).setThreshold(precedenceThreshold);
+		for (ThresholdSet set : notPrecedences) {
+			if (set != null) {
+				set.setThreshold(precedenceThreshold);
+			}
 		}
 	}
 
@@ -1159,15 +1425,20 @@ public class LogSkeleton implements HTMLToString {
 	 */
 	public void setResponseThreshold(int responseThreshold) {
 		this.responseThreshold = responseThreshold;
+		compiled = null;
 		/*
 		 * Copy the threshold into all (not) response relations. This threshold may
 		 * affect whether contains returns true or false.
 		 */
-		for (String activity : responses.keySet()) {
-			responses.get(activity).setThreshold(responseThreshold);
+		for (ThresholdSet set : responses) {
+			if (set != null) {
+				set.setThreshold(responseThreshold);
+			}
 		}
-		for (String activity : notResponses.keySet()) {
-			notResponses.get(activity).setThreshold(responseThreshold);
+		for (ThresholdSet set : notResponses) {
+			if (set != null) {
+				set.setThreshold(responseThreshold);
+			}
 		}
 	}
 
@@ -1183,12 +1454,15 @@ public class LogSkeleton implements HTMLToString {
 	 */
 	public void setNotCoExistenceThreshold(int notCoOccurencethreshold) {
 		this.notCoExistenceThreshold = notCoOccurencethreshold;
+		compiled = null;
 		/*
 		 * Copy the threshold into all Not Co-Existence relations. This threshold may
 		 * affect whether contains returns true or false.
 		 */
-		for (String activity : notCoExistences.keySet()) {
-			notCoExistences.get(activity).setThreshold(notCoOccurencethreshold);
+		for (ThresholdSet set : notCoExistences) {
+			if (set != null) {
+				set.setThreshold(notCoOccurencethreshold);
+			}
 		}
 	}
 
@@ -1206,6 +1480,20 @@ public class LogSkeleton implements HTMLToString {
 	 * @return Whether the number of Not Co-Existence relation exceeds 100.
 	 */
 	public boolean hasManyNotCoExistenceArcs(boolean isUseEquivalenceClass) {
+		if (!isValid(manyNotCoExistenceArcsView, null, equivalenceThreshold, notCoExistenceThreshold,
+				isUseEquivalenceClass ? 1 : 0)) {
+			manyNotCoExistenceArcsView = new View<Boolean>(countNotCoExistenceArcs(isUseEquivalenceClass) > 100, null,
+					equivalenceThreshold, notCoExistenceThreshold, isUseEquivalenceClass ? 1 : 0);
+		}
+		/*
+		 * Return whether there are too many Not Co-Existence constraints to show by
+		 * default. THe first visualization should be reasonably fast. In case of too
+		 * many Not Co-Existence constraints, this first visualization takes ages.
+		 */
+		return manyNotCoExistenceArcsView.value;
+	}
+
+	private int countNotCoExistenceArcs(boolean isUseEquivalenceClass) {
 		int nr = 0;
 		for (String fromActivity : countModel.getActivities()) {
 			for (String toActivity : countModel.getActivities()) {
@@ -1215,18 +1503,13 @@ public class LogSkeleton implements HTMLToString {
 									|| fromActivity.equals(getEquivalenceClass(fromActivity).iterator().next()))
 							&& (!isUseEquivalenceClass
 									|| toActivity.equals(getEquivalenceClass(toActivity).iterator().next()))
-							&& notCoExistences.get(fromActivity).contains(toActivity)) {
+							&& get(notCoExistences, fromActivity).contains(toActivity)) {
 						nr++;
 					}
 				}
 			}
 		}
-		/*
-		 * Return whether there are too many Not Co-Existence constraints to show by
-		 * default. THe first visualization should be reasonably fast. In case of too
-		 * many Not Co-Existence constraints, this first visualization takes ages.
-		 */
-		return nr > 100;
+		return nr;
 	}
 
 	/**
@@ -1237,6 +1520,7 @@ public class LogSkeleton implements HTMLToString {
 	 */
 	public void setEquivalenceThreshold(int equivalenceThreshold) {
 		this.equivalenceThreshold = equivalenceThreshold;
+		compiled = null;
 	}
 
 	public int getEquivalenceThreshold() {
@@ -1249,45 +1533,66 @@ public class LogSkeleton implements HTMLToString {
 
 	public boolean hasNonRedundantResponse(String fromActivity, String toActivity,
 			Collection<String> activities) {
-		return responses.get(fromActivity).contains(toActivity)
-				&& !getRedundant(fromActivity, responses, activities).contains(toActivity);
+		return hasNonRedundantResponse(fromActivity, toActivity, getIds(activities));
+	}
+
+	public boolean hasNonRedundantResponse(String fromActivity, String toActivity, BitSet selectedIds) {
+		return get(responses, fromActivity).contains(toActivity)
+				&& !isRedundant(fromActivity, toActivity, responses, selectedIds);
 	}
 
 	public boolean hasNonRedundantPrecedence(String fromActivity, String toActivity,
 			Collection<String> activities) {
-		return precedences.get(toActivity).contains(fromActivity)
-				&& !getRedundant(toActivity, precedences, activities).contains(fromActivity);
+		return hasNonRedundantPrecedence(fromActivity, toActivity, getIds(activities));
+	}
+
+	public boolean hasNonRedundantPrecedence(String fromActivity, String toActivity, BitSet selectedIds) {
+		return get(precedences, toActivity).contains(fromActivity)
+				&& !isRedundant(toActivity, fromActivity, precedences, selectedIds);
 	}
 
 	public boolean hasNonRedundantNotResponse(String fromActivity, String toActivity,
 			Collection<String> activities) {
-		return notResponses.get(toActivity).contains(fromActivity)
-				&& !getRedundant(toActivity, notResponses, activities).contains(fromActivity);
+		return hasNonRedundantNotResponse(fromActivity, toActivity, getIds(activities));
+	}
+
+	public boolean hasNonRedundantNotResponse(String fromActivity, String toActivity, BitSet selectedIds) {
+		return get(notResponses, toActivity).contains(fromActivity)
+				&& !isRedundant(toActivity, fromActivity, notResponses, selectedIds);
 	}
 
 	public boolean hasNonRedundantNotPrecedence(String fromActivity, String toActivity,
 			Collection<String> activities) {
-		return notPrecedences.get(fromActivity).contains(toActivity)
-				&& !getRedundant(fromActivity, notPrecedences, activities).contains(toActivity);
+		return hasNonRedundantNotPrecedence(fromActivity, toActivity, getIds(activities));
+	}
+
+	public boolean hasNonRedundantNotPrecedence(String fromActivity, String toActivity, BitSet selectedIds) {
+		return get(notPrecedences, fromActivity).contains(toActivity)
+				&& !isRedundant(fromActivity, toActivity, notPrecedences, selectedIds);
 	}
 
 	public boolean hasNotResponse(String fromActivity, String toActivity) {
-		return notResponses.get(toActivity).contains(fromActivity);
+		return get(notResponses, toActivity).contains(fromActivity);
 	}
 
 	public boolean hasNotPrecedence(String fromActivity, String toActivity) {
-		return notPrecedences.get(fromActivity).contains(toActivity);
+		return get(notPrecedences, fromActivity).contains(toActivity);
 	}
 
 	public boolean hasNonRedundantNotCoExistence(String fromActivity, String toActivity, Collection<String> activities,
 			BrowserConfiguration configuration) {
+		return hasNonRedundantNotCoExistence(fromActivity, toActivity, getIds(activities), configuration);
+	}
+
+	public boolean hasNonRedundantNotCoExistence(String fromActivity, String toActivity, BitSet selectedIds,
+			BrowserConfiguration configuration) {
 		if (fromActivity.equals(toActivity)) {
 			/*
 			 * An activity cannot be not-co-existent with itself.
 			 */
 			return false;
 		}
-		if (!notCoExistences.get(fromActivity).contains(toActivity)) {
+		if (!get(notCoExistences, fromActivity).contains(toActivity)) {
 			/*
 			 * No Not Co-Existent relation at all.
 			 */
@@ -1302,15 +1607,15 @@ public class LogSkeleton implements HTMLToString {
 			 * Show relation if between representatives.
 			 */
 			b = b || (fromActivity
-					.equals(getEquivalenceClass(fromActivity, activities).iterator().next())
+					.equals(getEquivalenceClass(fromActivity, selectedIds).iterator().next())
 					&& toActivity
-							.equals(getEquivalenceClass(toActivity, activities).iterator().next()));
+							.equals(getEquivalenceClass(toActivity, selectedIds).iterator().next()));
 		}
 		if (configuration.isUseNCEReductions()) {
 			/*
 			 * Show relation if both activities have no preceding activity with a similar Not Co-Existence relation.
 			 */
-			b = b || showNotCoExistence(fromActivity, toActivity, activities);
+			b = b || showNotCoExistence(fromActivity, toActivity, selectedIds);
 		}
 		return b;
 	}
@@ -1328,23 +1633,23 @@ public class LogSkeleton implements HTMLToString {
 	}
 
 	public int getMaxThresholdResponse(String fromActivity, String toActivity) {
-		return responses.get(fromActivity).getMaxThreshold(toActivity);
+		return get(responses, fromActivity).getMaxThreshold(toActivity);
 	}
 
 	public int getMaxThresholdPrecedence(String fromActivity, String toActivity) {
-		return precedences.get(toActivity).getMaxThreshold(fromActivity);
+		return get(precedences, toActivity).getMaxThreshold(fromActivity);
 	}
 
 	public int getMaxThresholdNotResponse(String fromActivity, String toActivity) {
-		return notResponses.get(toActivity).getMaxThreshold(fromActivity);
+		return get(notResponses, toActivity).getMaxThreshold(fromActivity);
 	}
 
 	public int getMaxThresholdNotPrecedence(String fromActivity, String toActivity) {
-		return notPrecedences.get(fromActivity).getMaxThreshold(toActivity);
+		return get(notPrecedences, fromActivity).getMaxThreshold(toActivity);
 	}
 
 	public int getMaxThresholdNotCoExistence(String fromActivity, String toActivity) {
-		return notCoExistences.get(toActivity).getMaxThreshold(fromActivity);
+		return get(notCoExistences, toActivity).getMaxThreshold(fromActivity);
 	}
 
 	public Set<String> getRequired() {
@@ -1366,4 +1671,79 @@ public class LogSkeleton implements HTMLToString {
 	public int getHorizon() {
 		return horizon;
 	}
+
+	/*
+	 * Drops the compiled log skeleton and all views, as the relations have
+	 * changed.
+	 */
+	private void invalidate() {
+		compiled = null;
+		equivalenceView = null;
+		selectedEquivalenceViews.clear();
+		reductionViews.clear();
+		notCoExistenceViews.clear();
+		manyNotCoExistenceArcsView = null;
+	}
+
+	/*
+	 * Returns whether the provided view was derived for the provided selected
+	 * activity ids (null if not restricted to selected activities) and the
+	 * provided thresholds. A view keeps its own copy of the selected ids, so
+	 * comparing them takes a word per 64 activities, and a caller that
+	 * changes its ids afterwards does not change the view.
+	 */
+	private boolean isValid(View<?> view, BitSet selectedIds, int... thresholds) {
+		if (view == null || !Arrays.equals(view.thresholds, thresholds)) {
+			return false;
+		}
+		return selectedIds == null || selectedIds.equals(view.selectedIds);
+	}
+
+	/*
+	 * Returns the view in the provided views that was derived for the provided
+	 * selected activity ids and the provided thresholds, or null if none. The
+	 * returned view becomes the most recent one.
+	 */
+	private <T> View<T> getView(List<View<T>> views, BitSet selectedIds, int... thresholds) {
+		for (int i = 0; i < views.size(); i++) {
+			View<T> view = views.get(i);
+			if (isValid(view, selectedIds, thresholds)) {
+				if (i > 0) {
+					views.remove(i);
+					views.add(0, view);
+				}
+				return view;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Adds the provided view to the provided views as the most recent one, and
+	 * drops the least recent one if more than MAXVIEWS views are kept.
+	 */
+	private <T> View<T> putView(List<View<T>> views, View<T> view) {
+		views.add(0, view);
+		if (views.size() > MAXVIEWS) {
+			views.remove(views.size() - 1);
+		}
+		return view;
+	}
+
+	/*
+	 * A view derived from the relations, together with the thresholds and the
+	 * selected activity ids it was derived for.
+	 */
+	private static class View<T> {
+
+		private final T value;
+		private final int[] thresholds;
+		private final BitSet selectedIds;
+
+		public View(T value, BitSet selectedIds, int... thresholds) {
+			this.value = value;
+			this.thresholds = thresholds;
+			this.selectedIds = selectedIds;
+		}
+	}
 }
@@ -2,12 +2,13 @@ package org.processmining.logskeleton.models;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import org.deckfour.xes.model.XTrace;
 import org.processmining.logskeleton.configurations.CheckerConfiguration;
@@ -24,52 +25,128 @@ public class LogSkeletonCount {
 	public final static String STARTEVENT = "\u25BA"; // "|>"; // "\u25BA";
 	public final static String ENDEVENT = "\u25A0"; // "[]"; // "\u25A0"; // "\u25FC";
 
+	/*
+	 * Maps the activities onto ids and back. All counts below are indexed by
+	 * these ids.
+	 */
+	private ActivityDictionary dictionary;
+
+	/*
+	 * The ids of the activities that have been counted. If
+	 * activities.get(a), then activity a has a count, which may be 0.
+	 */
+	private BitSet activities;
+
 	/*
 	 * Counts how many times an activity occurred in the entire log. If
-	 * activityCounts.get(a) == 4, then activity a occurred 4 times in the log.
+	 * activityCounts[a] == 4, then activity a occurred 4 times in the log.
 	 */
-	private Map<String, Integer> activityCounts;
+	private int[] activityCounts;
 
 	/*
 	 * Counts the minimal number of times an activity occurs in any trace. If
-	 * activityMinCounts.get(a) == 1, then a occurs at least once in every trace
-	 * in the log.
+	 * activityMinCounts[a] == 1, then a occurs at least once in every trace in
+	 * the log.
 	 */
-	private Map<String, Integer> activityMinCounts;
+	private int[] activityMinCounts;
 
 	/*
 	 * Counts the maximal number of times an activity occurs in any trace. If
-	 * activityMinCounts.get(a) == 2, then a occurs at most twice in every trace
-	 * in the log.
+	 * activityMaxCounts[a] == 2, then a occurs at most twice in every trace in
+	 * the log.
+	 */
+	private int[] activityMaxCounts;
+
+	/*
+	 * The ids of the activities that have a minimal and maximal count. These
+	 * are the activities that occurred in some completed trace.
+	 */
+	private BitSet tracedActivities;
+
+	/*
+	 * Counts the activities of the current trace. Traces are numbered from 1,
+	 * and generation is the number of the current trace. If
+	 * traceGenerations[a] == generation, then activity a occurred
+	 * traceCounts[a] times in the current trace. Otherwise, traceGenerations[a]
+	 * is the number of the last trace in which a occurred (0 if none), and
+	 * traceCounts[a] is stale. The first nofTraceIds entries of traceIds are
+	 * the ids of the activities that occurred in the current trace.
+	 *
+	 * The minimal counts are updated lazily: if a traced activity a did not
+	 * occur in the last completed trace, then traceGenerations[a] < generation
+	 * - 1, and its minimal count is 0 (see getMinCount).
+	 */
+	private int generation;
+	private int[] traceGenerations;
+	private int[] traceCounts;
+	private int[] traceIds;
+	private int nofTraceIds;
+
+	/*
+	 * The directly follows relation. If ab is the transition from a to b (see
+	 * getTransition), and if transitionCounts.get(ab) == 5, then a was 5 times
+	 * directly followed by b in the log.
 	 */
-	private Map<String, Integer> activityMaxCounts;
+	private TransitionTable transitionCounts;
 
 	/*
-	 * The directly follows relation. If ab is a list containing first a and
-	 * then b, and if transitionCounts.get(ab) == 5, then a was 5 times directly
-	 * followed by b in the log. Note that the lists (like ab) have always
-	 * length 2.
+	 * Indexes on the directly follows relation. If successors[a].get(b), then
+	 * a was directly followed by b in the log, and predecessors[b].get(a).
+	 * Entries are null for activities without transitions.
 	 */
-	private Map<List<String>, Integer> transitionCounts;
+	private BitSet[] successors;
+	private BitSet[] predecessors;
+
+	/*
+	 * The sorted activities that have been counted. Cached, as it is requested
+	 * very often.
+	 */
+	private List<String> sortedActivities;
 
 	public LogSkeletonCount() {
-		activityCounts = new HashMap<String, Integer>();
-		activityMinCounts = new HashMap<String, Integer>();
-		activityMaxCounts = new HashMap<String, Integer>();
-		transitionCounts = new HashMap<List<String>, Integer>();
+		this(new ActivityDictionary());
+	}
+
+	public LogSkeletonCount(ActivityDictionary dictionary) {
+		this.dictionary = dictionary;
+		activities = new BitSet();
+		activityCounts = new int[dictionary.size()];
+		activityMinCounts = new int[dictionary.size()];
+		activityMaxCounts = new int[dictionary.size()];
+		tracedActivities = new BitSet();
+		initTraceCounts();
+		transitionCounts = new TransitionTable();
+		successors = new BitSet[dictionary.size()];
+		predecessors = new BitSet[dictionary.size()];
+		sortedActivities = null;
+	}
+
+	private void initTraceCounts() {
+		generation = 1;
+		traceGenerations = new int[activityCounts.length];
+		traceCounts = new int[activityCounts.length];
+		traceIds = new int[activityCounts.length];
+		nofTraceIds = 0;
 	}
 
 	public Collection<Violation> checkTransitionCounts(LogSkeletonCount model, CheckerConfiguration configuration,
 			XTrace trace) {
 		Collection<Violation> violations = new HashSet<Violation>();
-		for (List<String> transition : model.transitionCounts.keySet()) {
-			if (!transitionCounts.keySet().contains(transition)) {
-				violations.add(new ViolationCardinality(trace, new HashSet<String>(transition)));
+		for (long modelTransition : model.transitionCounts.getTransitions()) {
+			/*
+			 * The provided model may use different ids for the activities.
+			 */
+			String fromActivity = model.dictionary.getActivity(getFrom(modelTransition));
+			String toActivity = model.dictionary.getActivity(getTo(modelTransition));
+			long transition = model.dictionary == dictionary ? modelTransition
+					: getTransition(dictionary.getId(fromActivity), dictionary.getId(toActivity));
+			if (!transitionCounts.containsKey(transition)) {
+				violations.add(new ViolationCardinality(trace, getTransition(fromActivity, toActivity)));
 				if (configuration.isStopAtFirstViolation()) {
 					return violations;
 				}
-			} else if (transitionCounts.get(transition) < model.transitionCounts.get(transition)) {
-				violations.add(new ViolationCardinality(trace, new HashSet<String>(transition)));
+			} else if (transitionCounts.get(transition) < model.transitionCounts.get(modelTransition)) {
+				violations.add(new ViolationCardinality(trace, getTransition(fromActivity, toActivity)));
 				if (configuration.isStopAtFirstViolation()) {
 					return violations;
 				}
@@ -78,119 +155,377 @@ public class LogSkeletonCount {
 		return violations;
 	}
 
+	/**
+	 * Returns the dictionary used by this count.
+	 * 
+	 * @return The dictionary used by this count.
+	 */
+	public ActivityDictionary getDictionary() {
+		return dictionary;
+	}
+
 	public Integer get(String activity) {
-		return activityCounts.containsKey(activity) ? activityCounts.get(activity) : 0;
+		int id = dictionary.getId(activity);
+		return id >= 0 && activities.get(id) ? activityCounts[id] : 0;
 	}
 
 	public Integer getMin(String activity) {
-		return activityMinCounts.containsKey(activity) ? activityMinCounts.get(activity) : 0;
+		int id = dictionary.getId(activity);
+		return id >= 0 && tracedActivities.get(id) ? getMinCount(id) : 0;
 	}
 
 	public Integer getMax(String activity) {
-		return activityMaxCounts.containsKey(activity) ? activityMaxCounts.get(activity) : 0;
+		int id = dictionary.getId(activity);
+		return id >= 0 && tracedActivities.get(id) ? activityMaxCounts[id] : 0;
 	}
 
 	public Integer get(String fromActivity, String toActivity) {
-		List<String> transition = getTransition(fromActivity, toActivity);
-		return transitionCounts.containsKey(transition) ? transitionCounts.get(transition) : 0;
+		long transition = getTransition(dictionary.getId(fromActivity), dictionary.getId(toActivity));
+		return transitionCounts.get(transition);
 	}
 
 	public Collection<String> getTo(String fromActivity) {
-		Collection<String> toActivities = new HashSet<String>();
-		for (List<String> transition : transitionCounts.keySet()) {
-			if (transition.get(0).equals(fromActivity)) {
-				toActivities.add(transition.get(1));
-			}
-		}
-		return toActivities;
+		return getActivities(successors, dictionary.getId(fromActivity));
 	}
 
 	public Collection<String> getFrom(String toActivity) {
-		Collection<String> fromActivities = new HashSet<String>();
-		for (List<String> transition : transitionCounts.keySet()) {
-			if (transition.get(1).equals(toActivity)) {
-				fromActivities.add(transition.get(0));
+		return getActivities(predecessors, dictionary.getId(toActivity));
+	}
+
+	/*
+	 * Returns the activities in the provided index for the activity with the
+	 * provided id.
+	 */
+	private Collection<String> getActivities(BitSet[] index, int activity) {
+		Collection<String> indexedActivities = new HashSet<String>();
+		if (activity >= 0 && activity < index.length && index[activity] != null) {
+			for (int activity2 = index[activity].nextSetBit(0); activity2 >= 0; activity2 = index[activity]
+					.nextSetBit(activity2 + 1)) {
+				indexedActivities.add(dictionary.getActivity(activity2));
 			}
 		}
-		return fromActivities;
+		return indexedActivities;
 	}
 
 	public void add(String activity, Integer number) {
-		if (activityCounts.containsKey(activity)) {
-			activityCounts.put(activity, activityCounts.get(activity) + number);
-		} else {
-			activityCounts.put(activity, number);
+		add(dictionary.add(activity), number);
+	}
+
+	private void add(int activity, int number) {
+		if (activity >= activityCounts.length) {
+			int length = Math.max(activity + 1, 2 * activityCounts.length);
+			activityCounts = Arrays.copyOf(activityCounts, length);
+			activityMinCounts = Arrays.copyOf(activityMinCounts, length);
+			activityMaxCounts = Arrays.copyOf(activityMaxCounts, length);
+			traceGenerations = Arrays.copyOf(traceGenerations, length);
+			traceCounts = Arrays.copyOf(traceCounts, length);
 		}
+		if (!activities.get(activity)) {
+			activities.set(activity);
+			sortedActivities = null;
+		}
+		activityCounts[activity] += number;
 	}
 
 	public void add(String fromActivity, String toActivity, Integer number) {
-		List<String> transition = getTransition(fromActivity, toActivity);
-		if (transitionCounts.containsKey(transition)) {
-			transitionCounts.put(transition, transitionCounts.get(transition) + number);
-		} else {
-			transitionCounts.put(transition, number);
+		add(getTransition(dictionary.add(fromActivity), dictionary.add(toActivity)), number);
+	}
+
+	private void add(long transition, int number) {
+		if (!transitionCounts.containsKey(transition)) {
+			/*
+			 * New transition, add it to the indexes.
+			 */
+			successors = index(successors, getFrom(transition), getTo(transition));
+			predecessors = index(predecessors, getTo(transition), getFrom(transition));
 		}
+		transitionCounts.add(transition, number);
 	}
 
-	private Map<String, Integer> traceActivities = new HashMap<String, Integer>();
+	/*
+	 * Adds the second activity to the provided index for the first activity.
+	 * Returns the index, which may have been grown.
+	 */
+	private static BitSet[] index(BitSet[] index, int activity, int activity2) {
+		if (activity >= index.length) {
+			index = Arrays.copyOf(index, Math.max(activity + 1, 2 * index.length));
+		}
+		if (index[activity] == null) {
+			index[activity] = new BitSet();
+		}
+		index[activity].set(activity2);
+		return index;
+	}
 
-	private void updateMinMax() {
-		if (!activityMinCounts.isEmpty()) {
-			for (String activity : traceActivities.keySet()) {
-				if (!activityMinCounts.containsKey(activity)) {
-					activityMinCounts.put(activity, 0);
-				}
-			}
-			for (String activity : activityMinCounts.keySet()) {
-				if (!traceActivities.containsKey(activity)) {
-					activityMinCounts.put(activity, 0);
-				}
-			}
+	/*
+	 * Returns the minimal count of the provided activity, which should be a
+	 * traced activity.
+	 */
+	private int getMinCount(int activity) {
+		return traceGenerations[activity] < generation - 1 ? 0 : activityMinCounts[activity];
+	}
+
+	/*
+	 * Stores the minimal counts that are 0 because of traces in which the
+	 * activities did not occur.
+	 */
+	private void settleMinCounts() {
+		for (int activity = tracedActivities.nextSetBit(0); activity >= 0; activity = tracedActivities
+				.nextSetBit(activity + 1)) {
+			activityMinCounts[activity] = getMinCount(activity);
+			traceGenerations[activity] = Math.max(traceGenerations[activity], generation - 1);
 		}
-		for (String activity : traceActivities.keySet()) {
-			if (activityMinCounts.containsKey(activity)) {
-				activityMinCounts.put(activity,
-						Math.min(activityMinCounts.get(activity), traceActivities.get(activity)));
-			} else {
-				activityMinCounts.put(activity, traceActivities.get(activity));
-			}
-			if (activityMaxCounts.containsKey(activity)) {
-				activityMaxCounts.put(activity,
-						Math.max(activityMaxCounts.get(activity), traceActivities.get(activity)));
-			} else {
-				activityMaxCounts.put(activity, traceActivities.get(activity));
+	}
 
+	/*
+	 * Completes the current trace. Only the activities that occurred in it are
+	 * visited.
+	 */
+	private void updateMinMax() {
+		boolean hasTraces = !tracedActivities.isEmpty();
+		for (int i = 0; i < nofTraceIds; i++) {
+			int activity = traceIds[i];
+			int count = traceCounts[activity];
+			if (tracedActivities.get(activity)) {
+				activityMinCounts[activity] = Math.min(activityMinCounts[activity], count);
+				activityMaxCounts[activity] = Math.max(activityMaxCounts[activity], count);
+			} else {
+				/*
+				 * If there were traces before, then the activity did not occur
+				 * in these traces.
+				 */
+				activityMinCounts[activity] = hasTraces ? 0 : count;
+				activityMaxCounts[activity] = count;
+				tracedActivities.set(activity);
 			}
 		}
-		traceActivities.clear();
+		nofTraceIds = 0;
+		generation++;
 	}
 
 	public void inc(String activity) {
-		add(activity, 1);
-		if (traceActivities.containsKey(activity)) {
-			traceActivities.put(activity, traceActivities.get(activity) + 1);
-		} else {
-			traceActivities.put(activity, 1);
-		}
+		inc(activity, 1);
+	}
+
+	/**
+	 * Registers that the provided activity has occurred in the current trace,
+	 * where the current trace occurs the provided number of times. The same
+	 * number of times should be used for all activities of a trace.
+	 * 
+	 * @param activity
+	 *            The provided activity.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void inc(String activity, int weight) {
+		inc(dictionary.add(activity), weight);
 		if (activity.equals(ENDEVENT)) {
 			updateMinMax();
 		}
 	}
 
+	private void inc(int activity, int weight) {
+		add(activity, weight);
+		if (traceGenerations[activity] != generation) {
+			/*
+			 * First occurrence in the current trace. If the activity did not
+			 * occur in some previous trace, its minimal count is 0.
+			 */
+			if (tracedActivities.get(activity)) {
+				activityMinCounts[activity] = getMinCount(activity);
+			}
+			traceGenerations[activity] = generation;
+			traceCounts[activity] = 0;
+			if (nofTraceIds == traceIds.length) {
+				traceIds = Arrays.copyOf(traceIds, Math.max(1, 2 * traceIds.length));
+			}
+			traceIds[nofTraceIds++] = activity;
+		}
+		traceCounts[activity]++;
+	}
+
 	public void inc(String fromActivity, String toActivity) {
-		add(fromActivity, toActivity, 1);
+		inc(fromActivity, toActivity, 1);
+	}
+
+	/**
+	 * Registers that the transition from the provided from activity to the
+	 * provided to activity has occurred the provided number of times.
+	 * 
+	 * @param fromActivity
+	 *            The provided from activity.
+	 * @param toActivity
+	 *            The provided to activity.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void inc(String fromActivity, String toActivity, int weight) {
+		add(fromActivity, toActivity, weight);
+	}
+
+	/**
+	 * Registers that the provided trace has occurred. The trace is provided as
+	 * a sequence of activity ids (see ActivityDictionary), which starts with the
+	 * artificial start activity and ends with the artificial end activity.
+	 * 
+	 * @param trace
+	 *            The provided trace.
+	 */
+	public void inc(int[] trace) {
+		inc(trace, 1);
+	}
+
+	/**
+	 * Registers that the provided trace has occurred the provided number of
+	 * times. See inc(int[]).
+	 * 
+	 * @param trace
+	 *            The provided trace.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void inc(int[] trace, int weight) {
+		for (int i = 0; i < trace.length; i++) {
+			/*
+			 * Activity has occurred.
+			 */
+			inc(trace[i], weight);
+			if (i > 0) {
+				/*
+				 * Transition from previous activity to activity has occurred.
+				 */
+				add(getTransition(trace[i - 1], trace[i]), weight);
+			}
+		}
+		/*
+		 * Finalize the count.
+		 */
+		updateMinMax();
+	}
+
+	/**
+	 * Adds the provided count to this count. Afterwards, this count is the
+	 * count of all traces that were counted by either count.
+	 * 
+	 * @param count
+	 *            The provided count.
+	 */
+	public void add(LogSkeletonCount count) {
+		settleMinCounts();
+		boolean hasTraces = !tracedActivities.isEmpty();
+		boolean countHasTraces = !count.tracedActivities.isEmpty();
+		int[] ids = new int[count.dictionary.size()];
+		for (int activity = count.activities.nextSetBit(0); activity >= 0; activity = count.activities
+				.nextSetBit(activity + 1)) {
+			/*
+			 * The provided count may use different ids for the activities.
+			 */
+			ids[activity] = count.dictionary == dictionary ? activity
+					: dictionary.add(count.dictionary.getActivity(activity));
+			add(ids[activity], count.activityCounts[activity]);
+		}
+		BitSet countTracedActivities = new BitSet();
+		for (int activity = count.tracedActivities.nextSetBit(0); activity >= 0; activity = count.tracedActivities
+				.nextSetBit(activity + 1)) {
+			int id = ids[activity];
+			countTracedActivities.set(id);
+			if (tracedActivities.get(id)) {
+				/*
+				 * Activity was counted by both counts.
+				 */
+				activityMinCounts[id] = Math.min(activityMinCounts[id], count.getMinCount(activity));
+				activityMaxCounts[id] = Math.max(activityMaxCounts[id], count.activityMaxCounts[activity]);
+			} else {
+				/*
+				 * Activity was counted by the provided count only. If this
+				 * count has traces, then the activity does not occur in these
+				 * traces.
+				 */
+				activityMinCounts[id] = hasTraces ? 0 : count.getMinCount(activity);
+				activityMaxCounts[id] = count.activityMaxCounts[activity];
+			}
+		}
+		if (countHasTraces) {
+			/*
+			 * Activities counted by this count only do not occur in the traces
+			 * of the provided count.
+			 */
+			for (int activity = tracedActivities.nextSetBit(0); activity >= 0; activity = tracedActivities
+					.nextSetBit(activity + 1)) {
+				if (!countTracedActivities.get(activity)) {
+					activityMinCounts[activity] = 0;
+				}
+			}
+		}
+		tracedActivities.or(countTracedActivities);
+		for (int activity = countTracedActivities.nextSetBit(0); activity >= 0; activity = countTracedActivities
+				.nextSetBit(activity + 1)) {
+			traceGenerations[activity] = Math.max(traceGenerations[activity], generation - 1);
+		}
+		for (long transition : count.transitionCounts.getTransitions()) {
+			add(getTransition(ids[getFrom(transition)], ids[getTo(transition)]), count.transitionCounts.get(transition));
+		}
 	}
 
 	public Collection<String> getActivities() {
-		List<String> ordered = new ArrayList<String>(activityCounts.keySet());
-		Collections.sort(ordered);
-		return ordered;
+		if (sortedActivities == null) {
+			List<String> ordered = new ArrayList<String>();
+			for (int activity = activities.nextSetBit(0); activity >= 0; activity = activities
+					.nextSetBit(activity + 1)) {
+				ordered.add(dictionary.getActivity(activity));
+			}
+			Collections.sort(ordered);
+			sortedActivities = Collections.unmodifiableList(ordered);
+		}
+		return sortedActivities;
+	}
+
+	/**
+	 * Returns the ids of all counted activities.
+	 * 
+	 * @return The ids of all counted activities.
+	 */
+	public BitSet getActivityIds() {
+		return (BitSet) activities.clone();
+	}
+
+	/*
+	 * Returns all counted transitions, in increasing order. See getTransition.
+	 */
+	long[] getTransitions() {
+		long[] transitions = transitionCounts.getTransitions();
+		Arrays.sort(transitions);
+		return transitions;
+	}
+
+	/*
+	 * Returns the count of the provided transition. See getTransition.
+	 */
+	int getTransitionCount(long transition) {
+		return transitionCounts.get(transition);
+	}
+
+	/*
+	 * Returns the transition from the provided from-activity id to the provided
+	 * to-activity id. The from-activity id is stored in the high 32 bits, the
+	 * to-activity id in the low 32 bits.
+	 */
+	static long getTransition(int fromActivity, int toActivity) {
+		return ((long) fromActivity << 32) | (toActivity & 0xFFFFFFFFL);
+	}
+
+	static int getFrom(long transition) {
+		return (int) (transition >>> 32);
 	}
 
-	private List<String> getTransition(String fromActivity, String toActivity) {
-		List<String> transition = new ArrayList<String>(2);
-		transition.add(0, fromActivity);
-		transition.add(1, toActivity);
+	static int getTo(long transition) {
+		return (int) transition;
+	}
+
+	static Set<String> getTransition(String fromActivity, String toActivity) {
+		Set<String> transition = new HashSet<String>(2);
+		transition.add(fromActivity);
+		transition.add(toActivity);
 		return transition;
 	}
 
@@ -207,52 +542,58 @@ public class LogSkeletonCount {
 
 	public void exportToFile(CsvWriter writer) throws IOException {
 		writer.write("activity counts");
-		writer.write("" + activityCounts.keySet().size());
+		writer.write("" + activities.cardinality());
 		writer.endRecord();
-		for (String activity : activityCounts.keySet()) {
-			writer.write(activity);
-			writer.write("" + activityCounts.get(activity));
-			writer.write("" + activityMinCounts.get(activity));
-			writer.write("" + activityMaxCounts.get(activity));
+		for (int activity = activities.nextSetBit(0); activity >= 0; activity = activities.nextSetBit(activity + 1)) {
+			writer.write(dictionary.getActivity(activity));
+			writer.write("" + activityCounts[activity]);
+			writer.write("" + (tracedActivities.get(activity) ? getMinCount(activity) : activityMinCounts[activity]));
+			writer.write("" + activityMaxCounts[activity]);
 			writer.endRecord();
 		}
 		writer.write("transition counts");
-		writer.write("" + transitionCounts.keySet().size());
+		writer.write("" + transitionCounts.size());
 		writer.endRecord();
-		for (List<String> transitionList : transitionCounts.keySet()) {
-			for (String transition : transitionList) {
-				writer.write(transition);
-			}
-			writer.write("" + transitionCounts.get(transitionList));
+		for (long transition : getTransitions()) {
+			writer.write(dictionary.getActivity(getFrom(transition)));
+			writer.write(dictionary.getActivity(getTo(transition)));
+			writer.write("" + transitionCounts.get(transition));
 			writer.endRecord();
 		}
 	}
 
 	public void importFromStream(CsvReader reader) throws IOException {
-		activityCounts = new HashMap<String, Integer>();
+		activities = new BitSet();
+		activityCounts = new int[dictionary.size()];
+		activityMinCounts = new int[dictionary.size()];
+		activityMaxCounts = new int[dictionary.size()];
+		tracedActivities = new BitSet();
+		initTraceCounts();
+		sortedActivities = null;
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("activity counts")) {
 				int rows = Integer.valueOf(reader.get(1));
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
-						activityCounts.put(reader.get(0), Integer.valueOf(reader.get(1)));
-						activityMinCounts.put(reader.get(0), Integer.valueOf(reader.get(2)));
-						activityMaxCounts.put(reader.get(0), Integer.valueOf(reader.get(3)));
+						int activity = dictionary.add(reader.get(0));
+						add(activity, Integer.valueOf(reader.get(1)));
+						activityMinCounts[activity] = Integer.valueOf(reader.get(2));
+						activityMaxCounts[activity] = Integer.valueOf(reader.get(3));
+						tracedActivities.set(activity);
 					}
 				}
 			}
 		}
-		transitionCounts = new HashMap<List<String>, Integer>();
+		transitionCounts = new TransitionTable();
+		successors = new BitSet[dictionary.size()];
+		predecessors = new BitSet[dictionary.size()];
 		if (reader.readRecord()) {
 			if (reader.get(0).equals("transition counts")) {
 				int rows = Integer.valueOf(reader.get(1));
 				for (int row = 0; row < rows; row++) {
 					if (reader.readRecord()) {
-						List<String> transitions = new ArrayList<String>();
-						for (int column = 0; column < reader.getColumnCount() - 1; column++) {
-							transitions.add(reader.get(column));
-						}
-						transitionCounts.put(transitions, Integer.valueOf(reader.get(reader.getColumnCount() - 1)));
+						add(getTransition(dictionary.add(reader.get(0)), dictionary.add(reader.get(1))),
+								Integer.valueOf(reader.get(reader.getColumnCount() - 1)));
 					}
 				}
 			}
@@ -0,0 +1,275 @@
+package org.processmining.logskeleton.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
+import org.processmining.logskeleton.models.violations.ViolationCardinality;
+import org.processmining.logskeleton.models.violations.ViolationEquivalence;
+import org.processmining.logskeleton.models.violations.ViolationNotCoExistence;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+/**
+ * Checks a single running case against a compiled log skeleton, one event at a
+ * time.
+ *
+ * Violations are reported as soon as they are certain. Precedence, Not
+ * Precedence, Not Response, Not Co-Existence, and cardinality violations are
+ * reported when the violating event is added. Response and Equivalence
+ * violations can only be certain when the case is closed, and are reported
+ * then. A Response violation is reported once per activity, for its last
+ * occurrence.
+ *
+ * A monitor is not thread-safe, but different monitors for the same compiled
+ * log skeleton can be used by different threads.
+ */
+public class LogSkeletonMonitor {
+
+	private final CompiledLogSkeleton compiledLogSkeleton;
+	private final ActivityDictionary dictionary;
+
+	/*
+	 * The trace used to report violations, and the classifier for the events.
+	 */
+	private final XTrace trace;
+	private final XEventClassifier classifier;
+
+	/*
+	 * seen has bit a set if activity a has occurred. counts[a] is the number of
+	 * occurrences of activity a. lastPositions[a] is the position of the last
+	 * occurrence of activity a, or -1 if none.
+	 */
+	private final long[] seen;
+	private final int[] counts;
+	private final int[] lastPositions;
+
+	/*
+	 * The position of the next event, the id of the last activity, and the
+	 * last activity itself.
+	 */
+	private int position;
+	private int lastId;
+	private String lastActivity;
+
+	/*
+	 * The counts of the transitions that occurred so far (see
+	 * LogSkeletonCount.getTransition), and the transitions from or to unknown
+	 * activities that were reported already.
+	 */
+	private final TransitionTable transitionCounts;
+	private final Set<Set<String>> unknownTransitions;
+
+	private boolean isClosed;
+
+	/**
+	 * Creates a monitor for a new case.
+	 *
+	 * @param compiledLogSkeleton
+	 *            The compiled log skeleton to check the case against.
+	 * @param trace
+	 *            The trace to report violations for. The monitor does not use
+	 *            its events.
+	 * @param classifier
+	 *            The classifier for the events.
+	 */
+	public LogSkeletonMonitor(CompiledLogSkeleton compiledLogSkeleton, XTrace trace, XEventClassifier classifier) {
+		this.compiledLogSkeleton = compiledLogSkeleton;
+		dictionary = compiledLogSkeleton.dictionary;
+		this.trace = trace;
+		this.classifier = new PrefixClassifier(classifier);
+		seen = new long[compiledLogSkeleton.nofWords];
+		counts = new int[compiledLogSkeleton.nofActivities];
+		lastPositions = new int[compiledLogSkeleton.nofActivities];
+		Arrays.fill(lastPositions, -1);
+		position = 0;
+		lastId = -1;
+		lastActivity = null;
+		transitionCounts = new TransitionTable();
+		unknownTransitions = new HashSet<Set<String>>();
+		isClosed = false;
+		/*
+		 * Every case starts with the artificial start activity. Nothing can be
+		 * violated yet.
+		 */
+		add(LogSkeletonCount.STARTEVENT);
+	}
+
+	/**
+	 * Adds the provided event to the case.
+	 *
+	 * @param event
+	 *            The provided event.
+	 * @return The violations that became certain by adding the event.
+	 */
+	public Collection<Violation> add(XEvent event) {
+		return add(classifier.getClassIdentity(event));
+	}
+
+	/**
+	 * Adds an event for the provided activity to the case.
+	 *
+	 * @param activity
+	 *            The provided activity.
+	 * @return The violations that became certain by adding the event.
+	 */
+	public Collection<Violation> add(String activity) {
+		if (isClosed) {
+			throw new IllegalStateException("Case is closed");
+		}
+		Collection<Violation> violations = new ArrayList<Violation>(0);
+		int id = compiledLogSkeleton.getId(activity);
+		checkTransition(id, activity, violations);
+		if (id >= 0) {
+			checkCausalDependencies(id, violations);
+			seen[id >>> 6] |= 1L << id;
+			counts[id]++;
+			lastPositions[id] = position;
+		}
+		position++;
+		lastId = id;
+		lastActivity = activity;
+		return violations;
+	}
+
+	/**
+	 * Closes the case. Adds the artificial end activity, and checks the
+	 * Response and Equivalence relations.
+	 *
+	 * @return The violations that became certain by closing the case.
+	 */
+	public Collection<Violation> close() {
+		Collection<Violation> violations = add(LogSkeletonCount.ENDEVENT);
+		isClosed = true;
+		checkResponses(violations);
+		checkEquivalenceClasses(violations);
+		return violations;
+	}
+
+	public boolean isClosed() {
+		return isClosed;
+	}
+
+	/*
+	 * Checks whether the transition from the last activity to the provided
+	 * activity does not occur more often than in the directly follows
+	 * relation. Reports every violating transition once.
+	 */
+	private void checkTransition(int id, String activity, Collection<Violation> violations) {
+		if (lastActivity == null) {
+			return;
+		}
+		if (lastId < 0 || id < 0) {
+			Set<String> transition = LogSkeletonCount.getTransition(lastActivity, activity);
+			if (unknownTransitions.add(transition)) {
+				violations.add(new ViolationCardinality(trace, transition));
+			}
+			return;
+		}
+		long transition = LogSkeletonCount.getTransition(lastId, id);
+		if (transitionCounts.add(transition, 1) == compiledLogSkeleton.getTransitionCount(transition) + 1) {
+			violations.add(new ViolationCardinality(trace, LogSkeletonCount.getTransition(lastActivity, activity)));
+		}
+	}
+
+	/*
+	 * Checks the relations that can be checked as soon as the activity with
+	 * the provided id occurs.
+	 */
+	private void checkCausalDependencies(int id, Collection<Violation> violations) {
+		long[] mask = compiledLogSkeleton.precedences[id];
+		if (mask != null && !CompiledLogSkeleton.containsAll(seen, mask)) {
+			violations.add(new ViolationPrecedence(trace, dictionary.getActivity(id),
+					compiledLogSkeleton.getActivities(mask, seen, false)));
+		}
+		mask = compiledLogSkeleton.notPrecedences[id];
+		if (mask != null && CompiledLogSkeleton.intersects(seen, mask)) {
+			violations.add(new ViolationNotPrecedence(trace, dictionary.getActivity(id),
+					compiledLogSkeleton.getActivities(mask, seen, true)));
+		}
+		/*
+		 * Every activity that occurred before and forbids this activity after
+		 * it is violated.
+		 */
+		mask = compiledLogSkeleton.notResponders[id];
+		if (mask != null && CompiledLogSkeleton.intersects(seen, mask)) {
+			Set<String> present = new HashSet<String>(1);
+			present.add(dictionary.getActivity(id));
+			for (String activity : compiledLogSkeleton.getActivities(mask, seen, true)) {
+				violations.add(new ViolationNotResponse(trace, activity, present));
+			}
+		}
+		/*
+		 * Not Co-Existence is violated only once, by the first occurrence.
+		 */
+		mask = compiledLogSkeleton.notCoExistences[id];
+		if (counts[id] == 0 && mask != null && CompiledLogSkeleton.intersects(seen, mask)) {
+			violations.add(new ViolationNotCoExistence(trace, dictionary.getActivity(id),
+					compiledLogSkeleton.getActivities(mask, seen, true)));
+		}
+	}
+
+	/*
+	 * Checks whether every required response occurs after the last occurrence
+	 * of every activity.
+	 */
+	private void checkResponses(Collection<Violation> violations) {
+		/*
+		 * Visit the activities that occurred from the last to occur to the first
+		 * to occur. Then, the activities that occur after the last occurrence
+		 * of an activity are exactly the activities visited before.
+		 */
+		List<Integer> activities = new ArrayList<Integer>();
+		for (int id = 0; id < lastPositions.length; id++) {
+			if (lastPositions[id] >= 0) {
+				activities.add(id);
+			}
+		}
+		Collections.sort(activities, new Comparator<Integer>() {
+
+			public int compare(Integer id1, Integer id2) {
+				return Integer.compare(lastPositions[id2], lastPositions[id1]);
+			}
+		});
+		long[] postset = new long[seen.length];
+		for (int id : activities) {
+			long[] mask = compiledLogSkeleton.responses[id];
+			if (mask != null && !CompiledLogSkeleton.containsAll(postset, mask)) {
+				violations.add(new ViolationResponse(trace, dictionary.getActivity(id),
+						compiledLogSkeleton.getActivities(mask, postset, false)));
+			}
+			postset[id >>> 6] |= 1L << id;
+		}
+	}
+
+	/*
+	 * Checks whether equivalent activities occurred equally often.
+	 */
+	private void checkEquivalenceClasses(Collection<Violation> violations) {
+		for (int i = 0; i < compiledLogSkeleton.equivalenceClassIds.length; i++) {
+			int[] equivalenceClass = compiledLogSkeleton.equivalenceClassIds[i];
+			boolean isViolated = equivalenceClass.length == 0;
+			for (int j = 1; j < equivalenceClass.length && !isViolated; j++) {
+				isViolated = getCount(equivalenceClass[j]) != getCount(equivalenceClass[0]);
+			}
+			if (isViolated) {
+				violations.add(new ViolationEquivalence(trace, compiledLogSkeleton.equivalenceClasses.get(i)));
+			}
+		}
+	}
+
+	private int getCount(int id) {
+		return id >= 0 ? counts[id] : 0;
+	}
+}
@@ -0,0 +1,259 @@
+package org.processmining.logskeleton.models;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
+
+/**
+ * A view on a log: a selection of its traces, where events may have been
+ * relabelled by splitting activities (see SplitterAlgorithm). Neither the log
+ * nor its traces or events are copied or changed, so filtering and splitting a
+ * log is cheap. The builder and the checker can use a view instead of a log.
+ *
+ * An event is relabelled by adding a suffix to its activity, like
+ * SplitterAlgorithm does with the PrefixClassifier.SUFFIX attribute. As with
+ * this attribute, only a PrefixClassifier sees the suffix.
+ */
+public class LogView {
+
+	/*
+	 * The log this view is on.
+	 */
+	private final XLog log;
+
+	/*
+	 * traceIndices[i] is the index in the log of the i-th trace in this view.
+	 */
+	private final int[] traceIndices;
+
+	/*
+	 * suffixes[i][j] is the suffix added to the j-th event of the i-th trace in
+	 * this view, or null if none. suffixes[i] is null if no event of the i-th
+	 * trace has a suffix, and suffixes is null if this view has not been
+	 * split.
+	 */
+	private final String[][] suffixes;
+
+	/**
+	 * Creates a view on all traces of the provided log.
+	 *
+	 * @param log
+	 *            The provided log.
+	 */
+	public LogView(XLog log) {
+		this.log = log;
+		traceIndices = new int[log.size()];
+		for (int i = 0; i < traceIndices.length; i++) {
+			traceIndices[i] = i;
+		}
+		suffixes = null;
+	}
+
+	private LogView(XLog log, int[] traceIndices, String[][] suffixes) {
+		this.log = log;
+		this.traceIndices = traceIndices;
+		this.suffixes = suffixes;
+	}
+
+	/**
+	 * Returns the log this view is on.
+	 *
+	 * @return The log this view is on.
+	 */
+	public XLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Returns the number of traces in this view.
+	 *
+	 * @return The number of traces in this view.
+	 */
+	public int size() {
+		return traceIndices.length;
+	}
+
+	/**
+	 * Returns the trace at the provided index in this view. The events of the
+	 * trace are not relabelled.
+	 *
+	 * @param traceIndex
+	 *            The provided index.
+	 * @return The trace at the provided index.
+	 */
+	public XTrace getTrace(int traceIndex) {
+		return log.get(traceIndices[traceIndex]);
+	}
+
+	/**
+	 * Returns the activity of the event at the provided position in the trace
+	 * at the provided index, using the provided classifier.
+	 *
+	 * @param traceIndex
+	 *            The provided index.
+	 * @param position
+	 *            The provided position.
+	 * @param classifier
+	 *            The provided classifier.
+	 * @return The activity of the event, including its suffix if the provided
+	 *         classifier is a PrefixClassifier.
+	 */
+	public String getActivity(int traceIndex, int position, XEventClassifier classifier) {
+		String activity = classifier.getClassIdentity(getTrace(traceIndex).get(position));
+		String suffix = getSuffix(traceIndex, position);
+		if (suffix == null || !(classifier instanceof PrefixClassifier)) {
+			return activity;
+		}
+		return activity + suffix;
+	}
+
+	/**
+	 * Returns the activities of the trace at the provided index, using the
+	 * provided classifier. The artificial start and end activities are
+	 * included as first and last activity.
+	 *
+	 * @param traceIndex
+	 *            The provided index.
+	 * @param classifier
+	 *            The provided classifier.
+	 * @return The activities of the trace.
+	 */
+	public String[] getActivities(int traceIndex, XEventClassifier classifier) {
+		XTrace trace = getTrace(traceIndex);
+		String[] activities = new String[trace.size() + 2];
+		activities[0] = LogSkeletonCount.STARTEVENT;
+		for (int j = 0; j < trace.size(); j++) {
+			activities[j + 1] = getActivity(traceIndex, j, classifier);
+		}
+		activities[trace.size() + 1] = LogSkeletonCount.ENDEVENT;
+		return activities;
+	}
+
+	private String getSuffix(int traceIndex, int position) {
+		if (suffixes == null || suffixes[traceIndex] == null) {
+			return null;
+		}
+		return suffixes[traceIndex][position];
+	}
+
+	/**
+	 * Returns a view on the traces of this view with the provided indices.
+	 *
+	 * @param selectedTraceIndices
+	 *            The provided indices, relative to this view.
+	 * @return The view on the selected traces.
+	 */
+	public LogView select(BitSet selectedTraceIndices) {
+		int[] selectedLogIndices = new int[selectedTraceIndices.cardinality()];
+		String[][] selectedSuffixes = suffixes == null ? null : new String[selectedLogIndices.length][];
+		int i = 0;
+		for (int traceIndex = selectedTraceIndices.nextSetBit(0); traceIndex >= 0; traceIndex = selectedTraceIndices
+				.nextSetBit(traceIndex + 1)) {
+			selectedLogIndices[i] = traceIndices[traceIndex];
+			if (selectedSuffixes != null) {
+				selectedSuffixes[i] = suffixes[traceIndex];
+			}
+			i++;
+		}
+		return new LogView(log, selectedLogIndices, selectedSuffixes);
+	}
+
+	/**
+	 * Returns a view where the provided duplicate activity is split. In every
+	 * trace, the occurrences of the duplicate activity before the first
+	 * occurrence of a milestone activity get suffix ".0", and the occurrences
+	 * after it get suffix ".1".
+	 *
+	 * @param classifier
+	 *            The classifier to use for the events.
+	 * @param duplicateActivity
+	 *            The provided duplicate activity.
+	 * @param milestoneActivities
+	 *            The provided milestone activities.
+	 * @return The view with the duplicate activity split.
+	 */
+	public LogView split(XEventClassifier classifier, String duplicateActivity,
+			Collection<String> milestoneActivities) {
+		String[][] splitSuffixes = new String[traceIndices.length][];
+		for (int i = 0; i < traceIndices.length; i++) {
+			XTrace trace = getTrace(i);
+			splitSuffixes[i] = suffixes == null ? null : suffixes[i];
+			/*
+			 * The suffixes of this view are shared, and copied before the
+			 * first change.
+			 */
+			boolean isCopied = false;
+			int milestone = 0;
+			for (int j = 0; j < trace.size(); j++) {
+				String activity = getActivity(i, j, classifier);
+				if (activity.equals(duplicateActivity)) {
+					if (!isCopied) {
+						splitSuffixes[i] = splitSuffixes[i] == null ? new String[trace.size()]
+								: splitSuffixes[i].clone();
+						isCopied = true;
+					}
+					String suffix = splitSuffixes[i][j];
+					splitSuffixes[i][j] = (suffix == null ? "" : suffix) + "." + milestone;
+				}
+				if (milestoneActivities.contains(activity)) {
+					if (milestone == 0) {
+						milestone++;
+					}
+				}
+			}
+		}
+		return new LogView(log, traceIndices, splitSuffixes);
+	}
+
+	/**
+	 * Creates a log containing the traces of this view. If this view has been
+	 * split, every trace is copied, and every relabelled event is copied with
+	 * its suffix added to its PrefixClassifier.SUFFIX attribute. Otherwise,
+	 * the log contains the traces themselves. The created log has the
+	 * attributes, extensions, global attributes, and classifiers of the log
+	 * this view is on.
+	 *
+	 * @return The created log.
+	 */
+	public XLog createLog() {
+		XLog createdLog = XFactoryRegistry.instance().currentDefault()
+				.createLog((XAttributeMap) log.getAttributes().clone());
+		createdLog.getExtensions().addAll(log.getExtensions());
+		createdLog.getGlobalEventAttributes().addAll(log.getGlobalEventAttributes());
+		createdLog.getGlobalTraceAttributes().addAll(log.getGlobalTraceAttributes());
+		createdLog.getClassifiers().addAll(log.getClassifiers());
+		for (int i = 0; i < traceIndices.length; i++) {
+			XTrace trace = getTrace(i);
+			if (suffixes == null) {
+				createdLog.add(trace);
+				continue;
+			}
+			XTrace createdTrace = XFactoryRegistry.instance().currentDefault().createTrace(trace.getAttributes());
+			for (int j = 0; j < trace.size(); j++) {
+				XEvent event = trace.get(j);
+				String suffix = getSuffix(i, j);
+				if (suffix == null) {
+					createdTrace.add(event);
+					continue;
+				}
+				XEvent createdEvent = (XEvent) event.clone();
+				if (event.getAttributes().containsKey(PrefixClassifier.SUFFIX)) {
+					suffix = event.getAttributes().get(PrefixClassifier.SUFFIX) + suffix;
+				}
+				createdEvent.getAttributes().put(PrefixClassifier.SUFFIX,
+						new XAttributeLiteralImpl(PrefixClassifier.SUFFIX, suffix));
+				createdTrace.add(createdEvent);
+			}
+			createdLog.add(createdTrace);
+		}
+		return createdLog;
+	}
+}
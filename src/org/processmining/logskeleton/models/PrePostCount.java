@@ -0,0 +1,241 @@
+package org.processmining.logskeleton.models;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class PrePostCount {
+
+	/*
+	 * Counts how many times an activity occurred in the preset of another
+	 * activity. If preCounts[a][b] == 3, then b occurred 3 times in the preset
+	 * of a.
+	 */
+	private int[][] preCounts;
+
+	/*
+	 * Counts how many times an activity occurred in the postset of another
+	 * activity. If postCounts[a][b] == 3, then b occurred 3 times in the
+	 * postset of a.
+	 */
+	private int[][] postCounts;
+
+	/*
+	 * Counts how many times an activity occurred in the preset or the postset
+	 * of another activity. If prePostCounts[a][b] == 3, then b occurred 3 times
+	 * in the preset or the postset of a.
+	 */
+	private int[][] prePostCounts;
+
+	/*
+	 * Counts how many times a preset and postset were registered for an
+	 * activity. If totals[a] == 5, then 5 presets and postsets were registered
+	 * for a.
+	 */
+	private int[] totals;
+
+	public PrePostCount() {
+		preCounts = new int[0][];
+		postCounts = new int[0][];
+		prePostCounts = new int[0][];
+		totals = new int[0];
+	}
+
+	/**
+	 * Registers that the activity with the provided id has the provided preset
+	 * of activity ids and the provided postset of activity ids.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @param preset
+	 *            The provided preset of activity ids.
+	 * @param postset
+	 *            The provided postset of activity ids.
+	 */
+	public void add(int activity, BitSet preset, BitSet postset) {
+		add(activity, preset, postset, 1);
+	}
+
+	/**
+	 * Registers that the activity with the provided id has the provided preset
+	 * of activity ids and the provided postset of activity ids the provided
+	 * number of times.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @param preset
+	 *            The provided preset of activity ids.
+	 * @param postset
+	 *            The provided postset of activity ids.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void add(int activity, BitSet preset, BitSet postset, int weight) {
+		ensureRow(activity, Math.max(preset.length(), postset.length()));
+		int[] preRow = preCounts[activity];
+		int[] postRow = postCounts[activity];
+		int[] prePostRow = prePostCounts[activity];
+		for (int activity2 = preset.nextSetBit(0); activity2 >= 0; activity2 = preset.nextSetBit(activity2 + 1)) {
+			preRow[activity2] += weight;
+			prePostRow[activity2] += weight;
+		}
+		for (int activity2 = postset.nextSetBit(0); activity2 >= 0; activity2 = postset.nextSetBit(activity2 + 1)) {
+			postRow[activity2] += weight;
+			if (!preset.get(activity2)) {
+				prePostRow[activity2] += weight;
+			}
+		}
+		totals[activity] += weight;
+	}
+
+	/**
+	 * Adds the provided counts to these counts. Both counts should use the same
+	 * activity ids.
+	 *
+	 * @param prePostCount
+	 *            The provided counts.
+	 */
+	public void add(PrePostCount prePostCount) {
+		for (int activity = 0; activity < prePostCount.totals.length; activity++) {
+			if (prePostCount.preCounts[activity] == null) {
+				continue;
+			}
+			int columns = prePostCount.preCounts[activity].length;
+			ensureRow(activity, columns);
+			for (int activity2 = 0; activity2 < columns; activity2++) {
+				preCounts[activity][activity2] += prePostCount.preCounts[activity][activity2];
+				postCounts[activity][activity2] += prePostCount.postCounts[activity][activity2];
+				prePostCounts[activity][activity2] += prePostCount.prePostCounts[activity][activity2];
+			}
+			totals[activity] += prePostCount.totals[activity];
+		}
+	}
+
+	/**
+	 * Adds the provided counts the provided number of times to these counts.
+	 * The provided counts may use other activity ids: the activity with id a
+	 * in the provided counts has id ids[a] in these counts.
+	 *
+	 * @param prePostCount
+	 *            The provided counts.
+	 * @param ids
+	 *            The ids in these counts for the ids in the provided counts.
+	 * @param weight
+	 *            The provided number of times.
+	 */
+	public void add(PrePostCount prePostCount, int[] ids, int weight) {
+		for (int activity = 0; activity < prePostCount.totals.length; activity++) {
+			if (prePostCount.preCounts[activity] == null) {
+				continue;
+			}
+			int[] preRow = prePostCount.preCounts[activity];
+			int[] postRow = prePostCount.postCounts[activity];
+			int[] prePostRow = prePostCount.prePostCounts[activity];
+			/*
+			 * An activity occurs in the preset or the postset if and only if
+			 * its pre-post count is positive.
+			 */
+			int columns = 0;
+			for (int activity2 = 0; activity2 < prePostRow.length; activity2++) {
+				if (prePostRow[activity2] != 0) {
+					columns = Math.max(columns, ids[activity2] + 1);
+				}
+			}
+			int id = ids[activity];
+			ensureRow(id, columns);
+			for (int activity2 = 0; activity2 < prePostRow.length; activity2++) {
+				if (prePostRow[activity2] != 0) {
+					int id2 = ids[activity2];
+					preCounts[id][id2] += weight * preRow[activity2];
+					postCounts[id][id2] += weight * postRow[activity2];
+					prePostCounts[id][id2] += weight * prePostRow[activity2];
+				}
+			}
+			totals[id] += weight * prePostCount.totals[activity];
+		}
+	}
+
+	/*
+	 * Makes sure that there is a row for the provided activity id with at least
+	 * the provided number of columns.
+	 */
+	private void ensureRow(int activity, int columns) {
+		if (activity >= totals.length) {
+			int length = Math.max(activity + 1, 2 * totals.length);
+			preCounts = Arrays.copyOf(preCounts, length);
+			postCounts = Arrays.copyOf(postCounts, length);
+			prePostCounts = Arrays.copyOf(prePostCounts, length);
+			totals = Arrays.copyOf(totals, length);
+		}
+		if (preCounts[activity] == null) {
+			preCounts[activity] = new int[columns];
+			postCounts[activity] = new int[columns];
+			prePostCounts[activity] = new int[columns];
+		} else if (preCounts[activity].length < columns) {
+			int length = Math.max(columns, 2 * preCounts[activity].length);
+			preCounts[activity] = Arrays.copyOf(preCounts[activity], length);
+			postCounts[activity] = Arrays.copyOf(postCounts[activity], length);
+			prePostCounts[activity] = Arrays.copyOf(prePostCounts[activity], length);
+		}
+	}
+
+	/**
+	 * Returns the number of times a preset and a postset were registered for
+	 * the activity with the provided id.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @return The number of registered presets and postsets.
+	 */
+	public int getTotal(int activity) {
+		return activity < totals.length ? totals[activity] : 0;
+	}
+
+	/**
+	 * Returns the number of times the second activity occurred in the preset of
+	 * the first activity.
+	 *
+	 * @param activity
+	 *            The id of the first activity.
+	 * @param activity2
+	 *            The id of the second activity.
+	 * @return The number of times.
+	 */
+	public int getPreCount(int activity, int activity2) {
+		return get(preCounts, activity, activity2);
+	}
+
+	/**
+	 * Returns the number of times the second activity occurred in the postset
+	 * of the first activity.
+	 *
+	 * @param activity
+	 *            The id of the first activity.
+	 * @param activity2
+	 *            The id of the second activity.
+	 * @return The number of times.
+	 */
+	public int getPostCount(int activity, int activity2) {
+		return get(postCounts, activity, activity2);
+	}
+
+	/**
+	 * Returns the number of times the second activity occurred in the preset or
+	 * the postset of the first activity.
+	 *
+	 * @param activity
+	 *            The id of the first activity.
+	 * @param activity2
+	 *            The id of the second activity.
+	 * @return The number of times.
+	 */
+	public int getPrePostCount(int activity, int activity2) {
+		return get(prePostCounts, activity, activity2);
+	}
+
+	private int get(int[][] counts, int activity, int activity2) {
+		if (activity >= counts.length || counts[activity] == null || activity2 >= counts[activity].length) {
+			return 0;
+		}
+		return counts[activity][activity2];
+	}
+}
@@ -1,11 +1,13 @@
 package org.processmining.logskeleton.models;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import com.csvreader.CsvReader;
@@ -13,144 +15,435 @@ import com.csvreader.CsvWriter;
 
 public class ThresholdSet implements Set<String> {
 
-	private Map<String, Integer> countMap;
-	private Map<String, Integer> totalMap;
+	/*
+	 * Maps the activities onto ids and back. The counts and totals are indexed
+	 * by these ids.
+	 */
+	private ActivityDictionary dictionary;
+
+	/*
+	 * The ids of the activities this set keeps counts for.
+	 */
+	private BitSet domain;
+
+	/*
+	 * If counts[a] * 100 >= totals[a] * threshold, then activity a is
+	 * contained in this set.
+	 */
+	private int[] counts;
+	private int[] totals;
 	private int threshold;
-	
+
+	/*
+	 * The ids of the activities contained in this set for the current counts,
+	 * totals, and threshold. Computed when needed, and reset to null on any
+	 * change. A computed set is complete before it is published, so threads
+	 * that only read this set may compute it at the same time.
+	 */
+	private volatile BitSet members;
+
 	public ThresholdSet(Collection<String> set, int threshold) {
-		countMap = new HashMap<String, Integer>();
-		totalMap = new HashMap<String, Integer>();
-		for (String activity : set) {
-			countMap.put(activity, 0);
-			totalMap.put(activity, 0);
-		}
-		this.threshold = threshold; 
+		this(new ActivityDictionary(set), threshold);
+	}
+
+	private ThresholdSet(ActivityDictionary dictionary, int threshold) {
+		this(dictionary, allIds(dictionary), threshold);
+	}
+
+	/**
+	 * Creates a threshold set for the provided activity ids.
+	 *
+	 * @param dictionary
+	 *            The provided dictionary, which maps the ids onto activities.
+	 * @param domain
+	 *            The provided activity ids.
+	 * @param threshold
+	 *            The provided threshold.
+	 */
+	public ThresholdSet(ActivityDictionary dictionary, BitSet domain, int threshold) {
+		this.dictionary = dictionary;
+		this.domain = (BitSet) domain.clone();
+		counts = new int[Math.max(dictionary.size(), domain.length())];
+		totals = new int[counts.length];
+		this.threshold = threshold;
+		members = null;
+	}
+
+	private static BitSet allIds(ActivityDictionary dictionary) {
+		BitSet ids = new BitSet();
+		ids.set(0, dictionary.size());
+		return ids;
 	}
 
 	public int size() {
-		int size = 0;
-		for (String activity : countMap.keySet()) {
-			if (contains(activity)) {
-				size++;
-			}
-		}
-		return size;
+		return getMembers().cardinality();
 	}
-	
+
 	public boolean isEmpty() {
-		return size() == 0;
+		return getMembers().isEmpty();
 	}
-	
+
 	public boolean contains(Object o) {
-		return (countMap.get(o) * 100 >= totalMap.get(o) * threshold);
+		return o instanceof String && contains(dictionary.getId((String) o));
+	}
+
+	/**
+	 * Returns whether the activity with the provided id is contained in this
+	 * set.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @return Whether the activity is contained in this set.
+	 */
+	public boolean contains(int activity) {
+		return activity >= 0 && domain.get(activity)
+				&& counts[activity] * 100 >= totals[activity] * threshold;
+	}
+
+	/**
+	 * Returns the ids of all activities contained in this set.
+	 *
+	 * @return The ids of all activities contained in this set.
+	 */
+	public BitSet getIds() {
+		return (BitSet) getMembers().clone();
+	}
+
+	/*
+	 * Returns the ids of all activities contained in this set. The returned set
+	 * is shared, and should not be modified.
+	 */
+	BitSet getMembers() {
+		BitSet currentMembers = members;
+		if (currentMembers == null) {
+			currentMembers = new BitSet();
+			for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+				if (counts[activity] * 100 >= totals[activity] * threshold) {
+					currentMembers.set(activity);
+				}
+			}
+			members = currentMembers;
+		}
+		return currentMembers;
 	}
 
 	public Iterator<String> iterator() {
-		Set<String> set = new HashSet<String>();
-		for (String activity : countMap.keySet()) {
-			if (contains(activity)) {
-				set.add(activity);
+		final BitSet ids = getMembers();
+		return new Iterator<String>() {
+
+			private int activity = ids.nextSetBit(0);
+
+			public boolean hasNext() {
+				return activity >= 0;
+			}
+
+			public String next() {
+				if (activity < 0) {
+					throw new NoSuchElementException();
+				}
+				String next = dictionary.getActivity(activity);
+				activity = ids.nextSetBit(activity + 1);
+				return next;
 			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private List<String> toList() {
+		List<String> list = new ArrayList<String>(size());
+		for (String activity : this) {
+			list.add(activity);
 		}
-		return set.iterator();
+		return list;
 	}
-	
+
 	public Object[] toArray() {
-		// Not supported
-		return null;
+		return toList().toArray();
 	}
-	
-	public <String> String[] toArray(String[] a) {
-		// Not supported
-		return null;
+
+	public <T> T[] toArray(T[] a) {
+		return toList().toArray(a);
 	}
-	
+
 	public boolean add(String e) {
 		// Not supported
 		return false;
 	}
-	
+
 	public boolean remove(Object o) {
 		// Not supported
 		return false;
 	}
-	
+
 	public boolean containsAll(Collection<?> c) {
-		Set<String> set = new HashSet<String>();
-		for (String activity : countMap.keySet()) {
-			if (contains(activity)) {
-				set.add(activity);
+		for (Object o : c) {
+			if (!contains(o)) {
+				return false;
 			}
 		}
-		return set.containsAll(c);
+		return true;
 	}
-	
+
 	public boolean addAll(Collection<? extends String> c) {
 		return retainAll(c);
 	}
-	
+
 	public boolean retainAll(Collection<?> c) {
-		for (String activity : countMap.keySet()) {
-			if (c.contains(activity)) {
-				countMap.put(activity, countMap.get(activity) + 1);
+		return retainAll(c, 1);
+	}
+
+	/**
+	 * Registers the provided number of occurrences where the provided
+	 * activities were present. See retainAll(Collection).
+	 *
+	 * @param c
+	 *            The provided activities.
+	 * @param weight
+	 *            The provided number of occurrences.
+	 * @return true
+	 */
+	public boolean retainAll(Collection<?> c, int weight) {
+		BitSet activities = new BitSet();
+		for (Object o : c) {
+			if (o instanceof String) {
+				int activity = dictionary.getId((String) o);
+				if (activity >= 0) {
+					activities.set(activity);
+				}
 			}
-			totalMap.put(activity, totalMap.get(activity) + 1);
 		}
+		addAll(activities, weight);
 		return true;
 	}
-	
+
+	/**
+	 * Registers an occurrence where the activities with the provided ids were
+	 * present. The count is increased for these activities, the total is
+	 * increased for all activities.
+	 *
+	 * @param activities
+	 *            The provided activity ids.
+	 */
+	public void addAll(BitSet activities) {
+		addAll(activities, 1);
+	}
+
+	/**
+	 * Registers the provided number of occurrences where the activities with
+	 * the provided ids were present. See addAll(BitSet).
+	 *
+	 * @param activities
+	 *            The provided activity ids.
+	 * @param weight
+	 *            The provided number of occurrences.
+	 */
+	public void addAll(BitSet activities, int weight) {
+		for (int activity = activities.nextSetBit(0); activity >= 0; activity = activities.nextSetBit(activity + 1)) {
+			if (domain.get(activity)) {
+				counts[activity] += weight;
+			}
+		}
+		addTotals(weight);
+	}
+
+	/**
+	 * Registers an occurrence where the activities with the provided ids were
+	 * absent. The count is increased for all other activities, the total is
+	 * increased for all activities.
+	 *
+	 * @param activities
+	 *            The provided activity ids.
+	 */
+	public void addAllExcept(BitSet activities) {
+		addAllExcept(activities, 1);
+	}
+
+	/**
+	 * Registers the provided number of occurrences where the activities with
+	 * the provided ids were absent. See addAllExcept(BitSet).
+	 *
+	 * @param activities
+	 *            The provided activity ids.
+	 * @param weight
+	 *            The provided number of occurrences.
+	 */
+	public void addAllExcept(BitSet activities, int weight) {
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			if (!activities.get(activity)) {
+				counts[activity] += weight;
+			}
+			totals[activity] += weight;
+		}
+		members = null;
+	}
+
+	/**
+	 * Registers an occurrence where the activities with the provided ids in
+	 * either of the provided sets were absent. The count is increased for all
+	 * other activities, the total is increased for all activities.
+	 *
+	 * @param activities
+	 *            The first provided set of activity ids.
+	 * @param activities2
+	 *            The second provided set of activity ids.
+	 */
+	public void addAllExcept(BitSet activities, BitSet activities2) {
+		addAllExcept(activities, activities2, 1);
+	}
+
+	/**
+	 * Registers the provided number of occurrences where the activities with
+	 * the provided ids in either of the provided sets were absent. See
+	 * addAllExcept(BitSet, BitSet).
+	 *
+	 * @param activities
+	 *            The first provided set of activity ids.
+	 * @param activities2
+	 *            The second provided set of activity ids.
+	 * @param weight
+	 *            The provided number of occurrences.
+	 */
+	public void addAllExcept(BitSet activities, BitSet activities2, int weight) {
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			if (!activities.get(activity) && !activities2.get(activity)) {
+				counts[activity] += weight;
+			}
+			totals[activity] += weight;
+		}
+		members = null;
+	}
+
+	/**
+	 * Adds the provided count and the provided total to the activity with the
+	 * provided id.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @param count
+	 *            The provided count.
+	 * @param total
+	 *            The provided total.
+	 */
+	public void add(int activity, int count, int total) {
+		if (domain.get(activity)) {
+			counts[activity] += count;
+			totals[activity] += total;
+			members = null;
+		}
+	}
+
+	/*
+	 * Adds the provided weight to the total for all activities.
+	 */
+	private void addTotals(int weight) {
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			totals[activity] += weight;
+		}
+		members = null;
+	}
+
 	public boolean removeAll(Collection<?> c) {
-		for (String activity : countMap.keySet()) {
-			if (c.contains(activity)) {
-				countMap.put(activity, -Math.abs(countMap.get(activity))); 
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			if (c.contains(dictionary.getActivity(activity))) {
+				counts[activity] = -Math.abs(counts[activity]);
 			}
 		}
+		members = null;
 		return true;
 	}
-	
+
+	/**
+	 * Removes the activities with the provided ids. See removeAll.
+	 *
+	 * @param activities
+	 *            The provided activity ids.
+	 */
+	public void removeAll(BitSet activities) {
+		for (int activity = activities.nextSetBit(0); activity >= 0; activity = activities.nextSetBit(activity + 1)) {
+			if (domain.get(activity)) {
+				counts[activity] = -Math.abs(counts[activity]);
+			}
+		}
+		members = null;
+	}
+
 	public void clear() {
-		// Not supported		
+		// Not supported
 	}
 
 	public void reset() {
-		for (String activity : countMap.keySet()) {
-			countMap.put(activity, Math.abs(countMap.get(activity)));
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			counts[activity] = Math.abs(counts[activity]);
 		}
+		members = null;
 	}
-	
+
 	public void setThreshold(int threshold) {
-		this.threshold = threshold;
+		if (this.threshold != threshold) {
+			this.threshold = threshold;
+			members = null;
+		}
 	}
-	
+
 	public int getThreshold() {
 		return threshold;
 	}
-	
+
 	public int getMaxThreshold(Object o) {
-		return countMap.get(o) * 100 / totalMap.get(o);
+		return getMaxThreshold(dictionary.getId((String) o));
 	}
-	
+
+	/**
+	 * Returns the maximal threshold for which the activity with the provided id
+	 * is contained in this set.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @return The maximal threshold.
+	 */
+	public int getMaxThreshold(int activity) {
+		return counts[activity] * 100 / totals[activity];
+	}
+
 	public void exportToFile(CsvWriter writer) throws IOException {
 		writer.write("" + threshold);
-		for (String activity : countMap.keySet()) {
-			writer.write("" + activity);
-			writer.write("" + countMap.get(activity));
-			writer.write("" + totalMap.get(activity));
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			writer.write("" + dictionary.getActivity(activity));
+			writer.write("" + counts[activity]);
+			writer.write("" + totals[activity]);
 		}
 	}
-	
+
 	public void importFromFile(CsvReader reader) throws IOException {
 		threshold = Integer.valueOf(reader.get(1));
 		for (int column = 2; column + 2 < reader.getColumnCount(); column += 3) {
-			String activity = reader.get(column);
+			int activity = dictionary.add(reader.get(column));
 			int count = Integer.valueOf(reader.get(column + 1));
 			int total = Integer.valueOf(reader.get(column + 2));
-			countMap.put(activity, count);
-			totalMap.put(activity, total);
+			if (activity >= counts.length) {
+				counts = Arrays.copyOf(counts, dictionary.size());
+				totals = Arrays.copyOf(totals, dictionary.size());
+			}
+			domain.set(activity);
+			counts[activity] = count;
+			totals[activity] = total;
 		}
+		members = null;
 	}
-	
+
 	public String toString() {
-		return countMap.toString();
+		StringBuffer buf = new StringBuffer();
+		buf.append("{");
+		for (int activity = domain.nextSetBit(0); activity >= 0; activity = domain.nextSetBit(activity + 1)) {
+			if (buf.length() > 1) {
+				buf.append(", ");
+			}
+			buf.append(dictionary.getActivity(activity) + "=" + counts[activity]);
+		}
+		buf.append("}");
+		return buf.toString();
 	}
 }
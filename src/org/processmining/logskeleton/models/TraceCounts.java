@@ -0,0 +1,191 @@
+package org.processmining.logskeleton.models;
+
+import java.util.Arrays;
+
+public class TraceCounts {
+
+	/*
+	 * For every activity, the indices of the traces it occurs in, in increasing
+	 * order. If traces[a][i] == t and counts[a][i] == 2, then activity a occurs
+	 * twice in trace t. Only the first sizes[a] elements are used. Traces not
+	 * listed for an activity do not contain that activity.
+	 */
+	private int[][] traces;
+	private int[][] counts;
+	private int[] sizes;
+
+	public TraceCounts() {
+		traces = new int[0][];
+		counts = new int[0][];
+		sizes = new int[0];
+	}
+
+	/**
+	 * Registers that the activity with the provided id occurs in the trace with
+	 * the provided index. Trace indices should be provided in non-decreasing
+	 * order per activity.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @param trace
+	 *            The provided trace index.
+	 */
+	public void inc(int activity, int trace) {
+		ensureActivity(activity);
+		int size = sizes[activity];
+		if (size > 0 && traces[activity][size - 1] == trace) {
+			counts[activity][size - 1]++;
+			return;
+		}
+		ensureCapacity(activity, size + 1);
+		traces[activity][size] = trace;
+		counts[activity][size] = 1;
+		sizes[activity]++;
+	}
+
+	/**
+	 * Appends the provided trace counts to these trace counts. All traces in
+	 * the provided trace counts should have a higher index than the traces in
+	 * these trace counts.
+	 *
+	 * @param traceCounts
+	 *            The provided trace counts.
+	 */
+	public void add(TraceCounts traceCounts) {
+		for (int activity = 0; activity < traceCounts.sizes.length; activity++) {
+			int size = traceCounts.sizes[activity];
+			if (size == 0) {
+				continue;
+			}
+			ensureActivity(activity);
+			ensureCapacity(activity, sizes[activity] + size);
+			System.arraycopy(traceCounts.traces[activity], 0, traces[activity], sizes[activity], size);
+			System.arraycopy(traceCounts.counts[activity], 0, counts[activity], sizes[activity], size);
+			sizes[activity] += size;
+		}
+	}
+
+	private void ensureActivity(int activity) {
+		if (activity >= sizes.length) {
+			int length = Math.max(activity + 1, 2 * sizes.length);
+			traces = Arrays.copyOf(traces, length);
+			counts = Arrays.copyOf(counts, length);
+			sizes = Arrays.copyOf(sizes, length);
+		}
+	}
+
+	private void ensureCapacity(int activity, int capacity) {
+		if (traces[activity] == null) {
+			traces[activity] = new int[Math.max(capacity, 4)];
+			counts[activity] = new int[traces[activity].length];
+		} else if (traces[activity].length < capacity) {
+			int length = Math.max(capacity, 2 * traces[activity].length);
+			traces[activity] = Arrays.copyOf(traces[activity], length);
+			counts[activity] = Arrays.copyOf(counts[activity], length);
+		}
+	}
+
+	/**
+	 * Returns how often the activity with the provided id occurs in all traces.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @return How often the activity occurs in all traces.
+	 */
+	public long getTotal(int activity) {
+		return getTotal(activity, null);
+	}
+
+	/**
+	 * Returns how often the activity with the provided id occurs in all traces,
+	 * where every trace has the provided weight.
+	 *
+	 * @param activity
+	 *            The provided activity id.
+	 * @param weights
+	 *            The provided weights. If weights[t] == 3, then trace t counts
+	 *            3 times. If null, every trace counts once.
+	 * @return How often the activity occurs in all traces.
+	 */
+	public long getTotal(int activity, int[] weights) {
+		long total = 0;
+		for (int i = 0; activity < sizes.length && i < sizes[activity]; i++) {
+			total += (long) counts[activity][i] * getWeight(weights, traces[activity][i]);
+		}
+		return total;
+	}
+
+	private int getWeight(int[] weights, int trace) {
+		return weights == null ? 1 : weights[trace];
+	}
+
+	/**
+	 * Returns the distance between the trace counts of the provided activities.
+	 * This distance is the sum over all traces of the differences between the
+	 * counts of both activities in that trace. Stops as soon as the distance
+	 * reaches the provided maximal distance, if positive.
+	 *
+	 * @param activity1
+	 *            The id of the first activity.
+	 * @param activity2
+	 *            The id of the second activity.
+	 * @param maxDistance
+	 *            The provided maximal distance.
+	 * @return The distance, or some distance of at least the provided maximal
+	 *         distance.
+	 */
+	public long distance(int activity1, int activity2, long maxDistance) {
+		return distance(activity1, activity2, null, maxDistance);
+	}
+
+	/**
+	 * Returns the distance between the trace counts of the provided activities,
+	 * where every trace has the provided weight. See distance(int, int, long).
+	 *
+	 * @param activity1
+	 *            The id of the first activity.
+	 * @param activity2
+	 *            The id of the second activity.
+	 * @param weights
+	 *            The provided weights. If weights[t] == 3, then trace t counts
+	 *            3 times. If null, every trace counts once.
+	 * @param maxDistance
+	 *            The provided maximal distance.
+	 * @return The distance, or some distance of at least the provided maximal
+	 *         distance.
+	 */
+	public long distance(int activity1, int activity2, int[] weights, long maxDistance) {
+		int size1 = activity1 < sizes.length ? sizes[activity1] : 0;
+		int size2 = activity2 < sizes.length ? sizes[activity2] : 0;
+		long distance = 0;
+		int i1 = 0;
+		int i2 = 0;
+		while (i1 < size1 || i2 < size2) {
+			if (i2 == size2 || (i1 < size1 && traces[activity1][i1] < traces[activity2][i2])) {
+				/*
+				 * Trace contains the first activity only.
+				 */
+				distance += (long) counts[activity1][i1] * getWeight(weights, traces[activity1][i1]);
+				i1++;
+			} else if (i1 == size1 || traces[activity2][i2] < traces[activity1][i1]) {
+				/*
+				 * Trace contains the second activity only.
+				 */
+				distance += (long) counts[activity2][i2] * getWeight(weights, traces[activity2][i2]);
+				i2++;
+			} else {
+				/*
+				 * Trace contains both activities.
+				 */
+				distance += (long) Math.abs(counts[activity1][i1] - counts[activity2][i2])
+						* getWeight(weights, traces[activity1][i1]);
+				i1++;
+				i2++;
+			}
+			if (distance >= maxDistance && maxDistance > 0) {
+				return distance;
+			}
+		}
+		return distance;
+	}
+}
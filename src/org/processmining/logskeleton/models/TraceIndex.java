@@ -0,0 +1,129 @@
+package org.processmining.logskeleton.models;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+
+/**
+ * Maps every activity to the indices of the traces that contain it. A filter
+ * on required (positive) and forbidden (negative) activities can then be
+ * answered without visiting any event, by intersecting and subtracting these
+ * indices.
+ */
+public class TraceIndex {
+
+	/*
+	 * traces.get(a) has bit i set if the i-th trace contains activity a.
+	 * Activities that occur in no trace are not present.
+	 */
+	private final Map<String, BitSet> traces;
+	private final int nofTraces;
+
+	/**
+	 * Creates the index for the provided log, using the provided classifier.
+	 *
+	 * @param log
+	 *            The provided log.
+	 * @param classifier
+	 *            The provided classifier.
+	 */
+	public TraceIndex(XLog log, XEventClassifier classifier) {
+		traces = new HashMap<String, BitSet>();
+		nofTraces = log.size();
+		for (int i = 0; i < nofTraces; i++) {
+			XTrace trace = log.get(i);
+			for (XEvent event : trace) {
+				add(classifier.getClassIdentity(event), i);
+			}
+		}
+	}
+
+	/**
+	 * Creates the index for the provided encoded traces (see
+	 * ActivityDictionary.add(XTrace, XEventClassifier)). The artificial start
+	 * and end activities are not indexed.
+	 *
+	 * @param dictionary
+	 *            The dictionary used to encode the traces.
+	 * @param encodedTraces
+	 *            The provided encoded traces.
+	 */
+	public TraceIndex(ActivityDictionary dictionary, int[][] encodedTraces) {
+		traces = new HashMap<String, BitSet>();
+		nofTraces = encodedTraces.length;
+		for (int i = 0; i < nofTraces; i++) {
+			int[] trace = encodedTraces[i];
+			for (int j = 1; j < trace.length - 1; j++) {
+				add(dictionary.getActivity(trace[j]), i);
+			}
+		}
+	}
+
+	private void add(String activity, int traceIndex) {
+		BitSet activityTraces = traces.get(activity);
+		if (activityTraces == null) {
+			activityTraces = new BitSet(nofTraces);
+			traces.put(activity, activityTraces);
+		}
+		activityTraces.set(traceIndex);
+	}
+
+	/**
+	 * Returns the number of traces indexed.
+	 *
+	 * @return The number of traces indexed.
+	 */
+	public int size() {
+		return nofTraces;
+	}
+
+	/**
+	 * Returns the indices of the traces that contain the provided activity.
+	 *
+	 * @param activity
+	 *            The provided activity.
+	 * @return The indices of the traces that contain the provided activity.
+	 */
+	public BitSet getTraces(String activity) {
+		BitSet activityTraces = traces.get(activity);
+		return activityTraces == null ? new BitSet() : (BitSet) activityTraces.clone();
+	}
+
+	/**
+	 * Returns the indices of the traces that contain all activities of the
+	 * provided positive filter and no activity of the provided negative filter.
+	 *
+	 * @param positiveFilters
+	 *            The provided positive filter.
+	 * @param negativeFilters
+	 *            The provided negative filter.
+	 * @return The indices of the traces.
+	 */
+	public BitSet select(Collection<String> positiveFilters, Collection<String> negativeFilters) {
+		BitSet selectedTraces = new BitSet(nofTraces);
+		selectedTraces.set(0, nofTraces);
+		for (String activity : positiveFilters) {
+			BitSet activityTraces = traces.get(activity);
+			if (activityTraces == null) {
+				/*
+				 * No trace contains this activity.
+				 */
+				return new BitSet();
+			}
+			selectedTraces.and(activityTraces);
+		}
+		for (String activity : negativeFilters) {
+			BitSet activityTraces = traces.get(activity);
+			if (activityTraces != null) {
+				selectedTraces.andNot(activityTraces);
+			}
+		}
+		return selectedTraces;
+	}
+}
@@ -0,0 +1,38 @@
+package org.processmining.logskeleton.models;
+
+import java.util.Arrays;
+
+/**
+ * A trace encoded as activity ids (see ActivityDictionary), which can be used
+ * as key. Two trace variants are equal if their encoded traces are equal.
+ */
+public class TraceVariant {
+
+	private final int[] trace;
+	private final int hashCode;
+
+	/**
+	 * Creates a trace variant for the provided encoded trace. The encoded trace
+	 * should not be changed afterwards.
+	 *
+	 * @param trace
+	 *            The provided trace, encoded as activity ids.
+	 */
+	public TraceVariant(int[] trace) {
+		this.trace = trace;
+		hashCode = Arrays.hashCode(trace);
+	}
+
+	public int[] getTrace() {
+		return trace;
+	}
+
+	public int hashCode() {
+		return hashCode;
+	}
+
+	public boolean equals(Object o) {
+		return o instanceof TraceVariant && hashCode == ((TraceVariant) o).hashCode
+				&& Arrays.equals(trace, ((TraceVariant) o).trace);
+	}
+}
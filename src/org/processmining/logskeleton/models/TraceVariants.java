@@ -0,0 +1,86 @@
+package org.processmining.logskeleton.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TraceVariants {
+
+	/*
+	 * Maps every variant onto its index.
+	 */
+	private Map<TraceVariant, Integer> indices;
+
+	/*
+	 * The variants, in order of first occurrence. A variant is a trace encoded
+	 * as activity ids (see ActivityDictionary).
+	 */
+	private List<int[]> variants;
+
+	/*
+	 * The number of traces per variant. If weights[v] == 3, then variant v
+	 * occurs 3 times.
+	 */
+	private int[] weights;
+
+	public TraceVariants() {
+		indices = new HashMap<TraceVariant, Integer>();
+		variants = new ArrayList<int[]>();
+		weights = new int[16];
+	}
+
+	/**
+	 * Registers the provided trace, and returns the index of its variant.
+	 *
+	 * @param trace
+	 *            The provided trace, encoded as activity ids.
+	 * @return The index of the variant of the provided trace.
+	 */
+	public int add(int[] trace) {
+		TraceVariant variant = new TraceVariant(trace);
+		Integer index = indices.get(variant);
+		if (index == null) {
+			index = variants.size();
+			indices.put(variant, index);
+			variants.add(trace);
+			if (index >= weights.length) {
+				weights = Arrays.copyOf(weights, 2 * weights.length);
+			}
+		}
+		weights[index]++;
+		return index;
+	}
+
+	/**
+	 * Returns the number of variants.
+	 *
+	 * @return The number of variants.
+	 */
+	public int size() {
+		return variants.size();
+	}
+
+	/**
+	 * Returns the variant with the provided index.
+	 *
+	 * @param index
+	 *            The provided index.
+	 * @return The variant, encoded as activity ids.
+	 */
+	public int[] get(int index) {
+		return variants.get(index);
+	}
+
+	/**
+	 * Returns the number of traces of the variant with the provided index.
+	 *
+	 * @param index
+	 *            The provided index.
+	 * @return The number of traces of the variant.
+	 */
+	public int getWeight(int index) {
+		return weights[index];
+	}
+}
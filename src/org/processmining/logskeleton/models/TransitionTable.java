@@ -0,0 +1,152 @@
+package org.processmining.logskeleton.models;
+
+import java.util.Arrays;
+
+/**
+ * Counts per transition, where a transition is encoded as a long (see
+ * LogSkeletonCount.getTransition). Uses open addressing with linear probing,
+ * so no objects are created per transition.
+ */
+public class TransitionTable {
+
+	/*
+	 * Marks an empty slot. No transition has this encoding, as activity ids are
+	 * at least -1.
+	 */
+	private final static long EMPTY = Long.MIN_VALUE;
+
+	/*
+	 * If keys[i] == t and values[i] == 3, then transition t has count 3. The
+	 * length of keys is a power of two, and at most half of the slots are
+	 * used.
+	 */
+	private long[] keys;
+	private int[] values;
+	private int size;
+
+	public TransitionTable() {
+		this(8);
+	}
+
+	/**
+	 * Creates an empty table for the provided expected number of transitions.
+	 *
+	 * @param expectedSize
+	 *            The provided expected number of transitions.
+	 */
+	public TransitionTable(int expectedSize) {
+		int capacity = 16;
+		while (capacity < 2 * expectedSize) {
+			capacity <<= 1;
+		}
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		values = new int[capacity];
+		size = 0;
+	}
+
+	/*
+	 * Returns the slot for the provided transition: the slot containing it, or
+	 * the empty slot where it should go.
+	 */
+	private int getSlot(long transition) {
+		int mask = keys.length - 1;
+		/*
+		 * Fold the high bits of the hash into the low bits, so that all bits
+		 * of the transition affect the slot.
+		 */
+		long hash = transition * 0x9E3779B97F4A7C15L;
+		int slot = (int) (hash ^ (hash >>> 32)) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != transition) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the count of the provided transition.
+	 *
+	 * @param transition
+	 *            The provided transition.
+	 * @return The count of the provided transition, 0 if not present.
+	 */
+	public int get(long transition) {
+		int slot = getSlot(transition);
+		return keys[slot] == EMPTY ? 0 : values[slot];
+	}
+
+	/**
+	 * Returns whether the provided transition is present.
+	 *
+	 * @param transition
+	 *            The provided transition.
+	 * @return Whether the provided transition is present.
+	 */
+	public boolean containsKey(long transition) {
+		return keys[getSlot(transition)] != EMPTY;
+	}
+
+	/**
+	 * Adds the provided number to the count of the provided transition. Adds
+	 * the transition if not present.
+	 *
+	 * @param transition
+	 *            The provided transition.
+	 * @param number
+	 *            The provided number.
+	 * @return The new count of the provided transition.
+	 */
+	public int add(long transition, int number) {
+		int slot = getSlot(transition);
+		if (keys[slot] == EMPTY) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+				slot = getSlot(transition);
+			}
+			keys[slot] = transition;
+			size++;
+		}
+		values[slot] += number;
+		return values[slot];
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new long[2 * oldKeys.length];
+		Arrays.fill(keys, EMPTY);
+		values = new int[keys.length];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = getSlot(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of transitions present.
+	 *
+	 * @return The number of transitions present.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns all transitions present, in no particular order.
+	 *
+	 * @return All transitions present.
+	 */
+	public long[] getTransitions() {
+		long[] transitions = new long[size];
+		int i = 0;
+		for (long key : keys) {
+			if (key != EMPTY) {
+				transitions[i++] = key;
+			}
+		}
+		return transitions;
+	}
+}
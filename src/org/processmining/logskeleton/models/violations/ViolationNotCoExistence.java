@@ -0,0 +1,26 @@
+package org.processmining.logskeleton.models.violations;
+
+import java.util.Set;
+
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.models.Violation;
+
+public class ViolationNotCoExistence extends Violation {
+
+	private String activity;
+	
+	public ViolationNotCoExistence(XTrace trace, String activity, Set<String> violatingActivities) {
+		super(trace, violatingActivities);
+		this.activity = activity;
+	}
+
+	public String getActivity() {
+		return activity;
+	}
+
+	public String toString() {
+		return "[ViolationNotCoExistence] Case " + XConceptExtension.instance().extractName(getTrace()) + ": Not Co-Existence violated for " + activity + ", present are "
+				+ getViolatingActivities();
+	}
+}
@@ -1,26 +1,32 @@
 package org.processmining.logskeleton.outputs;
 
-import java.util.Collection;
-import java.util.HashSet;
-
 import org.deckfour.xes.model.XLog;
-import org.processmining.logskeleton.models.Violation;
+import org.processmining.logskeleton.algorithms.ViolationCounts;
 
 public class CheckerOutput {
 
 	private XLog log;
-	private Collection<Violation> violations;
+	private ViolationCounts violationCounts;
 	
 	public CheckerOutput(XLog log) {
+		this(log, new ViolationCounts());
+	}
+
+	/*
+	 * The violations themselves are not kept, only their counts. To get the
+	 * violations of every trace, use CheckerAlgorithm.apply with a
+	 * CheckerSink.
+	 */
+	public CheckerOutput(XLog log, ViolationCounts violationCounts) {
 		this.log = log;
-		violations = new HashSet<Violation>();
+		this.violationCounts = violationCounts;
 	}
 
 	public XLog getLog() {
 		return log;
 	}
 
-	public Collection<Violation> getViolations() {
-		return violations;
+	public ViolationCounts getViolationCounts() {
+		return violationCounts;
 	}
 }
@@ -27,7 +27,7 @@ public class ClassifierPanel extends JPanel {
 	private static final long serialVersionUID = 676186087055650845L;
 
 	public ClassifierPanel(XLog log, final ClassifierConfiguration configuration) {
-		double size[][] = { { TableLayoutConstants.FILL }, { TableLayoutConstants.FILL, 30, 30 } };
+		double size[][] = { { TableLayoutConstants.FILL }, { TableLayoutConstants.FILL, 30, 30, 30 } };
 		setLayout(new TableLayout(size));
 		add(new org.processmining.log.dialogs.ClassifierPanel(log.getClassifiers(), configuration), "0, 0");
 		
@@ -56,5 +56,18 @@ public class ClassifierPanel extends JPanel {
 		});
 		slider.setPreferredSize(new Dimension(100, 30));
 		add(slider, "0, 2");
+
+		final NiceSlider supportSlider = SlickerFactory.instance().createNiceIntegerSlider(
+				"Select minimal number of reference traces to filter in or out", 1, 100,
+				configuration.getMinFilterSupport(), Orientation.HORIZONTAL);
+		supportSlider.addChangeListener(new ChangeListener() {
+
+			public void stateChanged(ChangeEvent e) {
+				int value = supportSlider.getSlider().getValue();
+				configuration.setMinFilterSupport(value);
+			}
+		});
+		supportSlider.setPreferredSize(new Dimension(100, 30));
+		add(supportSlider, "0, 3");
 }
 }
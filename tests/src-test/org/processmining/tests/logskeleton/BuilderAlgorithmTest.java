@@ -0,0 +1,63 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.Arrays;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+
+import junit.framework.TestCase;
+
+public class BuilderAlgorithmTest extends TestCase {
+
+	@Test
+	public void testSmallLog() throws Throwable {
+		XLog log = TestLogs.createLog("small", "a b c d", "a c b d", "a b c d", "a e d", "a b b c d");
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), configuration);
+		LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(log, configuration);
+		assertEquals(referenceLogSkeleton.getLabel(), logSkeleton.getLabel());
+		assertEquals(TestLogs.export(referenceLogSkeleton), TestLogs.export(logSkeleton));
+	}
+
+	@Test
+	public void testParallelLog() throws Throwable {
+		/*
+		 * Enough variants to have the counts merged from several tasks.
+		 */
+		XLog log = TestLogs.createLog("parallel", TestLogs.generateTraces(4, 2000));
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), configuration);
+		LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(log, configuration);
+		assertEquals(TestLogs.export(referenceLogSkeleton), TestLogs.export(logSkeleton));
+	}
+
+	@Test
+	public void testActivityIds() throws Throwable {
+		/*
+		 * The ids follow the order of first occurrence in the log, however the
+		 * encoding happened to be scheduled.
+		 */
+		XLog log = TestLogs.createLog("ids", TestLogs.generateTraces(5, 2000));
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		String[] activities = new String[] { LogSkeletonCount.STARTEVENT, "a", "b", "c", "d", "e", "f", "g", "h",
+				"i", "j", LogSkeletonCount.ENDEVENT };
+		int[] firstIds = new BuilderAlgorithm().apply(new LogView(log), configuration).compile().getIds(activities);
+		for (int i = 0; i < 5; i++) {
+			int[] ids = new BuilderAlgorithm().apply(new LogView(log), configuration).compile().getIds(activities);
+			assertTrue(Arrays.equals(firstIds, ids));
+		}
+		XLog orderedLog = TestLogs.createLog("ordered", "a b c", "a d");
+		int[] ids = new BuilderAlgorithm().apply(new LogView(orderedLog), configuration).compile()
+				.getIds(new String[] { LogSkeletonCount.STARTEVENT, "a", "b", "c", LogSkeletonCount.ENDEVENT, "d" });
+		assertTrue(Arrays.toString(ids), Arrays.equals(new int[] { 0, 1, 2, 3, 4, 5 }, ids));
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(BuilderAlgorithmTest.class);
+	}
+}
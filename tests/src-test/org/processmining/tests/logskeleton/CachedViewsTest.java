@@ -0,0 +1,221 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+
+import junit.framework.TestCase;
+
+public class CachedViewsTest extends TestCase {
+
+	/*
+	 * The (not) precedence and (not) response relations.
+	 */
+	private static final int RESPONSE = 0;
+	private static final int PRECEDENCE = 1;
+	private static final int NOTRESPONSE = 2;
+	private static final int NOTPRECEDENCE = 3;
+
+	@Test
+	public void testChangingSelection() throws Throwable {
+		/*
+		 * The selection is changed in place, keeping its size, so a cached
+		 * view can only tell from the selected activities themselves.
+		 */
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(13, 200));
+		LogSkeleton logSkeleton = build(log);
+		List<String> activities = TestLogs.sorted(logSkeleton.getActivities());
+		List<String> selectedActivities = new ArrayList<String>(activities.subList(0, activities.size() / 2));
+		Random random = new Random(13);
+		for (int i = 0; i < 20; i++) {
+			assertEquivalent(log, logSkeleton, selectedActivities);
+			String activity = activities.get(random.nextInt(activities.size()));
+			if (!selectedActivities.contains(activity)) {
+				selectedActivities.set(random.nextInt(selectedActivities.size()), activity);
+			}
+		}
+	}
+
+	@Test
+	public void testAlternatingSelections() throws Throwable {
+		/*
+		 * A graph is built using both all activities and the shown activities,
+		 * by their ids, and the ids are changed after they were used.
+		 */
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(15, 200));
+		LogSkeleton logSkeleton = build(log);
+		List<String> activities = TestLogs.sorted(logSkeleton.getActivities());
+		List<String> selectedActivities = new ArrayList<String>(activities.subList(0, activities.size() / 2));
+		BitSet allIds = logSkeleton.getIds(activities);
+		for (int i = 0; i < 3; i++) {
+			BitSet selectedIds = logSkeleton.getIds(selectedActivities);
+			assertEquivalent(logSkeleton, activities, allIds);
+			assertEquivalent(logSkeleton, selectedActivities, selectedIds);
+			selectedIds.clear();
+			assertEquivalent(logSkeleton, activities, allIds);
+			selectedActivities.add(activities.get(activities.size() / 2 + i));
+		}
+	}
+
+	@Test
+	public void testChangingThresholds() throws Throwable {
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(14, 200));
+		LogSkeleton logSkeleton = build(log);
+		List<String> selectedActivities = new ArrayList<String>(logSkeleton.getActivities());
+		int[] thresholds = new int[] { 100, 90, 80, 90, 100, 95 };
+		for (int threshold : thresholds) {
+			logSkeleton.setPrecedenceThreshold(threshold);
+			logSkeleton.setResponseThreshold(threshold);
+			logSkeleton.setEquivalenceThreshold(threshold);
+			assertEquivalent(log, logSkeleton, selectedActivities);
+			logSkeleton.setResponseThreshold(threshold - 5);
+			assertEquivalent(log, logSkeleton, selectedActivities);
+		}
+	}
+
+	/*
+	 * Asserts that the provided log skeleton has the same non-redundant
+	 * relations as the original redundancy check, and the same equivalence
+	 * classes as a log skeleton that has no views cached yet.
+	 */
+	private void assertEquivalent(XLog log, LogSkeleton logSkeleton, Collection<String> selectedActivities) {
+		LogSkeleton freshLogSkeleton = build(log);
+		freshLogSkeleton.setPrecedenceThreshold(logSkeleton.getPrecedenceThreshold());
+		freshLogSkeleton.setResponseThreshold(logSkeleton.getResponseThreshold());
+		freshLogSkeleton.setEquivalenceThreshold(logSkeleton.getEquivalenceThreshold());
+		for (String fromActivity : selectedActivities) {
+			assertEquals(freshLogSkeleton.getEquivalenceClass(fromActivity, selectedActivities),
+					logSkeleton.getEquivalenceClass(fromActivity, selectedActivities));
+			for (String toActivity : selectedActivities) {
+				String message = fromActivity + " " + toActivity + " " + selectedActivities;
+				assertEquals(message, hasNonRedundant(logSkeleton, RESPONSE, fromActivity, toActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantResponse(fromActivity, toActivity, selectedActivities));
+				assertEquals(message, hasNonRedundant(logSkeleton, PRECEDENCE, toActivity, fromActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantPrecedence(fromActivity, toActivity, selectedActivities));
+				assertEquals(message, hasNonRedundant(logSkeleton, NOTRESPONSE, toActivity, fromActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantNotResponse(fromActivity, toActivity, selectedActivities));
+				assertEquals(message, hasNonRedundant(logSkeleton, NOTPRECEDENCE, fromActivity, toActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantNotPrecedence(fromActivity, toActivity, selectedActivities));
+			}
+		}
+	}
+
+	/*
+	 * Asserts that asking the provided log skeleton by the ids of the selected
+	 * activities gives the same results as asking it by the selected
+	 * activities themselves.
+	 */
+	private void assertEquivalent(LogSkeleton logSkeleton, Collection<String> selectedActivities,
+			BitSet selectedIds) {
+		for (String fromActivity : selectedActivities) {
+			assertEquals(logSkeleton.getEquivalenceClass(fromActivity, selectedActivities),
+					logSkeleton.getEquivalenceClass(fromActivity, selectedIds));
+			for (String toActivity : selectedActivities) {
+				String message = fromActivity + " " + toActivity + " " + selectedActivities;
+				assertEquals(message, hasNonRedundant(logSkeleton, RESPONSE, fromActivity, toActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantResponse(fromActivity, toActivity, selectedIds));
+				assertEquals(message, hasNonRedundant(logSkeleton, PRECEDENCE, toActivity, fromActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantPrecedence(fromActivity, toActivity, selectedIds));
+				assertEquals(message, hasNonRedundant(logSkeleton, NOTRESPONSE, toActivity, fromActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantNotResponse(fromActivity, toActivity, selectedIds));
+				assertEquals(message, hasNonRedundant(logSkeleton, NOTPRECEDENCE, fromActivity, toActivity,
+						selectedActivities),
+						logSkeleton.hasNonRedundantNotPrecedence(fromActivity, toActivity, selectedIds));
+			}
+		}
+	}
+
+	private LogSkeleton build(XLog log) {
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		return new BuilderAlgorithm().apply(new LogView(log), configuration);
+	}
+
+	/*
+	 * Returns whether the provided activity has the other provided activity in
+	 * the provided relation, and this is not redundant given the selected
+	 * activities.
+	 */
+	private boolean hasNonRedundant(LogSkeleton logSkeleton, int relation, String activity, String activity2,
+			Collection<String> selectedActivities) {
+		return get(logSkeleton, relation, activity).contains(activity2)
+				&& !getRedundant(logSkeleton, relation, activity, selectedActivities).contains(activity2);
+	}
+
+	/*
+	 * The original redundancy check: an activity is redundant if it can be
+	 * reached through another selected activity.
+	 */
+	private Set<String> getRedundant(LogSkeleton logSkeleton, int relation, String activity,
+			Collection<String> selectedActivities) {
+		Set<String> redundant = new HashSet<String>();
+		Set<String> activities = get(logSkeleton, relation, activity);
+		for (String activity2 : activities) {
+			if (selectedActivities.contains(activity2)) {
+				for (String activity3 : get(logSkeleton, relation, activity2)) {
+					if (selectedActivities.contains(activity3) && activities.contains(activity3)) {
+						redundant.add(activity3);
+					}
+				}
+			}
+		}
+		return redundant;
+	}
+
+	/*
+	 * Returns the activities the provided activity has in the provided
+	 * relation at the current thresholds.
+	 */
+	private Set<String> get(LogSkeleton logSkeleton, int relation, String activity) {
+		Set<String> activities = new HashSet<String>();
+		for (String activity2 : logSkeleton.getActivities()) {
+			switch (relation) {
+				case RESPONSE :
+					if (logSkeleton.getMaxThresholdResponse(activity, activity2) >= logSkeleton
+							.getResponseThreshold()) {
+						activities.add(activity2);
+					}
+					break;
+				case PRECEDENCE :
+					if (logSkeleton.getMaxThresholdPrecedence(activity2, activity) >= logSkeleton
+							.getPrecedenceThreshold()) {
+						activities.add(activity2);
+					}
+					break;
+				case NOTRESPONSE :
+					if (logSkeleton.getMaxThresholdNotResponse(activity2, activity) >= logSkeleton
+							.getResponseThreshold()) {
+						activities.add(activity2);
+					}
+					break;
+				case NOTPRECEDENCE :
+					if (logSkeleton.getMaxThresholdNotPrecedence(activity, activity2) >= logSkeleton
+							.getPrecedenceThreshold()) {
+						activities.add(activity2);
+					}
+			}
+		}
+		return activities;
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(CachedViewsTest.class);
+	}
+}
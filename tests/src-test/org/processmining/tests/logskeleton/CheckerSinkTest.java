@@ -0,0 +1,118 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.algorithms.CheckerAlgorithm;
+import org.processmining.logskeleton.algorithms.CheckerSink;
+import org.processmining.logskeleton.algorithms.ViolationCounts;
+import org.processmining.logskeleton.configurations.CheckerConfiguration;
+import org.processmining.logskeleton.inputs.CheckerInput;
+import org.processmining.logskeleton.models.CompiledLogSkeleton;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.Violation;
+import org.processmining.logskeleton.models.violations.ViolationCardinality;
+import org.processmining.logskeleton.models.violations.ViolationEquivalence;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+import junit.framework.TestCase;
+
+public class CheckerSinkTest extends TestCase {
+
+	@Test
+	public void testSink() throws Throwable {
+		/*
+		 * The log has more traces than fit in the pending chunks of 256
+		 * traces, so the checker has to wait for the oldest chunk while
+		 * checking others. Many traces share a variant, and fitting variants
+		 * are not checked again.
+		 */
+		int nofTraces = 2 * ForkJoinPool.commonPool().getParallelism() * 256 + 300;
+		XLog log = TestLogs.createLog("model", TestLogs.generateTraces(31, 300));
+		final XLog checkedLog = TestLogs.createLog("checked", TestLogs.generateTraces(32, nofTraces));
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+		logSkeleton.setPrecedenceThreshold(95);
+		logSkeleton.setResponseThreshold(95);
+		CheckerConfiguration configuration = new CheckerConfiguration(new CheckerInput(logSkeleton, checkedLog));
+		configuration.setClassifier(new XEventNameClassifier());
+
+		final Thread thread = Thread.currentThread();
+		final List<XTrace> traces = new ArrayList<XTrace>();
+		final List<Collection<Violation>> results = new ArrayList<Collection<Violation>>();
+		final ViolationCounts violationCounts = new ViolationCounts();
+		new CheckerAlgorithm().apply(new CheckerInput(logSkeleton, checkedLog), configuration, new CheckerSink() {
+
+			public void accept(XTrace trace, Collection<Violation> violations) {
+				assertSame(thread, Thread.currentThread());
+				traces.add(trace);
+				results.add(violations);
+				violationCounts.accept(trace, violations);
+			}
+		});
+
+		/*
+		 * Check every trace on its own, in the order of the log.
+		 */
+		CompiledLogSkeleton compiledLogSkeleton = logSkeleton.compile();
+		ViolationCounts referenceViolationCounts = new ViolationCounts();
+		Set<List<String>> fittingVariants = new HashSet<List<String>>();
+		int nofFittingTraces = 0;
+		assertEquals(checkedLog.size(), traces.size());
+		for (int i = 0; i < checkedLog.size(); i++) {
+			assertSame(checkedLog.get(i), traces.get(i));
+			Collection<Violation> violations = compiledLogSkeleton.check(checkedLog.get(i), configuration);
+			assertEquals("trace " + i, violations.size(), results.get(i).size());
+			referenceViolationCounts.accept(checkedLog.get(i), violations);
+			if (violations.isEmpty()) {
+				fittingVariants.add(getVariant(checkedLog.get(i)));
+				nofFittingTraces++;
+			}
+		}
+		assertTrue(nofFittingTraces > fittingVariants.size());
+		assertTrue(nofFittingTraces < checkedLog.size());
+
+		assertEquals(referenceViolationCounts.getNofTraces(), violationCounts.getNofTraces());
+		assertEquals(referenceViolationCounts.getNofViolatingTraces(), violationCounts.getNofViolatingTraces());
+		assertEquals(referenceViolationCounts.getTypes(), violationCounts.getTypes());
+		List<Class<? extends Violation>> types = new ArrayList<Class<? extends Violation>>();
+		types.add(ViolationPrecedence.class);
+		types.add(ViolationResponse.class);
+		types.add(ViolationNotPrecedence.class);
+		types.add(ViolationNotResponse.class);
+		types.add(ViolationCardinality.class);
+		types.add(ViolationEquivalence.class);
+		for (Class<? extends Violation> type : types) {
+			assertEquals(type.getSimpleName(), referenceViolationCounts.getCount(type), violationCounts.getCount(type));
+			assertEquals(type.getSimpleName(), referenceViolationCounts.getCounts(type), violationCounts.getCounts(type));
+		}
+	}
+
+	/*
+	 * Returns the activities of the provided trace.
+	 */
+	private List<String> getVariant(XTrace trace) {
+		List<String> variant = new ArrayList<String>();
+		for (XEvent event : trace) {
+			variant.add(new XEventNameClassifier().getClassIdentity(event));
+		}
+		return variant;
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(CheckerSinkTest.class);
+	}
+}
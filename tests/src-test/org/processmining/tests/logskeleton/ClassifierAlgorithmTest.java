@@ -0,0 +1,174 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.algorithms.CheckerAlgorithm;
+import org.processmining.logskeleton.algorithms.CheckerSink;
+import org.processmining.logskeleton.algorithms.ClassifierAlgorithm;
+import org.processmining.logskeleton.algorithms.FilterSearch;
+import org.processmining.logskeleton.configurations.CheckerConfiguration;
+import org.processmining.logskeleton.inputs.CheckerInput;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.Violation;
+
+import junit.framework.TestCase;
+
+public class ClassifierAlgorithmTest extends TestCase {
+
+	/*
+	 * The minimal filter support of the original search.
+	 */
+	private static final int MINFILTERSUPPORT = 16;
+
+	@Test
+	public void testFilterDepths() throws Throwable {
+		/*
+		 * The parallel search prunes the extensions of filters that select too
+		 * few traces, but should exclude the same test traces as evaluating
+		 * every filter, every time. In these small logs, some filters of depth
+		 * 3 that select exactly the minimal support exclude test traces.
+		 */
+		XLog referenceLog = TestLogs.createLog("reference", TestLogs.generateTraces(33, 70));
+		XLog log = TestLogs.createLog("test", TestLogs.generateTraces(34, 70));
+		LogSkeleton logSkeleton = build(referenceLog);
+		Set<String> positiveTestTraces = getCaseIds(log);
+		for (int maxFilterDepth = 1; maxFilterDepth <= 3; maxFilterDepth++) {
+			List<String> expected = TestLogs.sorted(
+					getExcludedTestTraces(logSkeleton, referenceLog, log, positiveTestTraces, maxFilterDepth));
+			assertFalse(expected.isEmpty());
+			assertTrue(expected.size() < positiveTestTraces.size());
+			for (int i = 0; i < 3; i++) {
+				assertEquals("depth " + maxFilterDepth, expected,
+						TestLogs.sorted(ClassifierAlgorithm.getExcludedTestTraces(logSkeleton, referenceLog, log,
+								new XEventNameClassifier(), positiveTestTraces, 0, maxFilterDepth, MINFILTERSUPPORT)));
+			}
+		}
+	}
+
+	@Test
+	public void testThreshold() throws Throwable {
+		/*
+		 * If only test traces that are excluded anyway are positive, the search
+		 * stops as soon as all of them are excluded. If the threshold is
+		 * reached from the start, nothing is excluded.
+		 */
+		XLog referenceLog = TestLogs.createLog("reference", TestLogs.generateTraces(23, 70));
+		XLog log = TestLogs.createLog("test", TestLogs.generateTraces(24, 70));
+		LogSkeleton logSkeleton = build(referenceLog);
+		Set<String> excludedTestTraces = getExcludedTestTraces(logSkeleton, referenceLog, log, getCaseIds(log), 3);
+		assertFalse(excludedTestTraces.isEmpty());
+		for (int i = 0; i < 3; i++) {
+			assertEquals(TestLogs.sorted(excludedTestTraces),
+					TestLogs.sorted(ClassifierAlgorithm.getExcludedTestTraces(logSkeleton, referenceLog, log,
+							new XEventNameClassifier(), excludedTestTraces, 0, 3, MINFILTERSUPPORT)));
+			assertTrue(ClassifierAlgorithm.getExcludedTestTraces(logSkeleton, referenceLog, log,
+					new XEventNameClassifier(), excludedTestTraces, excludedTestTraces.size(), 3, MINFILTERSUPPORT)
+					.isEmpty());
+		}
+	}
+
+	private LogSkeleton build(XLog log) {
+		return new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+	}
+
+	/*
+	 * Returns the case ids of the provided log.
+	 */
+	private Set<String> getCaseIds(XLog log) {
+		Set<String> caseIds = new HashSet<String>();
+		for (XTrace trace : log) {
+			caseIds.add(XConceptExtension.instance().extractName(trace));
+		}
+		return caseIds;
+	}
+
+	/*
+	 * The original search: for every check, evaluate every filter on up to
+	 * the provided depth of different first activities of equivalence
+	 * classes, and exclude every positive test trace that violates the log
+	 * skeleton for the reference traces selected by some filter.
+	 */
+	private Set<String> getExcludedTestTraces(LogSkeleton logSkeleton, XLog referenceLog, XLog log,
+			Set<String> positiveTestTraces, int maxFilterDepth) {
+		FilterSearch search = new FilterSearch(referenceLog, log, new XEventNameClassifier());
+		List<String> activities = new ArrayList<String>();
+		for (String activity : TestLogs.sorted(logSkeleton.getActivities())) {
+			if (activity.equals(LogSkeletonCount.STARTEVENT) || activity.equals(LogSkeletonCount.ENDEVENT)) {
+				continue;
+			}
+			if (!logSkeleton.getEquivalenceClass(activity).iterator().next().equals(activity)) {
+				continue;
+			}
+			activities.add(activity);
+		}
+		Set<String> excludedTestTraces = new HashSet<String>();
+		for (int i = 0; i < 3; i++) {
+			CheckerConfiguration configuration = new CheckerConfiguration(new CheckerInput(logSkeleton, log));
+			configuration.setClassifier(new XEventNameClassifier());
+			configuration.setCheck(0, i == 0);
+			configuration.setCheck(1, i == 1);
+			configuration.setCheck(2, i == 2);
+			exclude(search, configuration, activities, 0, maxFilterDepth, new HashSet<String>(),
+					new HashSet<String>(), positiveTestTraces, excludedTestTraces);
+		}
+		return excludedTestTraces;
+	}
+
+	/*
+	 * Evaluates the provided filter (if not empty) and every extension of it
+	 * with activities from the provided index on, up to the provided depth.
+	 */
+	private void exclude(FilterSearch search, CheckerConfiguration configuration, List<String> activities,
+			int fromIndex, int maxFilterDepth, Set<String> positiveFilters, Set<String> negativeFilters,
+			final Set<String> positiveTestTraces, final Set<String> excludedTestTraces) {
+		if (!positiveFilters.isEmpty() || !negativeFilters.isEmpty()) {
+			BitSet referenceTraces = search.getReferenceTraces(positiveFilters, negativeFilters);
+			BitSet traces = search.getTraces(positiveFilters, negativeFilters);
+			if (!traces.isEmpty() && referenceTraces.cardinality() >= MINFILTERSUPPORT) {
+				new CheckerAlgorithm().apply(search.getLogSkeleton(referenceTraces), search.getLog(traces),
+						configuration, new CheckerSink() {
+
+							public void accept(XTrace trace, Collection<Violation> violations) {
+								String caseId = XConceptExtension.instance().extractName(trace);
+								if (!violations.isEmpty() && positiveTestTraces.contains(caseId)) {
+									excludedTestTraces.add(caseId);
+								}
+							}
+						});
+			}
+		}
+		if (positiveFilters.size() + negativeFilters.size() == maxFilterDepth) {
+			return;
+		}
+		for (int i = fromIndex; i < activities.size(); i++) {
+			for (int f = 0; f < 2; f++) {
+				Set<String> extendedPositiveFilters = new HashSet<String>(positiveFilters);
+				Set<String> extendedNegativeFilters = new HashSet<String>(negativeFilters);
+				if (f == 0) {
+					extendedPositiveFilters.add(activities.get(i));
+				} else {
+					extendedNegativeFilters.add(activities.get(i));
+				}
+				exclude(search, configuration, activities, i + 1, maxFilterDepth, extendedPositiveFilters,
+						extendedNegativeFilters, positiveTestTraces, excludedTestTraces);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(ClassifierAlgorithmTest.class);
+	}
+}
@@ -0,0 +1,188 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.CheckerConfiguration;
+import org.processmining.logskeleton.inputs.CheckerInput;
+import org.processmining.logskeleton.models.CompiledLogSkeleton;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.Violation;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+import junit.framework.TestCase;
+
+public class CompiledCheckerTest extends TestCase {
+
+	@Test
+	public void testCausalDependencies() throws Throwable {
+		XLog log = TestLogs.createLog("model", "a b c d", "a c b d", "a b c d", "a e d");
+		XLog checkedLog = TestLogs.createLog("checked", "a b c d", "b a c d", "a c d", "a e b d", "d c b a", "e",
+				"a a b b c c d d");
+		assertEquivalent(log, checkedLog);
+	}
+
+	@Test
+	public void testThresholds() throws Throwable {
+		/*
+		 * The generated logs contain some noise, so lowering the thresholds
+		 * results in more relations.
+		 */
+		XLog log = TestLogs.createLog("model", TestLogs.generateTraces(11, 200));
+		XLog checkedLog = TestLogs.createLog("checked", TestLogs.generateTraces(12, 200));
+		assertEquivalent(log, checkedLog);
+	}
+
+	/*
+	 * Asserts that the compiled log skeleton finds the same causal violations
+	 * as the reference checker, for several thresholds, and that stopping at
+	 * the first violation returns one of these violations.
+	 */
+	private void assertEquivalent(XLog log, XLog checkedLog) throws Throwable {
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+		CheckerConfiguration configuration = new CheckerConfiguration(new CheckerInput(logSkeleton, checkedLog));
+		configuration.setClassifier(new XEventNameClassifier());
+		configuration.setCheck(0, false);
+		configuration.setCheck(2, false);
+		for (int threshold = 100; threshold >= 80; threshold -= 5) {
+			logSkeleton.setPrecedenceThreshold(threshold);
+			logSkeleton.setResponseThreshold(threshold);
+			CompiledLogSkeleton compiledLogSkeleton = logSkeleton.compile();
+			for (XTrace trace : checkedLog) {
+				configuration.setStopAtFirstViolation(false);
+				List<String> referenceViolations = describe(check(logSkeleton, trace));
+				assertEquals(referenceViolations, describe(compiledLogSkeleton.check(trace, configuration)));
+				assertEquals(referenceViolations,
+						describe(logSkeleton.check(trace, count(trace), configuration)));
+				configuration.setStopAtFirstViolation(true);
+				List<String> firstViolations = describe(compiledLogSkeleton.check(trace, configuration));
+				assertEquals(referenceViolations.isEmpty() ? 0 : 1, firstViolations.size());
+				assertTrue(referenceViolations.containsAll(firstViolations));
+			}
+		}
+	}
+
+	/*
+	 * Returns the count of the provided trace.
+	 */
+	private LogSkeletonCount count(XTrace trace) {
+		LogSkeletonCount traceCount = new LogSkeletonCount();
+		String prevActivity = LogSkeletonCount.STARTEVENT;
+		traceCount.inc(prevActivity);
+		for (XEvent event : trace) {
+			String activity = new XEventNameClassifier().getClassIdentity(event);
+			traceCount.inc(activity);
+			traceCount.inc(prevActivity, activity);
+			prevActivity = activity;
+		}
+		traceCount.inc(LogSkeletonCount.ENDEVENT);
+		traceCount.inc(prevActivity, LogSkeletonCount.ENDEVENT);
+		return traceCount;
+	}
+
+	/*
+	 * The original causal check: for every event, compare the activities
+	 * before and after it with the (not) precedences and (not) responses of
+	 * its activity.
+	 */
+	private Collection<Violation> check(LogSkeleton logSkeleton, XTrace trace) {
+		List<String> postset = new ArrayList<String>();
+		postset.add(LogSkeletonCount.STARTEVENT);
+		for (XEvent event : trace) {
+			postset.add(new XEventNameClassifier().getClassIdentity(event));
+		}
+		postset.add(LogSkeletonCount.ENDEVENT);
+		List<String> preset = new ArrayList<String>();
+		List<Violation> violations = new ArrayList<Violation>();
+		String prevActivity = null;
+		while (!postset.isEmpty()) {
+			if (prevActivity != null) {
+				preset.add(prevActivity);
+			}
+			String activity = postset.remove(0);
+			if (!logSkeleton.getActivities().contains(activity)) {
+				prevActivity = activity;
+				continue;
+			}
+			Set<String> missingPreset = new HashSet<String>();
+			Set<String> missingPostset = new HashSet<String>();
+			Set<String> presentPreset = new HashSet<String>();
+			Set<String> presentPostset = new HashSet<String>();
+			for (String activity2 : logSkeleton.getActivities()) {
+				if (logSkeleton.getMaxThresholdPrecedence(activity2, activity) >= logSkeleton.getPrecedenceThreshold()
+						&& !preset.contains(activity2)) {
+					missingPreset.add(activity2);
+				}
+				if (logSkeleton.getMaxThresholdResponse(activity, activity2) >= logSkeleton.getResponseThreshold()
+						&& !postset.contains(activity2)) {
+					missingPostset.add(activity2);
+				}
+				if (logSkeleton.getMaxThresholdNotPrecedence(activity, activity2) >= logSkeleton
+						.getPrecedenceThreshold() && preset.contains(activity2)) {
+					presentPreset.add(activity2);
+				}
+				if (logSkeleton.getMaxThresholdNotResponse(activity2, activity) >= logSkeleton.getResponseThreshold()
+						&& postset.contains(activity2)) {
+					presentPostset.add(activity2);
+				}
+			}
+			if (!missingPreset.isEmpty()) {
+				violations.add(new ViolationPrecedence(trace, activity, missingPreset));
+			}
+			if (!missingPostset.isEmpty()) {
+				violations.add(new ViolationResponse(trace, activity, missingPostset));
+			}
+			if (!presentPreset.isEmpty()) {
+				violations.add(new ViolationNotPrecedence(trace, activity, presentPreset));
+			}
+			if (!presentPostset.isEmpty()) {
+				violations.add(new ViolationNotResponse(trace, activity, presentPostset));
+			}
+			prevActivity = activity;
+		}
+		return violations;
+	}
+
+	/*
+	 * Returns the provided violations as sorted descriptions, which do not
+	 * depend on the order of the violating activities.
+	 */
+	private List<String> describe(Collection<Violation> violations) {
+		List<String> descriptions = new ArrayList<String>();
+		for (Violation violation : violations) {
+			String activity = null;
+			if (violation instanceof ViolationPrecedence) {
+				activity = ((ViolationPrecedence) violation).getActivity();
+			} else if (violation instanceof ViolationResponse) {
+				activity = ((ViolationResponse) violation).getActivity();
+			} else if (violation instanceof ViolationNotPrecedence) {
+				activity = ((ViolationNotPrecedence) violation).getActivity();
+			} else if (violation instanceof ViolationNotResponse) {
+				activity = ((ViolationNotResponse) violation).getActivity();
+			}
+			descriptions.add(violation.getClass().getSimpleName() + " " + activity + " "
+					+ TestLogs.sorted(violation.getViolatingActivities()));
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(CompiledCheckerTest.class);
+	}
+}
@@ -0,0 +1,56 @@
+package org.processmining.tests.logskeleton;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+
+import junit.framework.TestCase;
+
+public class EquivalenceClassTest extends TestCase {
+
+	@Test
+	public void testChainedClasses() throws Throwable {
+		/*
+		 * At a high enough noise level, b joins a and c joins b, so c is
+		 * equivalent to a even though their counts are further apart.
+		 */
+		XLog log = TestLogs.createLog("chained", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d",
+				"a b c d", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d", "a b c d",
+				"a b c d", "a b c d", "a b c d", "a d", "a b d");
+		assertEquivalent(log);
+	}
+
+	@Test
+	public void testGeneratedLogs() throws Throwable {
+		for (int seed = 0; seed < 10; seed++) {
+			assertEquivalent(TestLogs.createLog("generated", TestLogs.generateTraces(seed, 40)));
+		}
+	}
+
+	/*
+	 * Asserts that the builder results in the same equivalence classes as the
+	 * reference builder, for all thresholds.
+	 */
+	private void assertEquivalent(XLog log) throws Throwable {
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), configuration);
+		LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(log, configuration);
+		for (int threshold = 100; threshold >= 80; threshold--) {
+			logSkeleton.setEquivalenceThreshold(threshold);
+			referenceLogSkeleton.setEquivalenceThreshold(threshold);
+			for (String activity : referenceLogSkeleton.getActivities()) {
+				assertEquals(activity + " at " + threshold,
+						TestLogs.sorted(referenceLogSkeleton.getEquivalenceClass(activity)),
+						TestLogs.sorted(logSkeleton.getEquivalenceClass(activity)));
+			}
+		}
+		assertEquals(TestLogs.export(referenceLogSkeleton), TestLogs.export(logSkeleton));
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(EquivalenceClassTest.class);
+	}
+}
@@ -0,0 +1,83 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.FilterSearch;
+import org.processmining.logskeleton.models.LogSkeleton;
+
+import junit.framework.TestCase;
+
+public class FilterSearchTest extends TestCase {
+
+	@Test
+	public void testFilters() throws Throwable {
+		XLog referenceLog = TestLogs.createLog("reference", TestLogs.generateTraces(15, 300));
+		XLog log = TestLogs.createLog("test", TestLogs.generateTraces(16, 300));
+		FilterSearch search = new FilterSearch(referenceLog, log, new XEventNameClassifier());
+		String[][] positiveFilters = new String[][] { {}, { "b" }, { "f" }, { "g", "h" }, { "b" }, { "i" } };
+		String[][] negativeFilters = new String[][] { {}, {}, { "c" }, { "f" }, { "g", "e" }, { "x" } };
+		for (int i = 0; i < positiveFilters.length; i++) {
+			Set<String> positiveFilter = toSet(positiveFilters[i]);
+			Set<String> negativeFilter = toSet(negativeFilters[i]);
+			BitSet referenceTraceIndices = search.getReferenceTraces(positiveFilter, negativeFilter);
+			assertEquals(filter(referenceLog, positiveFilter, negativeFilter), referenceTraceIndices);
+			assertEquals(filter(log, positiveFilter, negativeFilter), search.getTraces(positiveFilter, negativeFilter));
+
+			/*
+			 * The log skeleton for the filtered traces is the same as the log
+			 * skeleton for a copy of the log with only these traces.
+			 */
+			LogSkeleton logSkeleton = search.getLogSkeleton(referenceTraceIndices);
+			XLog filteredLog = XFactoryRegistry.instance().currentDefault().createLog();
+			for (int traceIndex = referenceTraceIndices.nextSetBit(0); traceIndex >= 0; traceIndex = referenceTraceIndices
+					.nextSetBit(traceIndex + 1)) {
+				filteredLog.add(referenceLog.get(traceIndex));
+			}
+			LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(filteredLog,
+					TestLogs.createConfiguration(filteredLog));
+			referenceLogSkeleton.setLabel(logSkeleton.getLabel());
+			assertEquals(TestLogs.export(referenceLogSkeleton), TestLogs.export(logSkeleton));
+			assertSame(logSkeleton, search.getLogSkeleton((BitSet) referenceTraceIndices.clone()));
+		}
+	}
+
+	/*
+	 * Returns the indices of the traces of the provided log that contain all
+	 * activities of the positive filter and no activity of the negative
+	 * filter, by visiting every event.
+	 */
+	private BitSet filter(XLog log, Set<String> positiveFilter, Set<String> negativeFilter) {
+		BitSet traceIndices = new BitSet();
+		for (int i = 0; i < log.size(); i++) {
+			Set<String> activities = new HashSet<String>();
+			for (XEvent event : log.get(i)) {
+				activities.add(new XEventNameClassifier().getClassIdentity(event));
+			}
+			Set<String> negativeActivities = new HashSet<String>(negativeFilter);
+			negativeActivities.retainAll(activities);
+			if (activities.containsAll(positiveFilter) && negativeActivities.isEmpty()) {
+				traceIndices.set(i);
+			}
+		}
+		return traceIndices;
+	}
+
+	private Set<String> toSet(String[] activities) {
+		Set<String> set = new HashSet<String>();
+		for (String activity : activities) {
+			set.add(activity);
+		}
+		return set;
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(FilterSearchTest.class);
+	}
+}
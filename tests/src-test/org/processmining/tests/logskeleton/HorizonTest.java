@@ -0,0 +1,50 @@
+package org.processmining.tests.logskeleton;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+
+import junit.framework.TestCase;
+
+public class HorizonTest extends TestCase {
+
+	@Test
+	public void testHorizons() throws Throwable {
+		XLog log = TestLogs.createLog("horizon", "a b c d e", "a c b d e", "a b a c d e", "a e", "b b a c c d e",
+				"a b c b c b c e");
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		for (int horizon = 1; horizon <= 4; horizon++) {
+			configuration.setHorizon(horizon);
+			TestLogs.assertSameRelations(log, configuration);
+		}
+	}
+
+	@Test
+	public void testHorizonsAndBoundaryActivities() throws Throwable {
+		XLog log = TestLogs.createLog("boundary", "a b c d e", "a c b d e", "a b a c d e", "a e", "b b a c c d e",
+				"a b c b c b c e");
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		configuration.getBoundaryActivities().add("c");
+		for (int horizon = 1; horizon <= 4; horizon++) {
+			configuration.setHorizon(horizon);
+			TestLogs.assertSameRelations(log, configuration);
+		}
+	}
+
+	@Test
+	public void testGeneratedLog() throws Throwable {
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(10, 500));
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		for (int horizon = 1; horizon <= 3; horizon++) {
+			configuration.getBoundaryActivities().clear();
+			configuration.setHorizon(horizon);
+			TestLogs.assertSameRelations(log, configuration);
+			configuration.getBoundaryActivities().add("e");
+			TestLogs.assertSameRelations(log, configuration);
+		}
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(HorizonTest.class);
+	}
+}
@@ -0,0 +1,255 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.CheckerConfiguration;
+import org.processmining.logskeleton.inputs.CheckerInput;
+import org.processmining.logskeleton.models.CompiledLogSkeleton;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogSkeletonMonitor;
+import org.processmining.logskeleton.models.LogView;
+import org.processmining.logskeleton.models.Violation;
+import org.processmining.logskeleton.models.violations.ViolationEquivalence;
+import org.processmining.logskeleton.models.violations.ViolationNotCoExistence;
+import org.processmining.logskeleton.models.violations.ViolationNotPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationNotResponse;
+import org.processmining.logskeleton.models.violations.ViolationPrecedence;
+import org.processmining.logskeleton.models.violations.ViolationResponse;
+
+import junit.framework.TestCase;
+
+public class LogSkeletonMonitorTest extends TestCase {
+
+	@Test
+	public void testCausalDependencies() throws Throwable {
+		XLog log = TestLogs.createLog("model", "a b c d", "a c b d", "a b c d", "a e d");
+		XLog checkedLog = TestLogs.createLog("checked", "a b c d", "b a c d", "a c d", "a e b d", "d c b a", "e",
+				"a a b b c c d d", "a e b b e d", "a x b c d");
+		assertEquivalent(log, checkedLog);
+	}
+
+	@Test
+	public void testThresholds() throws Throwable {
+		XLog log = TestLogs.createLog("model", TestLogs.generateTraces(11, 200));
+		XLog checkedLog = TestLogs.createLog("checked", TestLogs.generateTraces(12, 200));
+		assertEquivalent(log, checkedLog);
+	}
+
+	@Test
+	public void testNotCoExistence() throws Throwable {
+		/*
+		 * b and e never occur together in the model. Only the first b after an
+		 * e violates this, the second b and the second e do not.
+		 */
+		XLog log = TestLogs.createLog("model", "a b c d", "a c b d", "a b c d", "a e d");
+		XLog checkedLog = TestLogs.createLog("checked", "a e b b e d");
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+		XTrace trace = checkedLog.get(0);
+		LogSkeletonMonitor monitor = new LogSkeletonMonitor(logSkeleton.compile(), trace,
+				new XEventNameClassifier());
+		List<String> notCoExistences = new ArrayList<String>();
+		for (int i = 0; i < trace.size(); i++) {
+			for (Violation violation : monitor.add(trace.get(i))) {
+				if (violation instanceof ViolationNotCoExistence) {
+					notCoExistences.add(i + " " + describe(violation));
+				}
+			}
+		}
+		for (Violation violation : monitor.close()) {
+			assertFalse(violation instanceof ViolationNotCoExistence);
+		}
+		assertEquals(Collections.singletonList("2 ViolationNotCoExistence b [e]"), notCoExistences);
+	}
+
+	@Test
+	public void testClosed() throws Throwable {
+		XLog log = TestLogs.createLog("model", "a b c d", "a c b d");
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+		XTrace trace = log.get(0);
+		LogSkeletonMonitor monitor = new LogSkeletonMonitor(logSkeleton.compile(), trace,
+				new XEventNameClassifier());
+		for (XEvent event : trace) {
+			assertTrue(monitor.add(event).isEmpty());
+		}
+		assertFalse(monitor.isClosed());
+		assertTrue(monitor.close().isEmpty());
+		assertTrue(monitor.isClosed());
+		try {
+			monitor.add(trace.get(0));
+			fail("Adding an event to a closed case should fail");
+		} catch (IllegalStateException e) {
+			/*
+			 * Expected.
+			 */
+		}
+	}
+
+	/*
+	 * Asserts, for several thresholds, that the monitor reports every (not)
+	 * precedence and not co-existence violation when the violating event is
+	 * added, every response and equivalence violation when the case is
+	 * closed, and all violations the compiled log skeleton finds for the
+	 * entire trace.
+	 */
+	private void assertEquivalent(XLog log, XLog checkedLog) throws Throwable {
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), TestLogs.createConfiguration(log));
+		CheckerConfiguration configuration = new CheckerConfiguration(new CheckerInput(logSkeleton, checkedLog));
+		configuration.setClassifier(new XEventNameClassifier());
+		configuration.setStopAtFirstViolation(false);
+		for (int threshold = 100; threshold >= 80; threshold -= 5) {
+			logSkeleton.setPrecedenceThreshold(threshold);
+			logSkeleton.setResponseThreshold(threshold);
+			CompiledLogSkeleton compiledLogSkeleton = logSkeleton.compile();
+			for (XTrace trace : checkedLog) {
+				LogSkeletonMonitor monitor = new LogSkeletonMonitor(compiledLogSkeleton, trace,
+						new XEventNameClassifier());
+				List<String> preset = new ArrayList<String>();
+				preset.add(LogSkeletonCount.STARTEVENT);
+				Collection<Violation> allViolations = new ArrayList<Violation>();
+				for (XEvent event : trace) {
+					String activity = new XEventNameClassifier().getClassIdentity(event);
+					Collection<Violation> violations = monitor.add(event);
+					assertAdded(logSkeleton, activity, preset, violations);
+					for (Violation violation : violations) {
+						assertFalse(describe(violation), violation instanceof ViolationResponse
+								|| violation instanceof ViolationEquivalence);
+					}
+					allViolations.addAll(violations);
+					preset.add(activity);
+				}
+				Collection<Violation> violations = monitor.close();
+				assertAdded(logSkeleton, LogSkeletonCount.ENDEVENT, preset, violations);
+				allViolations.addAll(violations);
+				/*
+				 * The compiled log skeleton does not check Not Co-Existence.
+				 */
+				Collection<Violation> checkedViolations = new ArrayList<Violation>();
+				for (Violation violation : allViolations) {
+					if (!(violation instanceof ViolationNotCoExistence)) {
+						checkedViolations.add(violation);
+					}
+				}
+				assertEquals(trace.toString(), describe(compiledLogSkeleton.check(trace, configuration)),
+						describe(checkedViolations));
+			}
+		}
+	}
+
+	/*
+	 * Asserts that the provided violations, reported when an event for the
+	 * provided activity was added after the provided preset, contain exactly
+	 * the (not) precedence and not co-existence violations of this event.
+	 */
+	private void assertAdded(LogSkeleton logSkeleton, String activity, List<String> preset,
+			Collection<Violation> violations) {
+		List<String> expected = new ArrayList<String>();
+		if (logSkeleton.getActivities().contains(activity)) {
+			Set<String> missingPreset = new HashSet<String>();
+			Set<String> presentPreset = new HashSet<String>();
+			Set<String> notCoExistent = new HashSet<String>();
+			for (String activity2 : logSkeleton.getActivities()) {
+				if (logSkeleton.getMaxThresholdPrecedence(activity2, activity) >= logSkeleton.getPrecedenceThreshold()
+						&& !preset.contains(activity2)) {
+					missingPreset.add(activity2);
+				}
+				if (logSkeleton.getMaxThresholdNotPrecedence(activity, activity2) >= logSkeleton
+						.getPrecedenceThreshold() && preset.contains(activity2)) {
+					presentPreset.add(activity2);
+				}
+				if (logSkeleton.getMaxThresholdNotCoExistence(activity2, activity) >= logSkeleton
+						.getNotCoExistenceThreshold() && preset.contains(activity2)) {
+					notCoExistent.add(activity2);
+				}
+			}
+			if (!missingPreset.isEmpty()) {
+				expected.add("ViolationPrecedence " + activity + " " + TestLogs.sorted(missingPreset));
+			}
+			if (!presentPreset.isEmpty()) {
+				expected.add("ViolationNotPrecedence " + activity + " " + TestLogs.sorted(presentPreset));
+			}
+			if (!notCoExistent.isEmpty() && !preset.contains(activity)) {
+				expected.add("ViolationNotCoExistence " + activity + " " + TestLogs.sorted(notCoExistent));
+			}
+		}
+		List<String> actual = new ArrayList<String>();
+		for (Violation violation : violations) {
+			if (violation instanceof ViolationPrecedence || violation instanceof ViolationNotPrecedence
+					|| violation instanceof ViolationNotCoExistence) {
+				actual.add(describe(violation));
+			}
+		}
+		Collections.sort(expected);
+		Collections.sort(actual);
+		assertEquals(activity + " after " + preset, expected, actual);
+	}
+
+	/*
+	 * Returns the provided violations as sorted descriptions. The monitor
+	 * reports a Not Response violation for every pair when the later activity
+	 * occurs, and a Response violation only for the last occurrence of an
+	 * activity. Therefore, Not Response violations are described per distinct
+	 * pair, and Response violations per activity.
+	 */
+	private List<String> describe(Collection<Violation> violations) {
+		List<String> descriptions = new ArrayList<String>();
+		Set<String> notResponses = new HashSet<String>();
+		Map<String, Set<String>> responses = new HashMap<String, Set<String>>();
+		for (Violation violation : violations) {
+			if (violation instanceof ViolationNotResponse) {
+				for (String activity : violation.getViolatingActivities()) {
+					notResponses.add("ViolationNotResponse " + ((ViolationNotResponse) violation).getActivity() + " ["
+							+ activity + "]");
+				}
+			} else if (violation instanceof ViolationResponse) {
+				String activity = ((ViolationResponse) violation).getActivity();
+				if (!responses.containsKey(activity)) {
+					responses.put(activity, new HashSet<String>());
+				}
+				responses.get(activity).addAll(violation.getViolatingActivities());
+			} else {
+				descriptions.add(describe(violation));
+			}
+		}
+		descriptions.addAll(notResponses);
+		for (String activity : responses.keySet()) {
+			descriptions.add("ViolationResponse " + activity + " " + TestLogs.sorted(responses.get(activity)));
+		}
+		Collections.sort(descriptions);
+		return descriptions;
+	}
+
+	/*
+	 * Returns the provided violation as a description, which does not depend
+	 * on the order of the violating activities.
+	 */
+	private String describe(Violation violation) {
+		String activity = null;
+		if (violation instanceof ViolationPrecedence) {
+			activity = ((ViolationPrecedence) violation).getActivity();
+		} else if (violation instanceof ViolationNotPrecedence) {
+			activity = ((ViolationNotPrecedence) violation).getActivity();
+		} else if (violation instanceof ViolationNotCoExistence) {
+			activity = ((ViolationNotCoExistence) violation).getActivity();
+		}
+		return violation.getClass().getSimpleName() + (activity == null ? "" : " " + activity) + " "
+				+ TestLogs.sorted(violation.getViolatingActivities());
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(LogSkeletonMonitorTest.class);
+	}
+}
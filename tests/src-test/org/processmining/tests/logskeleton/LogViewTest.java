@@ -0,0 +1,165 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XAttributeMap;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.deckfour.xes.model.impl.XAttributeLiteralImpl;
+import org.junit.Test;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+import org.processmining.logskeleton.models.LogView;
+
+import junit.framework.TestCase;
+
+public class LogViewTest extends TestCase {
+
+	private final XEventClassifier classifier = new PrefixClassifier(new XEventNameClassifier());
+
+	@Test
+	public void testSplit() throws Throwable {
+		XLog log = TestLogs.createLog("split", "a b e b c b", "b a b", "b b", "a c");
+		LogView view = new LogView(log).split(classifier, "b", toSet("a", "c"));
+		XLog splitLog = split(log, "b", toSet("a", "c"));
+		assertEquivalent(splitLog, view);
+		assertEquals(Arrays.asList(LogSkeletonCount.STARTEVENT, "a", "b.1", "e", "b.1", "c", "b.1",
+				LogSkeletonCount.ENDEVENT), Arrays.asList(view.getActivities(0, classifier)));
+		assertEquals(Arrays.asList(LogSkeletonCount.STARTEVENT, "b.0", "a", "b.1", LogSkeletonCount.ENDEVENT),
+				Arrays.asList(view.getActivities(1, classifier)));
+
+		/*
+		 * Split an activity that has been split before.
+		 */
+		view = view.split(classifier, "b.1", toSet("e"));
+		splitLog = split(splitLog, "b.1", toSet("e"));
+		assertEquivalent(splitLog, view);
+		assertEquals(Arrays.asList(LogSkeletonCount.STARTEVENT, "a", "b.1.0", "e", "b.1.1", "c", "b.1.1",
+				LogSkeletonCount.ENDEVENT), Arrays.asList(view.getActivities(0, classifier)));
+
+		/*
+		 * The log itself has not changed.
+		 */
+		assertEquals(Arrays.asList(LogSkeletonCount.STARTEVENT, "a", "b", "e", "b", "c", "b",
+				LogSkeletonCount.ENDEVENT), Arrays.asList(getActivities(log.get(0))));
+	}
+
+	@Test
+	public void testCreateLog() throws Throwable {
+		/*
+		 * The created log keeps the classifiers of the log, so plugins that
+		 * get the created log can use them.
+		 */
+		XLog log = TestLogs.createLog("create", "a b", "b a");
+		log.getClassifiers().add(new XEventNameClassifier());
+		BitSet traceIndices = new BitSet();
+		traceIndices.set(1);
+		XLog createdLog = new LogView(log).select(traceIndices).split(classifier, "a", toSet("b")).createLog();
+		assertEquals(log.getClassifiers(), createdLog.getClassifiers());
+		assertEquals(1, createdLog.size());
+	}
+
+	@Test
+	public void testSelectAndSplit() throws Throwable {
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(18, 300));
+		BitSet traceIndices = new BitSet();
+		XLog selectedLog = XFactoryRegistry.instance().currentDefault()
+				.createLog((XAttributeMap) log.getAttributes().clone());
+		for (int i = 0; i < log.size(); i += 3) {
+			traceIndices.set(i);
+			selectedLog.add(log.get(i));
+		}
+		LogView view = new LogView(log).select(traceIndices).split(classifier, "e", toSet("g", "h"));
+		XLog splitLog = split(selectedLog, "e", toSet("g", "h"));
+		assertEquivalent(splitLog, view);
+
+		/*
+		 * Selecting after splitting results in the same view.
+		 */
+		assertEquivalent(splitLog, new LogView(log).split(classifier, "e", toSet("g", "h")).select(traceIndices));
+	}
+
+	/*
+	 * Asserts that the provided view has the same activities as the provided
+	 * log, also when turned into a log, and results in the same log skeleton.
+	 */
+	private void assertEquivalent(XLog log, LogView view) throws Throwable {
+		assertEquals(log.size(), view.size());
+		XLog createdLog = view.createLog();
+		assertEquals(log.size(), createdLog.size());
+		for (int i = 0; i < log.size(); i++) {
+			String[] activities = getActivities(log.get(i));
+			assertEquals(Arrays.asList(activities), Arrays.asList(view.getActivities(i, classifier)));
+			assertEquals(Arrays.asList(activities), Arrays.asList(getActivities(createdLog.get(i))));
+		}
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(view, configuration);
+		LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(log, configuration);
+		assertEquals(TestLogs.export(referenceLogSkeleton), TestLogs.export(logSkeleton));
+	}
+
+	/*
+	 * The original splitter: copies the log, where every occurrence of the
+	 * duplicate activity is copied with a suffix added: ".0" before the first
+	 * milestone activity, and ".1" after it.
+	 */
+	private XLog split(XLog log, String duplicateActivity, Collection<String> milestoneActivities) {
+		XLog splitLog = XFactoryRegistry.instance().currentDefault()
+				.createLog((XAttributeMap) log.getAttributes().clone());
+		for (XTrace trace : log) {
+			XTrace splitTrace = XFactoryRegistry.instance().currentDefault().createTrace(trace.getAttributes());
+			int milestone = 0;
+			for (XEvent event : trace) {
+				String activity = classifier.getClassIdentity(event);
+				if (activity.equals(duplicateActivity)) {
+					XEvent splitEvent = (XEvent) event.clone();
+					String suffix = "." + milestone;
+					if (event.getAttributes().containsKey(PrefixClassifier.SUFFIX)) {
+						suffix = event.getAttributes().get(PrefixClassifier.SUFFIX) + suffix;
+					}
+					splitEvent.getAttributes().put(PrefixClassifier.SUFFIX,
+							new XAttributeLiteralImpl(PrefixClassifier.SUFFIX, suffix));
+					splitTrace.add(splitEvent);
+				} else {
+					splitTrace.add(event);
+				}
+				if (milestoneActivities.contains(activity)) {
+					if (milestone == 0) {
+						milestone++;
+					}
+				}
+			}
+			splitLog.add(splitTrace);
+		}
+		return splitLog;
+	}
+
+	private String[] getActivities(XTrace trace) {
+		String[] activities = new String[trace.size() + 2];
+		activities[0] = LogSkeletonCount.STARTEVENT;
+		for (int i = 0; i < trace.size(); i++) {
+			activities[i + 1] = classifier.getClassIdentity(trace.get(i));
+		}
+		activities[trace.size() + 1] = LogSkeletonCount.ENDEVENT;
+		return activities;
+	}
+
+	private Set<String> toSet(String... activities) {
+		return new HashSet<String>(Arrays.asList(activities));
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(LogViewTest.class);
+	}
+}
@@ -0,0 +1,43 @@
+package org.processmining.tests.logskeleton;
+
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+
+import junit.framework.TestCase;
+
+public class PrePostTest extends TestCase {
+
+	@Test
+	public void testUnboundedPrePost() throws Throwable {
+		XLog log = TestLogs.createLog("prepost", "a b c d", "a c b d", "a b a c d", "a d", "b b a c c d");
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		configuration.setHorizon(0);
+		TestLogs.assertSameRelations(log, configuration);
+	}
+
+	@Test
+	public void testBoundaryActivities() throws Throwable {
+		XLog log = TestLogs.createLog("boundary", "a b c d", "a c b d", "a b a c d", "a d", "b b a c c d");
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		configuration.setHorizon(0);
+		configuration.getBoundaryActivities().add("a");
+		TestLogs.assertSameRelations(log, configuration);
+		configuration.getBoundaryActivities().add("c");
+		TestLogs.assertSameRelations(log, configuration);
+	}
+
+	@Test
+	public void testGeneratedLog() throws Throwable {
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(9, 500));
+		BuilderConfiguration configuration = TestLogs.createConfiguration(log);
+		configuration.setHorizon(0);
+		TestLogs.assertSameRelations(log, configuration);
+		configuration.getBoundaryActivities().add("e");
+		TestLogs.assertSameRelations(log, configuration);
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(PrePostTest.class);
+	}
+}
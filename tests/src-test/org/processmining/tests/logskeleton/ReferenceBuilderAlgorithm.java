@@ -0,0 +1,184 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.classifiers.PrefixClassifier;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogSkeletonCount;
+
+/**
+ * The original, sequential builder, which the builder should be equivalent
+ * to. Every trace is counted on its own, the equivalence classes are joined
+ * until nothing changes for every noise level, and the presets and postsets
+ * are kept as lists.
+ */
+public class ReferenceBuilderAlgorithm {
+
+	public LogSkeleton apply(XLog log, BuilderConfiguration configuration) {
+		/*
+		 * Create count for entire log.
+		 */
+		LogSkeletonCount logCount = count(log, configuration);
+
+		/*
+		 * Create a count for every trace.
+		 */
+		Collection<LogSkeletonCount> traceCounts = new ArrayList<LogSkeletonCount>();
+		for (XTrace trace : log) {
+			List<XTrace> traceLog = new ArrayList<XTrace>();
+			traceLog.add(trace);
+			traceCounts.add(count(traceLog, configuration));
+		}
+
+		/*
+		 * Create an initial log skeleton from the log count.
+		 */
+		LogSkeleton logSkeleton = new LogSkeleton(logCount);
+		logSkeleton.setHorizon(configuration.getHorizon());
+
+		/*
+		 * Add equivalence classes and other relations to the log skeleton.
+		 */
+		addEquivalenceClasses(traceCounts, logSkeleton);
+		createCausalDependencies(log, configuration, logSkeleton);
+
+		String label = XConceptExtension.instance().extractName(log);
+		logSkeleton.setLabel(label == null ? "<not specified>" : label);
+		return logSkeleton;
+	}
+
+	private LogSkeletonCount count(List<XTrace> log, BuilderConfiguration configuration) {
+		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
+		LogSkeletonCount logCount = new LogSkeletonCount();
+		for (XTrace trace : log) {
+			String prevActivity = LogSkeletonCount.STARTEVENT;
+			logCount.inc(prevActivity);
+			for (XEvent event : trace) {
+				String activity = classifier.getClassIdentity(event);
+				logCount.inc(activity);
+				logCount.inc(prevActivity, activity);
+				prevActivity = activity;
+			}
+			logCount.inc(LogSkeletonCount.ENDEVENT);
+			logCount.inc(prevActivity, LogSkeletonCount.ENDEVENT);
+		}
+		return logCount;
+	}
+
+	private void addEquivalenceClasses(Collection<LogSkeletonCount> traceCounts, LogSkeleton logSkeleton) {
+		/*
+		 * Maps a list of counts (for every trace a count) to the set of
+		 * activities that have this list of counts.
+		 */
+		Map<List<Integer>, Set<String>> traceCountList2Activities = new HashMap<List<Integer>, Set<String>>();
+		Set<String> allActivities = new HashSet<String>();
+		for (LogSkeletonCount traceCount : traceCounts) {
+			allActivities.addAll(traceCount.getActivities());
+		}
+		for (String activity : allActivities) {
+			List<Integer> traceCountList = new ArrayList<Integer>();
+			for (LogSkeletonCount traceCount : traceCounts) {
+				traceCountList.add(traceCount.get(activity));
+			}
+			if (!traceCountList2Activities.containsKey(traceCountList)) {
+				traceCountList2Activities.put(traceCountList, new HashSet<String>());
+			}
+			traceCountList2Activities.get(traceCountList).add(activity);
+		}
+
+		int nofTraces = traceCounts.size();
+		for (int noiseLevel = 0; noiseLevel < 21; noiseLevel++) {
+			Map<List<Integer>, Set<String>> newTraceCountList2Activities = new HashMap<List<Integer>, Set<String>>();
+			for (List<Integer> c : traceCountList2Activities.keySet()) {
+				newTraceCountList2Activities.put(c, new HashSet<String>(traceCountList2Activities.get(c)));
+			}
+			/*
+			 * Join equivalence classes that are close enough for this noise
+			 * level, until nothing changes.
+			 */
+			boolean changed = true;
+			while (changed) {
+				changed = false;
+				for (List<Integer> traceCountList1 : newTraceCountList2Activities.keySet()) {
+					for (List<Integer> traceCountList2 : newTraceCountList2Activities.keySet()) {
+						if (!newTraceCountList2Activities.get(traceCountList1)
+								.equals(newTraceCountList2Activities.get(traceCountList2))
+								&& 100 * distance(traceCountList1, traceCountList2) < noiseLevel * nofTraces) {
+							newTraceCountList2Activities.get(traceCountList1)
+									.addAll(newTraceCountList2Activities.get(traceCountList2));
+							newTraceCountList2Activities.get(traceCountList2)
+									.addAll(newTraceCountList2Activities.get(traceCountList1));
+							changed = true;
+						}
+					}
+				}
+			}
+			for (Set<String> equivalenceClass : newTraceCountList2Activities.values()) {
+				logSkeleton.addEquivalenceClass(noiseLevel, equivalenceClass);
+			}
+			traceCountList2Activities = newTraceCountList2Activities;
+		}
+	}
+
+	private int distance(List<Integer> traceCountList1, List<Integer> traceCountList2) {
+		int distance = 0;
+		for (int i = 0; i < Math.min(traceCountList1.size(), traceCountList2.size()); i++) {
+			distance += Math.abs(traceCountList1.get(i) - traceCountList2.get(i));
+		}
+		return distance;
+	}
+
+	private void createCausalDependencies(XLog log, BuilderConfiguration configuration, LogSkeleton logSkeleton) {
+		XEventClassifier classifier = new PrefixClassifier(configuration.getClassifier());
+		for (XTrace trace : log) {
+			List<String> postset = new ArrayList<String>();
+			postset.add(LogSkeletonCount.STARTEVENT);
+			for (XEvent event : trace) {
+				postset.add(classifier.getClassIdentity(event));
+			}
+			postset.add(LogSkeletonCount.ENDEVENT);
+			List<String> preset = new ArrayList<String>();
+			String prevActivity = null;
+			while (!postset.isEmpty()) {
+				if (prevActivity != null) {
+					preset.add(0, prevActivity);
+				}
+				String activity = postset.remove(0);
+				logSkeleton.addPrePost(activity, filter(preset, configuration), filter(postset, configuration));
+				prevActivity = activity;
+			}
+		}
+		logSkeleton.cleanPrePost();
+	}
+
+	/*
+	 * Returns the activities in the provided list (nearest first) up to the
+	 * horizon, and up to and including the first boundary activity.
+	 */
+	private Set<String> filter(List<String> activities, BuilderConfiguration configuration) {
+		Set<String> filteredActivities = new HashSet<String>();
+		for (int i = 0; i < activities.size(); i++) {
+			if (i > 0 && i == configuration.getHorizon()) {
+				break;
+			} else if (configuration.getBoundaryActivities().contains(activities.get(i))) {
+				filteredActivities.add(activities.get(i));
+				break;
+			} else {
+				filteredActivities.add(activities.get(i));
+			}
+		}
+		return filteredActivities;
+	}
+}
@@ -0,0 +1,206 @@
+package org.processmining.tests.logskeleton;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.extension.std.XConceptExtension;
+import org.deckfour.xes.factory.XFactory;
+import org.deckfour.xes.factory.XFactoryRegistry;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.deckfour.xes.model.XTrace;
+import org.processmining.logskeleton.algorithms.BuilderAlgorithm;
+import org.processmining.logskeleton.configurations.BuilderConfiguration;
+import org.processmining.logskeleton.inputs.BuilderInput;
+import org.processmining.logskeleton.models.LogSkeleton;
+import org.processmining.logskeleton.models.LogView;
+
+import com.csvreader.CsvReader;
+import com.csvreader.CsvWriter;
+
+import junit.framework.Assert;
+
+/**
+ * Small fixed logs and helpers to compare log skeletons in the tests.
+ */
+public class TestLogs {
+
+	/**
+	 * Creates a log with the provided name and the provided traces. Every trace
+	 * is provided as its activities, separated by spaces.
+	 *
+	 * @param name
+	 *            The provided name.
+	 * @param traces
+	 *            The provided traces.
+	 * @return The created log.
+	 */
+	public static XLog createLog(String name, String... traces) {
+		XFactory factory = XFactoryRegistry.instance().currentDefault();
+		XLog log = factory.createLog();
+		XConceptExtension.instance().assignName(log, name);
+		for (int i = 0; i < traces.length; i++) {
+			XTrace trace = factory.createTrace();
+			XConceptExtension.instance().assignName(trace, "t" + i);
+			for (String activity : traces[i].split(" ")) {
+				if (activity.isEmpty()) {
+					continue;
+				}
+				XEvent event = factory.createEvent();
+				XConceptExtension.instance().assignName(event, activity);
+				trace.add(event);
+			}
+			log.add(trace);
+		}
+		return log;
+	}
+
+	/**
+	 * Returns the activities of the traces of a log with the provided number
+	 * of traces, generated from the provided seed. The log has some structure
+	 * (choices, loops, and an optional pair of activities), and some noise.
+	 *
+	 * @param seed
+	 *            The provided seed.
+	 * @param nofTraces
+	 *            The provided number of traces.
+	 * @return The activities of the traces, separated by spaces.
+	 */
+	public static String[] generateTraces(long seed, int nofTraces) {
+		Random random = new Random(seed);
+		String[] traces = new String[nofTraces];
+		for (int i = 0; i < nofTraces; i++) {
+			StringBuffer buf = new StringBuffer("a");
+			buf.append(random.nextBoolean() ? " b c" : " d");
+			int loops = random.nextInt(6);
+			for (int j = 0; j < loops; j++) {
+				buf.append(random.nextInt(3) == 0 ? " e f" : " e");
+			}
+			if (random.nextInt(4) == 0) {
+				buf.append(" g h");
+			} else if (random.nextBoolean()) {
+				buf.append(" h g");
+			}
+			if (random.nextInt(10) == 0) {
+				/*
+				 * Noise.
+				 */
+				buf.append(" " + (char) ('a' + random.nextInt(10)));
+			}
+			buf.append(" j");
+			traces[i] = buf.toString();
+		}
+		return traces;
+	}
+
+	/**
+	 * Creates a builder configuration for the provided log, using the event
+	 * names as activities.
+	 *
+	 * @param log
+	 *            The provided log.
+	 * @return The created configuration.
+	 */
+	public static BuilderConfiguration createConfiguration(XLog log) {
+		BuilderConfiguration configuration = new BuilderConfiguration(new BuilderInput(log));
+		configuration.setClassifier(new XEventNameClassifier());
+		return configuration;
+	}
+
+	/**
+	 * Returns the exported provided log skeleton, in an order that does not
+	 * depend on the activity ids. Every record keeps its first value, and has
+	 * its other values sorted. The records are sorted as well.
+	 *
+	 * @param logSkeleton
+	 *            The provided log skeleton.
+	 * @return The exported log skeleton.
+	 * @throws IOException
+	 *             If the log skeleton cannot be exported.
+	 */
+	public static List<String> export(LogSkeleton logSkeleton) throws IOException {
+		StringWriter writer = new StringWriter();
+		CsvWriter csvWriter = new CsvWriter(writer, ',');
+		logSkeleton.exportToFile(csvWriter);
+		csvWriter.flush();
+		List<String> records = new ArrayList<String>();
+		CsvReader csvReader = new CsvReader(new StringReader(writer.toString()));
+		while (csvReader.readRecord()) {
+			List<String> values = new ArrayList<String>(Arrays.asList(csvReader.getValues()));
+			if (values.isEmpty()) {
+				continue;
+			}
+			List<String> otherValues = new ArrayList<String>(values.subList(1, values.size()));
+			Collections.sort(otherValues);
+			records.add(values.get(0) + " " + otherValues);
+		}
+		csvReader.close();
+		Collections.sort(records);
+		return records;
+	}
+
+	/**
+	 * Returns the maximal thresholds for all relations between all pairs of
+	 * activities of the provided log skeleton, in an order that does not
+	 * depend on the activity ids.
+	 *
+	 * @param logSkeleton
+	 *            The provided log skeleton.
+	 * @return The maximal thresholds, a line for every pair of activities.
+	 */
+	public static List<String> getMaxThresholds(LogSkeleton logSkeleton) {
+		List<String> thresholds = new ArrayList<String>();
+		for (String fromActivity : sorted(logSkeleton.getActivities())) {
+			for (String toActivity : sorted(logSkeleton.getActivities())) {
+				thresholds.add(fromActivity + " " + toActivity + " "
+						+ logSkeleton.getMaxThresholdResponse(fromActivity, toActivity) + " "
+						+ logSkeleton.getMaxThresholdPrecedence(fromActivity, toActivity) + " "
+						+ logSkeleton.getMaxThresholdNotResponse(fromActivity, toActivity) + " "
+						+ logSkeleton.getMaxThresholdNotPrecedence(fromActivity, toActivity) + " "
+						+ logSkeleton.getMaxThresholdNotCoExistence(fromActivity, toActivity));
+			}
+		}
+		return thresholds;
+	}
+
+	/**
+	 * Asserts that the builder results in the same relations for the provided
+	 * log and the provided configuration as the reference builder.
+	 *
+	 * @param log
+	 *            The provided log.
+	 * @param configuration
+	 *            The provided configuration.
+	 * @throws IOException
+	 *             If a log skeleton cannot be exported.
+	 */
+	public static void assertSameRelations(XLog log, BuilderConfiguration configuration) throws IOException {
+		LogSkeleton logSkeleton = new BuilderAlgorithm().apply(new LogView(log), configuration);
+		LogSkeleton referenceLogSkeleton = new ReferenceBuilderAlgorithm().apply(log, configuration);
+		String message = "horizon " + configuration.getHorizon() + ", boundary activities "
+				+ configuration.getBoundaryActivities();
+		Assert.assertEquals(message, getMaxThresholds(referenceLogSkeleton), getMaxThresholds(logSkeleton));
+		Assert.assertEquals(message, export(referenceLogSkeleton), export(logSkeleton));
+	}
+
+	/**
+	 * Returns the provided activities as a sorted list.
+	 *
+	 * @param activities
+	 *            The provided activities.
+	 * @return The sorted list.
+	 */
+	public static List<String> sorted(Collection<String> activities) {
+		List<String> list = new ArrayList<String>(activities);
+		Collections.sort(list);
+		return list;
+	}
+}
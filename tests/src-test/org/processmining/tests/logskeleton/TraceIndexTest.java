@@ -0,0 +1,106 @@
+package org.processmining.tests.logskeleton;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.deckfour.xes.classification.XEventNameClassifier;
+import org.deckfour.xes.model.XEvent;
+import org.deckfour.xes.model.XLog;
+import org.junit.Test;
+import org.processmining.logskeleton.models.ActivityDictionary;
+import org.processmining.logskeleton.models.TraceIndex;
+
+import junit.framework.TestCase;
+
+public class TraceIndexTest extends TestCase {
+
+	@Test
+	public void testFixedFilters() throws Throwable {
+		XLog log = TestLogs.createLog("fixed", "a b c", "a d", "b c", "", "a b d a");
+		TraceIndex index = new TraceIndex(log, new XEventNameClassifier());
+		assertEquals(bits(0, 1, 4), index.select(toSet("a"), toSet()));
+		assertEquals(bits(0, 4), index.select(toSet("a", "b"), toSet()));
+		assertEquals(bits(1), index.select(toSet("a"), toSet("b", "c")));
+		assertEquals(bits(3), index.select(toSet(), toSet("a", "b", "c", "d")));
+		assertEquals(bits(), index.select(toSet("x"), toSet()));
+		assertEquals(bits(0, 1, 2, 3, 4), index.select(toSet(), toSet("x")));
+	}
+
+	@Test
+	public void testRandomFilters() throws Throwable {
+		XLog log = TestLogs.createLog("generated", TestLogs.generateTraces(17, 300));
+		TraceIndex index = new TraceIndex(log, new XEventNameClassifier());
+
+		/*
+		 * The index for the encoded traces is the same as the index for the
+		 * log.
+		 */
+		ActivityDictionary dictionary = new ActivityDictionary();
+		int[][] encodedTraces = new int[log.size()][];
+		for (int i = 0; i < log.size(); i++) {
+			encodedTraces[i] = dictionary.add(log.get(i), new XEventNameClassifier());
+		}
+		TraceIndex encodedIndex = new TraceIndex(dictionary, encodedTraces);
+
+		Random random = new Random(17);
+		for (int i = 0; i < 200; i++) {
+			Set<String> positiveFilter = new HashSet<String>();
+			Set<String> negativeFilter = new HashSet<String>();
+			for (int j = 0; j < 3; j++) {
+				String activity = "" + (char) ('a' + random.nextInt(11));
+				if (random.nextBoolean()) {
+					positiveFilter.add(activity);
+				} else {
+					negativeFilter.add(activity);
+				}
+			}
+			BitSet traceIndices = filter(log, positiveFilter, negativeFilter);
+			String message = positiveFilter + " " + negativeFilter;
+			assertEquals(message, traceIndices, index.select(positiveFilter, negativeFilter));
+			assertEquals(message, traceIndices, encodedIndex.select(positiveFilter, negativeFilter));
+		}
+	}
+
+	/*
+	 * Returns the indices of the traces of the provided log that contain all
+	 * activities of the positive filter and no activity of the negative
+	 * filter, by visiting every event.
+	 */
+	private BitSet filter(XLog log, Set<String> positiveFilter, Set<String> negativeFilter) {
+		BitSet traceIndices = new BitSet();
+		for (int i = 0; i < log.size(); i++) {
+			Set<String> activities = new HashSet<String>();
+			for (XEvent event : log.get(i)) {
+				activities.add(new XEventNameClassifier().getClassIdentity(event));
+			}
+			Set<String> negativeActivities = new HashSet<String>(negativeFilter);
+			negativeActivities.retainAll(activities);
+			if (activities.containsAll(positiveFilter) && negativeActivities.isEmpty()) {
+				traceIndices.set(i);
+			}
+		}
+		return traceIndices;
+	}
+
+	private BitSet bits(int... indices) {
+		BitSet bits = new BitSet();
+		for (int index : indices) {
+			bits.set(index);
+		}
+		return bits;
+	}
+
+	private Set<String> toSet(String... activities) {
+		Set<String> set = new HashSet<String>();
+		for (String activity : activities) {
+			set.add(activity);
+		}
+		return set;
+	}
+
+	public static void main(String[] args) {
+		junit.textui.TestRunner.run(TraceIndexTest.class);
+	}
+}